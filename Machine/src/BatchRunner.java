@@ -0,0 +1,162 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+public class BatchRunner {
+    private static final double DEFAULT_RUN_TIME = 60;
+
+    //Usage: BatchRunner [runTime] [reportInterval] [--mode=EXECUTION_MODE] [--adaptive=tolerance] [--exact] [--integrator=INTEGRATOR] [--restore=file] [--checkpoint=file]
+    //                  [--telemetry=file] [--decimation=ticks] [--plant=file]
+    //A restored run carries on to runTime from where the checkpoint was saved. Options after --restore override the ones saved with it.
+    //--adaptive only runs in SEQUENTIAL mode, and is refused with any other --mode.
+    //A plant file replaces the built-in plant wherever it appears in the options.
+    public static void main(String[] args) throws IOException {
+        double runTime = DEFAULT_RUN_TIME;
+        double reportInterval = 0;
+        String checkpointPath = null;
+        String telemetryPath = null;
+        long decimation = 1;
+        Plant plant = null;
+        for(String arg : args){
+            if(arg.startsWith("--plant=")){
+                plant = PlantLoader.load(Path.of(arg.substring("--plant=".length())));
+            }
+        }
+        Simulator simulator = plant != null ? new Simulator(plant) : new Simulator();
+
+        int position = 0;
+        for(String arg : args){
+            if(arg.startsWith("--mode=")){
+                simulator.setExecutionMode(Simulator.EXECUTION_MODE.valueOf(arg.substring("--mode=".length())));
+            }else if(arg.startsWith("--adaptive=")){
+                simulator.setAdaptiveTimeStep(true);
+                simulator.setTolerance(Double.parseDouble(arg.substring("--adaptive=".length())));
+            }else if(arg.equals("--exact")){
+                simulator.setExactHeatTransfer(true);
+            }else if(arg.startsWith("--integrator=")){
+                simulator.setMotorIntegrator(Motor.INTEGRATOR.valueOf(arg.substring("--integrator=".length())));
+            }else if(arg.startsWith("--restore=")){
+                Checkpoint.restore(simulator, arg.substring("--restore=".length()));
+            }else if(arg.startsWith("--checkpoint=")){
+                checkpointPath = arg.substring("--checkpoint=".length());
+            }else if(arg.startsWith("--telemetry=")){
+                telemetryPath = arg.substring("--telemetry=".length());
+            }else if(arg.startsWith("--decimation=")){
+                decimation = Long.parseLong(arg.substring("--decimation=".length()));
+            }else if(arg.startsWith("--plant=")){
+                //Loaded before the simulator was built.
+            }else if(position == 0){
+                runTime = Double.parseDouble(arg);
+                position++;
+            }else{
+                reportInterval = Double.parseDouble(arg);
+            }
+        }
+
+        TelemetryRecorder telemetryRecorder = null;
+        if(telemetryPath != null){
+            telemetryRecorder = new TelemetryRecorder(Path.of(telemetryPath), decimation);
+            if(plant != null){
+                telemetryRecorder.addPlant(plant);
+            }else{
+                telemetryRecorder.addPlant(simulator);
+            }
+            telemetryRecorder.open();
+            simulator.setTelemetryRecorder(telemetryRecorder);
+        }
+
+        long startTime = System.nanoTime();
+        if(simulator.isAdaptiveTimeStep()){
+            runAdaptive(simulator, runTime, reportInterval, startTime);
+        }else{
+            runFixed(simulator, runTime, reportInterval, startTime);
+        }
+        long elapsed = System.nanoTime() - startTime;
+        if(telemetryRecorder != null){
+            telemetryRecorder.close();
+            System.out.println("Recorded " + telemetryRecorder.getSampleCount() + " samples of " + telemetryRecorder.getChannelNames().size() + " channels to " + telemetryPath);
+        }
+        if(checkpointPath != null){
+            Checkpoint.save(simulator, checkpointPath);
+        }
+
+        displayProgress(simulator, elapsed);
+        if(plant != null){
+            displayPlantInfo(plant, simulator.getSimulatedTime());
+        }else{
+            displaySimulatorInfo(simulator);
+        }
+    }
+
+    public static void runFixed(Simulator simulator, double runTime, double reportInterval, long startTime){
+        long totalTicks = (long)(runTime / Simulator.TIME_CONST);
+        long reportTicks = reportInterval > 0 ? (long)(reportInterval / Simulator.TIME_CONST) : totalTicks;
+
+        System.out.println("Running " + runTime + " s (" + totalTicks + " ticks)");
+        while(simulator.getTickCount() < totalTicks){
+            long ticks = Math.min(reportTicks, totalTicks - simulator.getTickCount());
+            simulator.runTicks(ticks);
+            if(simulator.getTickCount() < totalTicks){
+                displayProgress(simulator, System.nanoTime() - startTime);
+            }
+        }
+    }
+
+    public static void runAdaptive(Simulator simulator, double runTime, double reportInterval, long startTime){
+        double interval = reportInterval > 0 ? reportInterval : runTime;
+
+        System.out.println("Running " + runTime + " s (adaptive, tolerance " + simulator.getTolerance() + ")");
+        while(simulator.getSimulatedTime() < runTime){
+            simulator.runSimulation(Math.min(interval, runTime - simulator.getSimulatedTime()));
+            if(simulator.getSimulatedTime() < runTime){
+                displayProgress(simulator, System.nanoTime() - startTime);
+            }
+        }
+    }
+
+    public static void displayProgress(Simulator simulator, long elapsedNanos){
+        double seconds = elapsedNanos / 1e9;
+        double ticksPerSecond = simulator.getTickCount() / seconds;
+        double realTimeFactor = simulator.getSimulatedTime() / seconds;
+        System.out.println("Simulated " + simulator.getSimulatedTime() + " s in " + seconds + " s" + "     " + simulator.getTickCount() + " ticks" + "     " + (long)ticksPerSecond + " ticks/s" + "     " + realTimeFactor + "x real time");
+    }
+
+    public static void displaySimulatorInfo(Simulator simulator){
+        double seconds = simulator.getSimulatedTime();
+        simulator.getMotor().displayMotorInfo(seconds);
+        simulator.getCompressor().displayCompressorInfo(seconds);
+        simulator.getHeatExchanger().displayHeatExchangerInfo(seconds);
+        simulator.getExpander().displayExpanderInfo(seconds);
+        simulator.getChamber().displayChamberInfo("Chamber");
+        simulator.getOutputChamber().displayChamberInfo("Compressor Output Chamber");
+        simulator.getHeatExchangerGateChamber().displayChamberInfo("Heat Exchanger Gate Chamber");
+        simulator.getInputCoolantChamber().displayChamberInfo("Input Coolant Chamber");
+        simulator.getOutputCoolantChamber().displayChamberInfo("Output Coolant Chamber");
+        simulator.getOutputContentChamber().displayChamberInfo("Heat Exchanger Output Chamber");
+        simulator.getExpanderOutputGasChamber().displayChamberInfo("Expander Gas Chamber");
+        simulator.getExpanderOutputLiquidChamber().displayChamberInfo("Expander Liquid Chamber");
+    }
+
+    public static void displayPlantInfo(Plant plant, double seconds){
+        List<Machine> machines = plant.getMachines();
+        for(int i=0;i<machines.size();i++){
+            Machine machine = machines.get(i);
+            String name = plant.getMachineNames().get(i);
+            if(machine instanceof Motor){
+                System.out.println(name + ":");
+                ((Motor)machine).displayMotorInfo(seconds);
+            }else if(machine instanceof Compressor){
+                System.out.println(name + ":");
+                ((Compressor)machine).displayCompressorInfo(seconds);
+            }else if(machine instanceof HeatExchanger){
+                System.out.println(name + ":");
+                ((HeatExchanger)machine).displayHeatExchangerInfo(seconds);
+            }else if(machine instanceof Expander){
+                System.out.println(name + ":");
+                ((Expander)machine).displayExpanderInfo(seconds);
+            }else if(machine instanceof Chamber){
+                ((Chamber)machine).displayChamberInfo(name);
+            }
+        }
+    }
+}
@@ -13,6 +13,16 @@ public class Battery implements Machine {
 
     }
 
+    @Override
+    public boolean isQuiescent(){
+        return true;
+    }
+
+    @Override
+    public double getNaturalTimeStep(){
+        return Double.POSITIVE_INFINITY;
+    }
+
     public double getVoltage() {
         return voltage;
     }
@@ -0,0 +1,43 @@
+//Reads back values packed by BitWriter.
+public class BitReader {
+    private byte[] bytes;
+    private long position;
+
+    public BitReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public boolean readBit(){
+        return readBits(1) != 0;
+    }
+
+    public long readBits(int bits){
+        long value = 0;
+        while(bits > 0){
+            int byteValue = bytes[(int)(position >>> 3)] & 0xFF;
+            int available = 8 - (int)(position & 7);
+            int n = Math.min(available, bits);
+            int chunk = (byteValue >>> (available - n)) & ((1 << n) - 1);
+            value = (value << n) | chunk;
+            position += n;
+            bits -= n;
+        }
+        return value;
+    }
+
+    public long readVarLong(){
+        long value = 0;
+        int shift = 0;
+        while(true){
+            long group = readBits(8);
+            value |= (group & 0x7F) << shift;
+            if((group & 0x80) == 0) return value;
+            shift += 7;
+        }
+    }
+
+    public void reset(byte[] bytes){
+        this.bytes = bytes;
+        position = 0;
+    }
+}
@@ -0,0 +1,66 @@
+import java.util.Arrays;
+
+//Packs values of any width up to 64 bits into a growing byte array, most significant bit first.
+public class BitWriter {
+    private byte[] bytes = new byte[1024];
+    private int byteCount;
+    private int current;
+    private int bitPosition;
+
+    public void writeBit(boolean bit){
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    public void writeBits(long value, int bits){
+        while(bits > 0){
+            int free = 8 - bitPosition;
+            int n = Math.min(free, bits);
+            int chunk = (int)((value >>> (bits - n)) & ((1 << n) - 1));
+            current |= chunk << (free - n);
+            bitPosition += n;
+            bits -= n;
+            if(bitPosition == 8){
+                appendByte();
+            }
+        }
+    }
+
+    //Writes a non-negative value seven bits at a time, with the high bit of each group set when more follow.
+    public void writeVarLong(long value){
+        while((value & ~0x7FL) != 0){
+            writeBits((value & 0x7F) | 0x80, 8);
+            value >>>= 7;
+        }
+        writeBits(value, 8);
+    }
+
+    public void appendByte(){
+        if(byteCount == bytes.length){
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        bytes[byteCount++] = (byte)current;
+        current = 0;
+        bitPosition = 0;
+    }
+
+    //Pads the last byte with zero bits so the stream ends on a byte boundary.
+    public void flush(){
+        if(bitPosition > 0){
+            appendByte();
+        }
+    }
+
+    public void reset(){
+        byteCount = 0;
+        current = 0;
+        bitPosition = 0;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int getByteCount() {
+        return byteCount;
+    }
+}
@@ -1,7 +1,15 @@
-import java.awt.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
 
 public class Chamber implements Machine{
     public static final double MAX_CHAMBER_DRAW_SIZE = 0.3;
+    private static final Comparator<Material> TRANSFER_ORDER = Comparator.comparingDouble(Material::getMass)
+            .thenComparingDouble(Material::getTemperature)
+            .thenComparingDouble(Material::getPressure)
+            .thenComparing(m -> m.getMaterialType().getName());
     public enum STATE{
         EMPTY,
         CONTAINS,
@@ -10,11 +18,26 @@ public class Chamber implements Machine{
 
     private STATE state;
     private Material contents;
+    private Material contentsBuffer;
     private Chamber outputChamber;
     private Chamber alternateOutputChamber;
     private Chamber activeOutputChamber;
     private double maxVolume;
     private double chamberSideLength;
+    private boolean quiescent;
+    private Runnable contentsListener;
+
+    //Two-phase stepping: transfers are staged against the contents at the start of the tick and applied in commitTransfers().
+    private boolean buffered;
+    private int consumerCount = 1;
+    private int producerCount = 1;
+    private boolean pendingClear;
+    private Chamber pendingForward;
+    private Material forwardBuffer;
+    private double[] pendingRemovals = new double[2];
+    private int pendingRemovalCount;
+    private Material[] pendingAdditions = new Material[2];
+    private int pendingAdditionCount;
 
     public Chamber(double maxVolume) {
         this.maxVolume = maxVolume;
@@ -24,14 +47,54 @@ public class Chamber implements Machine{
 
     @Override
     public void stepMachine(){
+        quiescent = true;
         if(outputChamber != null){
             if(contents != null){
                 checkAlternateChamberCriteria();
-                pushToOutputChamber();
+                quiescent = !pushToOutputChamber();
             }
         }
     }
 
+    @Override
+    public boolean isQuiescent(){
+        return quiescent;
+    }
+
+    //A chamber that forwards nothing never needs stepping.
+    @Override
+    public double getNaturalTimeStep(){
+        return outputChamber == null ? Double.POSITIVE_INFINITY : Simulator.TIME_CONST;
+    }
+
+    //The active output is saved as which of the two outputs it is, since the chambers themselves belong to the plant.
+    @Override
+    public void writeState(Checkpoint checkpoint) throws IOException {
+        DataOutputStream output = checkpoint.getOutput();
+        output.writeByte(state.ordinal());
+        checkpoint.writeMaterial(contents);
+        output.writeByte(activeOutputChamber == null ? 0 : activeOutputChamber == outputChamber ? 1 : 2);
+        output.writeBoolean(quiescent);
+    }
+
+    @Override
+    public void readState(Checkpoint checkpoint) throws IOException {
+        DataInputStream input = checkpoint.getInput();
+        state = STATE.values()[input.readUnsignedByte()];
+        contents = checkpoint.readMaterial(contentsBuffer);
+        if(contents != null) contentsBuffer = contents;
+        int activeOutput = input.readUnsignedByte();
+        activeOutputChamber = activeOutput == 0 ? null : activeOutput == 1 ? outputChamber : alternateOutputChamber;
+        quiescent = input.readBoolean();
+        contentsChanged();
+    }
+
+    public void contentsChanged(){
+        if(contentsListener != null){
+            contentsListener.run();
+        }
+    }
+
     public void checkAlternateChamberCriteria(){
         if(contents.getPressure() > 50 && alternateOutputChamber != null){
             activeOutputChamber = alternateOutputChamber;
@@ -40,70 +103,166 @@ public class Chamber implements Machine{
         }
     }
 
-    public void pushToOutputChamber(){
-        if(MachineHelper.pushToChamber(activeOutputChamber, MaterialHelper.materialVolume(contents), contents)){
+    //When buffered the whole contents are forwarded in the commit phase, less whatever the chamber's consumers took in the same tick.
+    public boolean pushToOutputChamber(){
+        double volume = MaterialHelper.materialVolume(contents);
+        if(buffered){
+            if(volume > activeOutputChamber.getPushableVolume()) return false;
+            stageForward(activeOutputChamber);
+            return true;
+        }
+        if(MachineHelper.pushToChamber(activeOutputChamber, volume, contents)){
             contents = null;
             state = STATE.EMPTY;
+            contentsChanged();
+            return true;
         }
+        return false;
+    }
+
+    //Volume a single consumer may pull. When buffered, the contents are shared evenly between the chamber's consumers so the outcome does not depend on which steps first.
+    public double getPullableVolume(){
+        double volume = MaterialHelper.materialVolume(contents);
+        if(buffered) return volume / consumerCount;
+        return volume;
+    }
+
+    //Free volume a single producer may push, shared evenly between producers when buffered.
+    public double getPushableVolume(){
+        double volume = maxVolume - MaterialHelper.materialVolume(contents);
+        if(buffered) return volume / producerCount;
+        return volume;
     }
 
     public void addToContents(Material material){
+        if(buffered){
+            stageAddition(material);
+        }else{
+            mergeIntoContents(material);
+        }
+    }
+
+    public void mergeIntoContents(Material material){
         if(state == STATE.EMPTY){
             double volume = MaterialHelper.materialVolume(material);
             if(volume <= maxVolume){
-                contents = material;
-                contents.calculateProps();
+                if(contentsBuffer == null){
+                    contentsBuffer = new Material(material.getMaterialType());
+                }
+                contentsBuffer.copyFrom(material, material.getMass());
+                contents = contentsBuffer;
                 if(volume == maxVolume){
                     state = STATE.FULL;
                 }else{
                     state = STATE.CONTAINS;
                 }
+                contentsChanged();
             }
         }else if(state == STATE.CONTAINS){
             if(MaterialHelper.materialVolume(material) <= (maxVolume - MaterialHelper.materialVolume(contents))){
-                contents = MaterialHelper.addMaterials(contents, material);
+                MaterialHelper.mergeMaterials(contents, material);
+                contentsChanged();
             }
         }
     }
 
     public Material removeFromContents(double mass){
+        return removeFromContents(mass, new Material(contents.getMaterialType()));
+    }
+
+    public Material removeFromContents(double mass, Material material){
         if(contents.getMass() >= mass){
-            if(mass != 0 && state == STATE.FULL){
-                state = STATE.CONTAINS;
-            }
-            Material material = MaterialHelper.createMaterialCopy(contents, mass);
-            contents.setMass(contents.getMass() - mass);
-            if(contents.getMass() == 0){
-                state = STATE.EMPTY;
+            material.copyFrom(contents, mass);
+            if(buffered){
+                stageRemoval(mass);
+            }else{
+                subtractFromContents(mass);
             }
             return material;
         }
         return null;
     }
 
-    public void drawChamber(Graphics g, int xPos, int yPos, int scale){
-        if(chamberSideLength > MAX_CHAMBER_DRAW_SIZE){
-            scale *= (MAX_CHAMBER_DRAW_SIZE/chamberSideLength);
+    public void subtractFromContents(double mass){
+        if(mass != 0 && state == STATE.FULL){
+            state = STATE.CONTAINS;
         }
-        double currentVolume = MaterialHelper.materialVolume(contents);
-        double gasLevel = currentVolume / (chamberSideLength * chamberSideLength);
-        double gasPosition = chamberSideLength - gasLevel;
-        int scaledChamberSide = (int)(chamberSideLength * scale);
-        g.drawRect(xPos,yPos,scaledChamberSide, scaledChamberSide);
+        contents.setMass(Math.max(contents.getMass() - mass, 0));
+        if(contents.getMass() == 0){
+            state = STATE.EMPTY;
+        }
+        contentsChanged();
+    }
+
+    private synchronized void stageForward(Chamber outputChamber){
+        pendingForward = outputChamber;
+    }
+
+    //Stages a forward into the output chamber with what is left after the removals staged this tick, as if the consumers
+    //had stepped before the chamber, and empties the chamber. Every chamber releases its forward before any commits its transfers.
+    public void releaseForward(){
+        if(pendingForward == null) return;
+        double mass = contents.getMass();
+        for(int i=0;i<pendingRemovalCount;i++){
+            mass -= pendingRemovals[i];
+        }
+        if(mass > 0){
+            if(forwardBuffer == null){
+                forwardBuffer = new Material(contents.getMaterialType());
+            }
+            forwardBuffer.copyFrom(contents, mass);
+            pendingForward.stageAddition(forwardBuffer);
+        }
+        pendingClear = true;
+        pendingForward = null;
+    }
+
+    private synchronized void stageRemoval(double mass){
+        if(pendingRemovalCount == pendingRemovals.length){
+            pendingRemovals = Arrays.copyOf(pendingRemovals, pendingRemovalCount * 2);
+        }
+        pendingRemovals[pendingRemovalCount++] = mass;
+    }
+
+    private synchronized void stageAddition(Material material){
+        if(pendingAdditionCount == pendingAdditions.length){
+            pendingAdditions = Arrays.copyOf(pendingAdditions, pendingAdditionCount * 2);
+        }
+        if(pendingAdditions[pendingAdditionCount] == null){
+            pendingAdditions[pendingAdditionCount] = new Material(material.getMaterialType());
+        }
+        pendingAdditions[pendingAdditionCount++].copyStateFrom(material);
+    }
+
+    //Applies the staged transfers. Removals and additions are sorted first so the result does not depend on the order they were staged in.
+    public void commitTransfers(){
+        if(pendingClear){
+            contents = null;
+            state = STATE.EMPTY;
+            pendingClear = false;
+            contentsChanged();
+        }
+        if(pendingRemovalCount > 0){
+            Arrays.sort(pendingRemovals, 0, pendingRemovalCount);
+            for(int i=0;i<pendingRemovalCount;i++){
+                if(contents != null) subtractFromContents(pendingRemovals[i]);
+            }
+            pendingRemovalCount = 0;
+        }
+        if(pendingAdditionCount > 0){
+            Arrays.sort(pendingAdditions, 0, pendingAdditionCount, TRANSFER_ORDER);
+            for(int i=0;i<pendingAdditionCount;i++){
+                mergeIntoContents(pendingAdditions[i]);
+            }
+            pendingAdditionCount = 0;
+        }
+    }
+
+    public void displayChamberInfo(String name){
         if(contents != null){
-            g.drawLine(xPos, yPos + (int)(gasPosition * scale), xPos + scaledChamberSide, yPos + (int)(gasPosition * scale));
-            double colorScale = 5;
-            int colorVal = Math.min((int)(contents.getPressure() * colorScale), 255);
-            g.setColor(new Color(255 - colorVal,255 - colorVal, 255));
-            g.fillRect(xPos + 1, yPos + (int)(gasPosition * scale) + 1,scaledChamberSide - 1, scaledChamberSide - (int)(gasPosition * scale) - 1);
-            g.setColor(new Color(0,0,0));
-            String materialStateString = "";
-            if(contents.getMaterialState() == Material.MATERIAL_STATE.GAS) materialStateString = "gas ";
-            if(contents.getMaterialState() == Material.MATERIAL_STATE.LIQUID) materialStateString = "liquid ";
-            if(contents.getMaterialState() == Material.MATERIAL_STATE.SOLID) materialStateString = "solid ";
-            String pressureString = (contents.getMaterialState() == Material.MATERIAL_STATE.GAS)?" at " + (float)contents.getPressure() + " atm ": "";
-            g.drawString(pressureString + (float)(contents.getTemperature() - 273.13) + " C", xPos, yPos - 15);
-            g.drawString((float)MaterialHelper.materialVolume(contents) + " m3 of " + materialStateString + contents.getMaterialType().getName() , xPos, yPos - 30);
+            System.out.println(name + ": " + "Mass " + contents.getMass() + " kg " + "     Volume " + MaterialHelper.materialVolume(contents) + " m^3 " + "     Pressure " + contents.getPressure() + " atm " + "     Temperature " + (contents.getTemperature() - 273) + " C " + "     State " + state);
+        }else{
+            System.out.println(name + ": " + "Empty");
         }
     }
 
@@ -111,15 +270,24 @@ public class Chamber implements Machine{
         return contents;
     }
 
+    public STATE getState() {
+        return state;
+    }
+
     public void setContents(Material contents) {
         state = STATE.CONTAINS;
         this.contents = contents;
+        contentsChanged();
     }
 
     public double getMaxVolume() {
         return maxVolume;
     }
 
+    public double getChamberSideLength() {
+        return chamberSideLength;
+    }
+
     public void setMaxVolume(double maxVolume) {
         this.maxVolume = maxVolume;
     }
@@ -140,6 +308,38 @@ public class Chamber implements Machine{
         this.alternateOutputChamber = alternateOutputChamber;
     }
 
+    public Runnable getContentsListener() {
+        return contentsListener;
+    }
+
+    public void setContentsListener(Runnable contentsListener) {
+        this.contentsListener = contentsListener;
+    }
+
+    public boolean isBuffered() {
+        return buffered;
+    }
+
+    public void setBuffered(boolean buffered) {
+        this.buffered = buffered;
+    }
+
+    public int getConsumerCount() {
+        return consumerCount;
+    }
+
+    public void setConsumerCount(int consumerCount) {
+        this.consumerCount = Math.max(consumerCount, 1);
+    }
+
+    public int getProducerCount() {
+        return producerCount;
+    }
+
+    public void setProducerCount(int producerCount) {
+        this.producerCount = Math.max(producerCount, 1);
+    }
+
     public Chamber getActiveOutputChamber() {
         return activeOutputChamber;
     }
@@ -0,0 +1,134 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+//Saves and restores the state of a running simulation in a compact binary file.
+//Only the values that change while the plant runs are written, so a checkpoint is restored into a Simulator built with the same plant,
+//and the restored run carries on exactly as the saved one would have.
+//Layout: magic, version, material type names, simulator state, then the class name and state of each machine and each shaft in list order.
+public class Checkpoint {
+    public static final int MAGIC = 0x4D434B50;
+    public static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private DataOutputStream output;
+    private DataInputStream input;
+    private List<MaterialType> materialTypes;
+
+    public Checkpoint(DataOutputStream output, List<MaterialType> materialTypes) {
+        this.output = output;
+        this.materialTypes = materialTypes;
+    }
+
+    public Checkpoint(DataInputStream input, List<MaterialType> materialTypes) {
+        this.input = input;
+        this.materialTypes = materialTypes;
+    }
+
+    public static void save(Simulator simulator, String path) throws IOException {
+        try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), BUFFER_SIZE))){
+            new Checkpoint(output, simulator.getMaterialTypes()).write(simulator);
+        }
+    }
+
+    public static void restore(Simulator simulator, String path) throws IOException {
+        try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(path), BUFFER_SIZE))){
+            new Checkpoint(input, simulator.getMaterialTypes()).read(simulator);
+        }
+    }
+
+    public void write(Simulator simulator) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(materialTypes.size());
+        for(MaterialType materialType : materialTypes){
+            output.writeUTF(materialType.getName());
+        }
+
+        simulator.writeState(this);
+
+        List<Machine> machines = simulator.getMachines();
+        output.writeInt(machines.size());
+        for(Machine machine : machines){
+            output.writeUTF(machine.getClass().getName());
+            machine.writeState(this);
+        }
+
+        List<RotationalForce> rotationalForces = simulator.getPlantGraph().getRotationalForces();
+        output.writeInt(rotationalForces.size());
+        for(RotationalForce rotationalForce : rotationalForces){
+            rotationalForce.writeState(this);
+        }
+    }
+
+    public void read(Simulator simulator) throws IOException {
+        if(input.readInt() != MAGIC) throw new IOException("Not a checkpoint file");
+        int version = input.readInt();
+        if(version != VERSION) throw new IOException("Unsupported checkpoint version " + version);
+        int materialTypeCount = input.readInt();
+        if(materialTypeCount != materialTypes.size()) throw new IOException("Checkpoint has " + materialTypeCount + " material types, plant has " + materialTypes.size());
+        for(MaterialType materialType : materialTypes){
+            String name = input.readUTF();
+            if(!name.equals(materialType.getName())) throw new IOException("Checkpoint material type " + name + " does not match " + materialType.getName());
+        }
+
+        simulator.readState(this);
+
+        List<Machine> machines = simulator.getMachines();
+        int machineCount = input.readInt();
+        if(machineCount != machines.size()) throw new IOException("Checkpoint has " + machineCount + " machines, plant has " + machines.size());
+        for(Machine machine : machines){
+            String className = input.readUTF();
+            if(!className.equals(machine.getClass().getName())) throw new IOException("Checkpoint machine " + className + " does not match " + machine.getClass().getName());
+            machine.readState(this);
+        }
+
+        List<RotationalForce> rotationalForces = simulator.getPlantGraph().getRotationalForces();
+        int rotationalForceCount = input.readInt();
+        if(rotationalForceCount != rotationalForces.size()) throw new IOException("Checkpoint has " + rotationalForceCount + " shafts, plant has " + rotationalForces.size());
+        for(RotationalForce rotationalForce : rotationalForces){
+            rotationalForce.readState(this);
+        }
+    }
+
+    //Writes every field of the material, including the state and density, so it comes back without calculateProps rounding anything.
+    public void writeMaterial(Material material) throws IOException {
+        output.writeBoolean(material != null);
+        if(material == null) return;
+        int typeIndex = materialTypes.indexOf(material.getMaterialType());
+        if(typeIndex < 0) throw new IOException("Material type " + material.getMaterialType().getName() + " is not known to the simulator");
+        output.writeByte(typeIndex);
+        output.writeByte(material.getMaterialState().ordinal());
+        output.writeDouble(material.getMass());
+        output.writeDouble(material.getTemperature());
+        output.writeDouble(material.getPressure());
+        output.writeDouble(material.getDensity());
+    }
+
+    //Reads a material into the holder, creating one when the holder is null. Returns null for a material that was null when saved.
+    public Material readMaterial(Material holder) throws IOException {
+        if(!input.readBoolean()) return null;
+        MaterialType materialType = materialTypes.get(input.readUnsignedByte());
+        Material material = holder != null ? holder : new Material(materialType);
+        material.setMaterialType(materialType);
+        material.setMaterialState(Material.MATERIAL_STATE.values()[input.readUnsignedByte()]);
+        material.setMass(input.readDouble());
+        material.setTemperature(input.readDouble());
+        material.setPressure(input.readDouble());
+        material.setDensity(input.readDouble());
+        return material;
+    }
+
+    public DataOutputStream getOutput() {
+        return output;
+    }
+
+    public DataInputStream getInput() {
+        return input;
+    }
+}
@@ -0,0 +1,185 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Reads archives written by CompressedTelemetryWriter. Only the index is read up front.
+//A window is found by a binary search of the block tick ranges, and only the tick column and the one channel column of those blocks are decoded.
+public class CompressedTelemetryReader implements AutoCloseable {
+    private static final int HEADER_BUFFER_SIZE = 4096;
+
+    private FileChannel fileChannel;
+    private List<String> channelNames = new ArrayList<>();
+    private List<TelemetryRecorder.CHANNEL_TYPE> channelTypes = new ArrayList<>();
+    private long decimation;
+    private double timeStep;
+    private long sampleCount;
+
+    private long[] firstTicks;
+    private long[] lastTicks;
+    private int[] blockSampleCounts;
+    private long[] blockOffsets;
+    private int[][] columnSizes;
+
+    private BitReader reader = new BitReader(new byte[0]);
+    private long[] ticks = new long[0];
+    private double[] values = new double[0];
+
+    public CompressedTelemetryReader(Path path) throws IOException {
+        fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        long size = fileChannel.size();
+        if(size < CompressedTelemetryWriter.FOOTER_SIZE) throw new IOException("Not a compressed telemetry file");
+        ByteBuffer footer = read(size - CompressedTelemetryWriter.FOOTER_SIZE, CompressedTelemetryWriter.FOOTER_SIZE);
+        long indexOffset = footer.getLong();
+        sampleCount = footer.getLong();
+        if(footer.getInt() != CompressedTelemetryWriter.MAGIC) throw new IOException("Compressed telemetry file is incomplete");
+
+        //The header is read as a stream since the channel names make its length vary. The stream is not closed, as that would close the file.
+        DataInputStream header = new DataInputStream(new BufferedInputStream(Channels.newInputStream(fileChannel.position(0)), HEADER_BUFFER_SIZE));
+        if(header.readInt() != CompressedTelemetryWriter.MAGIC) throw new IOException("Not a compressed telemetry file");
+        int version = header.readInt();
+        if(version != CompressedTelemetryWriter.VERSION) throw new IOException("Unsupported compressed telemetry version " + version);
+        int channelCount = header.readInt();
+        decimation = header.readLong();
+        timeStep = header.readDouble();
+        for(int i=0;i<channelCount;i++){
+            channelTypes.add(TelemetryRecorder.CHANNEL_TYPE.values()[header.readUnsignedByte()]);
+            channelNames.add(header.readUTF());
+        }
+
+        ByteBuffer index = read(indexOffset, (int)(size - CompressedTelemetryWriter.FOOTER_SIZE - indexOffset));
+        int blockCount = index.getInt();
+        firstTicks = new long[blockCount];
+        lastTicks = new long[blockCount];
+        blockSampleCounts = new int[blockCount];
+        blockOffsets = new long[blockCount];
+        columnSizes = new int[blockCount][2 + channelCount];
+        for(int block=0;block<blockCount;block++){
+            firstTicks[block] = index.getLong();
+            lastTicks[block] = index.getLong();
+            blockSampleCounts[block] = index.getInt();
+            blockOffsets[block] = index.getLong();
+            for(int column=0;column<2 + channelCount;column++){
+                columnSizes[block][column] = index.getInt();
+            }
+        }
+    }
+
+    public ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while(buffer.hasRemaining()){
+            if(fileChannel.read(buffer, position + buffer.position()) < 0) throw new IOException("Compressed telemetry file is truncated");
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    public TelemetryWindow readWindow(String name, long fromTick, long toTick) throws IOException {
+        return readWindow(getChannelIndex(name), fromTick, toTick);
+    }
+
+    //Returns the samples of a channel with ticks from fromTick to toTick inclusive.
+    public TelemetryWindow readWindow(int channel, long fromTick, long toTick) throws IOException {
+        int firstBlock = findBlock(fromTick);
+        int lastBlock = firstBlock;
+        int capacity = 0;
+        while(lastBlock < firstTicks.length && firstTicks[lastBlock] <= toTick){
+            capacity += blockSampleCounts[lastBlock];
+            lastBlock++;
+        }
+        long[] windowTicks = new long[capacity];
+        double[] windowValues = new double[capacity];
+        int count = 0;
+        for(int block=firstBlock;block<lastBlock;block++){
+            int blockCount = decodeBlock(block, channel);
+            for(int i=0;i<blockCount;i++){
+                if(ticks[i] >= fromTick && ticks[i] <= toTick){
+                    windowTicks[count] = ticks[i];
+                    windowValues[count] = values[i];
+                    count++;
+                }
+            }
+        }
+        return new TelemetryWindow(Arrays.copyOf(windowTicks, count), Arrays.copyOf(windowValues, count), count);
+    }
+
+    //Index of the first block that ends at or after the tick.
+    public int findBlock(long tick){
+        int low = 0;
+        int high = lastTicks.length;
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(lastTicks[middle] < tick){
+                low = middle + 1;
+            }else{
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    //Decodes the ticks and one channel of a block into the reader's buffers and returns the sample count.
+    public int decodeBlock(int block, int channel) throws IOException {
+        int count = blockSampleCounts[block];
+        if(ticks.length < count){
+            ticks = new long[count];
+            values = new double[count];
+        }
+        reader.reset(read(blockOffsets[block], columnSizes[block][0]).array());
+        TelemetryCodec.decodeTicks(reader, ticks, count);
+
+        long columnOffset = blockOffsets[block];
+        for(int column=0;column<2 + channel;column++){
+            columnOffset += columnSizes[block][column];
+        }
+        reader.reset(read(columnOffset, columnSizes[block][2 + channel]).array());
+        if(channelTypes.get(channel) == TelemetryRecorder.CHANNEL_TYPE.STATE){
+            TelemetryCodec.decodeStates(reader, values, count);
+        }else{
+            TelemetryCodec.decodeValues(reader, values, count);
+        }
+        return count;
+    }
+
+    public int getChannelIndex(String name){
+        int channel = channelNames.indexOf(name);
+        if(channel < 0) throw new IllegalArgumentException("No channel " + name);
+        return channel;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+
+    public List<String> getChannelNames() {
+        return channelNames;
+    }
+
+    public List<TelemetryRecorder.CHANNEL_TYPE> getChannelTypes() {
+        return channelTypes;
+    }
+
+    public int getBlockCount() {
+        return firstTicks.length;
+    }
+
+    public long getDecimation() {
+        return decimation;
+    }
+
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+}
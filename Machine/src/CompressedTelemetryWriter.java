@@ -0,0 +1,137 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+//Writes telemetry in a compressed archive format, one block of samples at a time.
+//Layout: header, then each block as its tick, time and channel columns encoded by TelemetryCodec,
+//then an index giving the tick range, sample count, file offset and column sizes of every block, and a footer pointing at the index.
+//The index lets CompressedTelemetryReader seek straight to the blocks of a time window and decode only the columns it needs.
+public class CompressedTelemetryWriter implements AutoCloseable {
+    public static final int MAGIC = 0x4D54435A;
+    public static final int VERSION = 1;
+    public static final int FOOTER_SIZE = 20;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private DataOutputStream output;
+    private List<TelemetryRecorder.CHANNEL_TYPE> channelTypes;
+    private BitWriter writer = new BitWriter();
+    private long offset;
+    private long sampleCount;
+
+    private List<long[]> blockTicks = new ArrayList<>();
+    private List<Integer> blockSampleCounts = new ArrayList<>();
+    private List<Long> blockOffsets = new ArrayList<>();
+    private List<int[]> blockColumnSizes = new ArrayList<>();
+
+    public CompressedTelemetryWriter(Path path, List<String> channelNames, List<TelemetryRecorder.CHANNEL_TYPE> channelTypes, long decimation, double timeStep) throws IOException {
+        this.channelTypes = channelTypes;
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile()), BUFFER_SIZE));
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(channelNames.size());
+        output.writeLong(decimation);
+        output.writeDouble(timeStep);
+        for(int i=0;i<channelNames.size();i++){
+            output.writeByte(channelTypes.get(i).ordinal());
+            output.writeUTF(channelNames.get(i));
+        }
+        offset = output.size();
+    }
+
+    //Compresses a file written by TelemetryRecorder and returns the number of bytes written.
+    public static long compress(Path telemetryPath, Path path) throws IOException {
+        try(TelemetryReader reader = new TelemetryReader(telemetryPath);
+            CompressedTelemetryWriter writer = new CompressedTelemetryWriter(path, reader.getChannelNames(), reader.getChannelTypes(), reader.getDecimation(), reader.getTimeStep())){
+            int channelCount = reader.getChannelNames().size();
+            long[] ticks = new long[reader.getBlockSamples()];
+            double[] times = new double[reader.getBlockSamples()];
+            double[][] channels = new double[channelCount][reader.getBlockSamples()];
+            for(long block=0;block<reader.getBlockCount();block++){
+                int count = reader.readTicks(block, ticks);
+                reader.readTimes(block, times);
+                for(int channel=0;channel<channelCount;channel++){
+                    reader.readChannel(block, channel, channels[channel]);
+                }
+                writer.writeBlock(ticks, times, channels, count);
+            }
+        }
+        return Files.size(path);
+    }
+
+    public void writeBlock(long[] ticks, double[] times, double[][] channels, int count) throws IOException {
+        if(count == 0) return;
+        int[] columnSizes = new int[2 + channels.length];
+        long blockOffset = offset;
+
+        TelemetryCodec.encodeTicks(ticks, count, writer);
+        columnSizes[0] = writeColumn();
+        TelemetryCodec.encodeValues(times, count, writer);
+        columnSizes[1] = writeColumn();
+        for(int channel=0;channel<channels.length;channel++){
+            if(channelTypes.get(channel) == TelemetryRecorder.CHANNEL_TYPE.STATE){
+                TelemetryCodec.encodeStates(channels[channel], count, writer);
+            }else{
+                TelemetryCodec.encodeValues(channels[channel], count, writer);
+            }
+            columnSizes[2 + channel] = writeColumn();
+        }
+
+        blockTicks.add(new long[]{ticks[0], ticks[count - 1]});
+        blockSampleCounts.add(count);
+        blockOffsets.add(blockOffset);
+        blockColumnSizes.add(columnSizes);
+        sampleCount += count;
+    }
+
+    public int writeColumn() throws IOException {
+        writer.flush();
+        int size = writer.getByteCount();
+        output.write(writer.getBytes(), 0, size);
+        offset += size;
+        writer.reset();
+        return size;
+    }
+
+    //Writes the block index and footer. The footer is the index offset, the sample count and the magic number again.
+    @Override
+    public void close() throws IOException {
+        long indexOffset = offset;
+        output.writeInt(blockOffsets.size());
+        for(int block=0;block<blockOffsets.size();block++){
+            output.writeLong(blockTicks.get(block)[0]);
+            output.writeLong(blockTicks.get(block)[1]);
+            output.writeInt(blockSampleCounts.get(block));
+            output.writeLong(blockOffsets.get(block));
+            for(int columnSize : blockColumnSizes.get(block)){
+                output.writeInt(columnSize);
+            }
+        }
+        output.writeLong(indexOffset);
+        output.writeLong(sampleCount);
+        output.writeInt(MAGIC);
+        output.close();
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    //Usage: CompressedTelemetryWriter telemetryFile archiveFile
+    public static void main(String[] args) throws IOException {
+        Path telemetryPath = Path.of(args[0]);
+        Path path = Path.of(args[1]);
+        long startTime = System.nanoTime();
+        long size = compress(telemetryPath, path);
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        long telemetrySize;
+        try(TelemetryReader reader = new TelemetryReader(telemetryPath)){
+            telemetrySize = reader.getDataSize();
+        }
+        System.out.println("Compressed " + telemetrySize + " bytes to " + size + " bytes (" + (double)telemetrySize / size + "x) in " + seconds + " s");
+    }
+}
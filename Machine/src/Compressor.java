@@ -1,11 +1,13 @@
-import java.awt.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 
 public class Compressor implements Machine{
-    private static final double GAMMA = 1.66;
-    private static final double ATM_TO_PASCAL = 101325;
+    static final double GAMMA = 1.66;
+    static final double ATM_TO_PASCAL = 101325;
     private static final double KG_TO_NEWTONS = 9.81;
     private static final double PISTON_DAMPENING = 0.9f;
-    private static final double MAX_LOAD_TORQUE_RATIO = 0.995;
+    static final double MAX_LOAD_TORQUE_RATIO = 0.995;
 
     public enum STATE{
         READY,
@@ -18,6 +20,7 @@ public class Compressor implements Machine{
     private Chamber chamber;
     private Chamber outputChamber;
     private Material gas;
+    private Material gasBuffer;
     private double initialVolume;
     private double initialPressure;
     private double initialTemperature;
@@ -33,6 +36,12 @@ public class Compressor implements Machine{
     private double temperature;
     private double chamberDepth;
 
+    private double lastPistonVelocity;
+    private boolean hasRates;
+    private double stepError;
+    private boolean quiescent;
+    private long strokeCount;
+
     public Compressor(double initialVolume, double initialPressure, double initialTemperature, double pistonArea, double pistonMass, double externalPressure) {
         this.initialVolume = initialVolume;
         this.initialPressure = initialPressure;
@@ -52,10 +61,24 @@ public class Compressor implements Machine{
 
     @Override
     public void stepMachine(){
+        stepMachine(Simulator.TIME_CONST);
+    }
+
+    @Override
+    public void stepMachine(double time){
+        stepError = 0;
+        quiescent = false;
         if(state == STATE.READY){
             pullFromChamber();
+            hasRates = false;
+            quiescent = state == STATE.READY;
         } else if(state == STATE.RUNNING){
-            calculateCompressor();
+            double pressureBefore = pressure;
+            calculateCompressor(time);
+            calculateStepError(pressureBefore, time);
+            if(inputValue.isInterpolated()){
+                inputValue.setTorqueRate((calculateLoadTorque(pressure) - calculateLoadTorque(pressureBefore)) / time);
+            }
             if(isMaxCompression()) {
                 state = STATE.DONE;
             }
@@ -63,11 +86,19 @@ public class Compressor implements Machine{
             gas.setTemperature(temperature);
             gas.setPressure(pressure);
             pushToChamber();
+            quiescent = state == STATE.DONE;
         }
     }
 
+    //Idle while a pull finds too little gas or a push finds too little room, until the chamber changes.
+    @Override
+    public boolean isQuiescent(){
+        return quiescent;
+    }
+
     public void pushToChamber(){
         if(MachineHelper.pushToChamber(outputChamber, volume, gas)){
+            if(pistonDisplacement > 0) strokeCount++;
             resetCompressor();
         }else{
 //            if(inputValue.getInputMachine() instanceof Motor){
@@ -77,8 +108,9 @@ public class Compressor implements Machine{
     }
 
     public void pullFromChamber(){
-        gas = MachineHelper.pullFromChamber(chamber, initialVolume);
+        gas = MachineHelper.pullFromChamber(chamber, initialVolume, gasBuffer);
         if(gas != null){
+            gasBuffer = gas;
             initialTemperature = gas.getTemperature();
             initialPressure = gas.getPressure();
             state = STATE.RUNNING;
@@ -93,6 +125,7 @@ public class Compressor implements Machine{
         pistonDisplacement = 0;
         forceFromPressure = 0;
         inputValue.setTorque(0);
+        inputValue.setTorqueRate(0);
         pressure = externalPressure;
         volume = initialVolume;
         temperature = initialTemperature;
@@ -103,21 +136,85 @@ public class Compressor implements Machine{
 
     public boolean isMaxCompression(){
         if(inputValue.getInputMachine() instanceof Motor){
-            return inputValue.getTorque() >= ((Motor)inputValue.getInputMachine()).calculateMaxTorque() * MAX_LOAD_TORQUE_RATIO;
+            return forceFromPressure * inputValue.getLeverArm() >= ((Motor)inputValue.getInputMachine()).calculateMaxTorque() * MAX_LOAD_TORQUE_RATIO;
         }
         return false;
     }
 
-    public void calculateCompressor(){
-        calculateVolume();
+    //Error from the change in piston velocity, and from the pressure change the motor only sees as load on the next step.
+    public void calculateStepError(double pressureBefore, double time){
+        if(hasRates){
+            double displacementError = MachineHelper.estimateStepError(pistonVelocity, lastPistonVelocity, time, chamberDepth);
+            double pressureError = 0.5 * Math.abs(pressure - pressureBefore) / pressure;
+            stepError = Math.max(displacementError, pressureError);
+        }
+        lastPistonVelocity = pistonVelocity;
+        hasRates = true;
+    }
+
+    @Override
+    public double getStepError() {
+        return stepError;
+    }
+
+    //While running, the step that changes the pressure by NATURAL_STEP_FRACTION, from dp/dt = GAMMA * p * A * v / V.
+    @Override
+    public double getNaturalTimeStep(){
+        if(state != STATE.RUNNING || pistonVelocity == 0) return Simulator.TIME_CONST;
+        return Simulator.NATURAL_STEP_FRACTION * volume / (GAMMA * pistonArea * Math.abs(pistonVelocity));
+    }
+
+    @Override
+    public void writeState(Checkpoint checkpoint) throws IOException {
+        DataOutputStream output = checkpoint.getOutput();
+        output.writeByte(state.ordinal());
+        checkpoint.writeMaterial(gas);
+        output.writeDouble(initialVolume);
+        output.writeDouble(initialPressure);
+        output.writeDouble(initialTemperature);
+        output.writeDouble(pistonVelocity);
+        output.writeDouble(pistonDisplacement);
+        output.writeDouble(pressure);
+        output.writeDouble(forceFromPressure);
+        output.writeDouble(volume);
+        output.writeDouble(temperature);
+        output.writeDouble(lastPistonVelocity);
+        output.writeBoolean(hasRates);
+        output.writeDouble(stepError);
+        output.writeBoolean(quiescent);
+    }
+
+    @Override
+    public void readState(Checkpoint checkpoint) throws IOException {
+        DataInputStream input = checkpoint.getInput();
+        state = STATE.values()[input.readUnsignedByte()];
+        gas = checkpoint.readMaterial(gasBuffer);
+        if(gas != null) gasBuffer = gas;
+        initialVolume = input.readDouble();
+        initialPressure = input.readDouble();
+        initialTemperature = input.readDouble();
+        pistonVelocity = input.readDouble();
+        pistonDisplacement = input.readDouble();
+        pressure = input.readDouble();
+        forceFromPressure = input.readDouble();
+        volume = input.readDouble();
+        temperature = input.readDouble();
+        lastPistonVelocity = input.readDouble();
+        hasRates = input.readBoolean();
+        stepError = input.readDouble();
+        quiescent = input.readBoolean();
+    }
+
+    public void calculateCompressor(double time){
+        calculateVolume(time);
         calculatePressure();
         calculateTemperature();
     }
 
-    public void calculateVolume(){
+    public void calculateVolume(double time){
         pistonVelocity = inputValue.getAngularVelocity() * inputValue.getLeverArm();
 
-        pistonDisplacement += pistonVelocity * Simulator.TIME_CONST;
+        pistonDisplacement += pistonVelocity * time;
 
         volume = initialVolume - (pistonDisplacement * pistonArea);
 
@@ -133,26 +230,37 @@ public class Compressor implements Machine{
         pressure = initialPressure * Math.pow((initialVolume/volume),GAMMA);
     }
 
-    public void calculateTemperature(){
-        temperature = ((pressure*volume) / (initialPressure*initialVolume)) * initialTemperature;
+    public double calculatePressure(double displacement){
+        return initialPressure * Math.pow(initialVolume / (initialVolume - displacement * pistonArea), GAMMA);
+    }
+
+    public double calculateLoadTorque(double pressure){
+        return (pressure - externalPressure) * ATM_TO_PASCAL * pistonArea * inputValue.getLeverArm();
+    }
+
+    //Piston displacement at which the load torque reaches the point where isMaxCompression ends the stroke.
+    public double calculateMaxCompressionDisplacement(double maxTorque){
+        double maxPressure = externalPressure + (maxTorque * MAX_LOAD_TORQUE_RATIO) / (ATM_TO_PASCAL * pistonArea * inputValue.getLeverArm());
+        double minVolume = initialVolume * Math.pow(initialPressure / maxPressure, 1 / GAMMA);
+        return (initialVolume - minVolume) / pistonArea;
+    }
+
+    //Puts the compressor in the state a run of steps ends in, with the piston moving at the given velocity.
+    //The torque on the shaft comes from the pressure one step back, as calculateVolume works from the pressure of the previous step.
+    public void setStrokeState(double displacement, double pistonVelocity, double time){
+        this.pistonDisplacement = displacement;
+        this.pistonVelocity = pistonVelocity;
+        volume = initialVolume - (pistonDisplacement * pistonArea);
+        forceFromPressure = (calculatePressure(displacement - pistonVelocity * time) - externalPressure) * ATM_TO_PASCAL * pistonArea;
+        inputValue.setTorque(forceFromPressure * inputValue.getLeverArm());
+        calculatePressure();
+        calculateTemperature();
+        lastPistonVelocity = pistonVelocity;
+        hasRates = false;
     }
 
-    public void drawCompressor(Graphics g, int xPos, int yPos, int scale){
-        double chamberWidth = (Math.sqrt(pistonArea/Simulator.PI) * 2);
-        int scaledChamberWidth = (int)(chamberWidth * scale);
-        int scaledChamberDepth = (int)(chamberDepth * scale);
-        int scaledPistonDepth = (int)(chamberDepth * 0.03 * scale);
-        g.drawRect(xPos,yPos,scaledChamberWidth, scaledChamberDepth);
-        g.drawRect(xPos ,yPos + (int)(pistonDisplacement * scale),scaledChamberWidth, scaledPistonDepth);
-        double colorScale = 5;
-        int colorVal = Math.min((int)(pressure * colorScale), 255);
-        g.setColor(new Color(255 - colorVal,255 - colorVal, 255));
-        g.fillRect(xPos + 1, yPos + (int)(pistonDisplacement * scale) + scaledPistonDepth + 1,(int)(chamberWidth * scale) - 1, ((int)((chamberDepth - pistonDisplacement) * scale) - scaledPistonDepth) - 1);
-        g.setColor(new Color(0,0,0));
-        g.drawString("Pressure " + (float)pressure + " Atm", xPos, yPos - 30);
-        g.drawString("Temperature " + (float)(temperature - 273.13) + " C", xPos, yPos - 15);
-        g.drawString("Torque: " + (float)inputValue.getTorque(),xPos, yPos - 45);
-        g.drawString("Max Torque: " + ((Motor)inputValue.getInputMachine()).calculateMaxTorque(),xPos, yPos - 60);
+    public void calculateTemperature(){
+        temperature = ((pressure*volume) / (initialPressure*initialVolume)) * initialTemperature;
     }
 
     public void displayCompressorInfo(double seconds){
@@ -279,6 +387,12 @@ public class Compressor implements Machine{
         this.state = state;
     }
 
+    //Strokes that moved the piston and were pushed out since the compressor was built. A stroke that ends before the piston moves,
+    //as when the motor has no torque to give, does not count. Not saved in checkpoints.
+    public long getStrokeCount() {
+        return strokeCount;
+    }
+
     public Chamber getChamber() {
         return chamber;
     }
@@ -0,0 +1,67 @@
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Steps only the machines that can do something. A machine that reports itself quiescent after its step is put to sleep,
+//and is woken when the contents of a chamber it pulls from or pushes into change.
+//A machine woken by a machine later in the list steps on the next tick, where stepping it on this tick would have done nothing,
+//so the results are the same as stepping every machine in list order.
+public class EventDrivenStepPlan {
+    private Machine[] machines;
+    private Chamber[] chambers;
+    private BitSet activeMachines;
+
+    public EventDrivenStepPlan(PlantGraph plantGraph) {
+        List<Machine> machineList = plantGraph.getMachines();
+        machines = machineList.toArray(new Machine[0]);
+        chambers = plantGraph.getChambers().toArray(new Chamber[0]);
+        activeMachines = new BitSet(machines.length);
+        activeMachines.set(0, machines.length);
+
+        Map<Machine, Integer> indexes = new IdentityHashMap<>();
+        for(int i=0;i<machines.length;i++){
+            indexes.put(machines[i], i);
+        }
+        for(Chamber chamber : chambers){
+            List<Machine> linkedMachines = plantGraph.getLinkedMachines(chamber);
+            int[] wakeIndexes = new int[linkedMachines.size()];
+            for(int i=0;i<wakeIndexes.length;i++){
+                wakeIndexes[i] = indexes.get(linkedMachines.get(i));
+            }
+            chamber.setContentsListener(() -> wake(wakeIndexes));
+        }
+    }
+
+    public void wake(int[] indexes){
+        for(int i=0;i<indexes.length;i++){
+            activeMachines.set(indexes[i]);
+        }
+    }
+
+    public void release(){
+        for(Chamber chamber : chambers){
+            chamber.setContentsListener(null);
+        }
+    }
+
+    public void runTicks(long ticks){
+        for(long tick=0;tick<ticks;tick++){
+            step();
+        }
+    }
+
+    public void step(){
+        for(int i=activeMachines.nextSetBit(0);i>=0;i=activeMachines.nextSetBit(i + 1)){
+            Machine machine = machines[i];
+            machine.stepMachine();
+            if(machine.isQuiescent()){
+                activeMachines.clear(i);
+            }
+        }
+    }
+
+    public int getActiveMachineCount() {
+        return activeMachines.cardinality();
+    }
+}
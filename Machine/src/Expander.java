@@ -1,4 +1,6 @@
-import java.awt.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 
 public class Expander implements Machine {
     public static final double EQUALIZATION_THRESHOLD_RATIO = 0.2;
@@ -16,6 +18,8 @@ public class Expander implements Machine {
     private STATE state;
     private Material gas;
     private Material liquid;
+    private Material gasBuffer;
+    private Material liquidBuffer;
     private MaterialType containerType;
     private Material container;
     private Chamber inputChamber;
@@ -31,6 +35,12 @@ public class Expander implements Machine {
     private double initialContainerTemperaturePull;
     private double initialContainerTemperatureCondense;
 
+    private double temperatureRate;
+    private boolean hasRates;
+    private double stepError;
+    private boolean quiescent;
+    private boolean exactHeatTransfer;
+
     public Expander(MaterialType containerType, double containerThickness, double volumeCapacity) {
         this.containerType = containerType;
         this.containerThickness = containerThickness;
@@ -58,25 +68,90 @@ public class Expander implements Machine {
 
     @Override
     public void stepMachine(){
+        stepMachine(Simulator.TIME_CONST);
+    }
+
+    @Override
+    public void stepMachine(double time){
+        stepError = 0;
+        quiescent = false;
+        if(state != STATE.EQUALIZING_BEFORE && state != STATE.EQUALIZING_AFTER){
+            hasRates = false;
+        }
         if(state == STATE.READY) {
             pullFromChamber();
+            quiescent = state == STATE.READY;
         } else if(state == STATE.EXPANDING_GAS){
             calculateGasExpansion();
         } else if(state == STATE.EQUALIZING_BEFORE){
-            calculateEqualizationBefore();
+            double lastGasTemperature = gas.getTemperature();
+            calculateEqualizationBefore(time);
+            if(!exactHeatTransfer){
+                calculateStepError(lastGasTemperature, gas.getTemperature(), time);
+            }
         }else if(state == STATE.CONDENSING) {
             calculateCondensation();
         }else if(state == STATE.EQUALIZING_AFTER){
-            calculateEqualizationAfter();
+            double lastLiquidTemperature = liquid.getTemperature();
+            calculateEqualizationAfter(time);
+            if(!exactHeatTransfer){
+                calculateStepError(lastLiquidTemperature, liquid.getTemperature(), time);
+            }
         }else if(state == STATE.DONE){
             boolean pushedLiquid = pushToLiquidChamber();
             if(pushedLiquid) {
                 state = STATE.READY;
                 liquid = null;
+            }else{
+                quiescent = true;
             }
         }
     }
 
+    //Idle while the input chamber has nothing to pull or the liquid chamber has no room, until the chamber changes.
+    @Override
+    public boolean isQuiescent(){
+        return quiescent;
+    }
+
+    @Override
+    public void writeState(Checkpoint checkpoint) throws IOException {
+        DataOutputStream output = checkpoint.getOutput();
+        output.writeByte(state.ordinal());
+        checkpoint.writeMaterial(gas);
+        checkpoint.writeMaterial(liquid);
+        checkpoint.writeMaterial(container);
+        output.writeDouble(volumeToPull);
+        output.writeDouble(gasTemperature);
+        output.writeDouble(initialGasTemperaturePull);
+        output.writeDouble(initialContainerTemperaturePull);
+        output.writeDouble(initialContainerTemperatureCondense);
+        output.writeDouble(temperatureRate);
+        output.writeBoolean(hasRates);
+        output.writeDouble(stepError);
+        output.writeBoolean(quiescent);
+    }
+
+    @Override
+    public void readState(Checkpoint checkpoint) throws IOException {
+        DataInputStream input = checkpoint.getInput();
+        state = STATE.values()[input.readUnsignedByte()];
+        gas = checkpoint.readMaterial(gasBuffer);
+        if(gas != null) gasBuffer = gas;
+        liquid = checkpoint.readMaterial(liquidBuffer);
+        if(liquid != null) liquidBuffer = liquid;
+        checkpoint.readMaterial(container);
+        volumeToPull = input.readDouble();
+        gasTemperature = input.readDouble();
+        initialGasTemperaturePull = input.readDouble();
+        initialContainerTemperaturePull = input.readDouble();
+        initialContainerTemperatureCondense = input.readDouble();
+        temperatureRate = input.readDouble();
+        hasRates = input.readBoolean();
+        stepError = input.readDouble();
+        quiescent = input.readBoolean();
+    }
+
     public void calculateGasExpansion(){
         gasTemperature = MaterialHelper.getTemperature(gas.getTemperature(), gas.getPressure(), volumeToPull, Simulator.AMBIENT_PRESSURE, volumeCapacity);
         gas.setPressure(Simulator.AMBIENT_PRESSURE);
@@ -91,7 +166,11 @@ public class Expander implements Machine {
             double maxHeatFromLatent = gas.getMaterialType().getSpecificHeat() * gas.getMass() * (gas.getMaterialType().getBoilingPoint() - gasTemperature);
             double liquidMass = maxHeatFromLatent/gas.getMaterialType().getLatentHeatVaporization();
             if(liquidMass > 0 ){
-                liquid = new Material(gas.getMaterialType(),liquidMass, gas.getMaterialType().getBoilingPoint() - LIQUID_THRESHOLD);
+                if(liquidBuffer == null){
+                    liquidBuffer = new Material(gas.getMaterialType());
+                }
+                liquidBuffer.setProperties(gas.getMaterialType(), liquidMass, gas.getMaterialType().getBoilingPoint() - LIQUID_THRESHOLD, Simulator.AMBIENT_PRESSURE);
+                liquid = liquidBuffer;
                 gas.setTemperature(gas.getMaterialType().getBoilingPoint());
                 initialContainerTemperatureCondense = container.getTemperature();
             }
@@ -104,8 +183,49 @@ public class Expander implements Machine {
         }
     }
 
-    public void calculateEqualizationBefore(){
-        MaterialHelper.setMaterialTemperaturesFromHeatTransfer(container, gas, containerArea, Simulator.TIME_CONST);
+    //The gas or liquid has the smaller heat capacity, so its temperature changes fastest and carries the largest error.
+    public void calculateStepError(double lastTemperature, double temperature, double time){
+        double newTemperatureRate = (temperature - lastTemperature) / time;
+        if(hasRates){
+            stepError = MachineHelper.estimateStepError(newTemperatureRate, temperatureRate, time, temperature);
+        }
+        temperatureRate = newTemperatureRate;
+        hasRates = true;
+    }
+
+    @Override
+    public double getStableTimeStep(){
+        if(exactHeatTransfer){
+            return Double.POSITIVE_INFINITY;
+        }else if(state == STATE.EQUALIZING_BEFORE && gas != null){
+            return 2 / MaterialHelper.getHeatTransferRate(container, gas, containerArea);
+        }else if(state == STATE.EQUALIZING_AFTER && liquid != null){
+            return 2 / MaterialHelper.getHeatTransferRate(container, liquid, containerArea);
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public double getStepError() {
+        return stepError;
+    }
+
+    //While equalizing, a fraction of the thermal time constant. The other states change in a single step and stay on the base step.
+    @Override
+    public double getNaturalTimeStep(){
+        double rate;
+        if(state == STATE.EQUALIZING_BEFORE && gas != null){
+            rate = MaterialHelper.getHeatTransferRate(container, gas, containerArea);
+        }else if(state == STATE.EQUALIZING_AFTER && liquid != null){
+            rate = MaterialHelper.getHeatTransferRate(container, liquid, containerArea);
+        }else{
+            return Simulator.TIME_CONST;
+        }
+        return Math.min(Simulator.NATURAL_STEP_FRACTION / rate, getStableTimeStep() / 2);
+    }
+
+    public void calculateEqualizationBefore(double time){
+        calculateHeatTransfer(gas, time);
         gasTemperature = gas.getTemperature();
         if(Math.abs(container.getTemperature() - gas.getTemperature()) < ((initialContainerTemperaturePull - initialGasTemperaturePull)*EQUALIZATION_THRESHOLD_RATIO)
                 && (gas.getTemperature() > gas.getMaterialType().getBoilingPoint() || container.getTemperature() < gas.getMaterialType().getBoilingPoint())){
@@ -113,21 +233,30 @@ public class Expander implements Machine {
         }
     }
 
-    public void calculateEqualizationAfter(){
+    public void calculateEqualizationAfter(double time){
         if(liquid != null){
-            MaterialHelper.setMaterialTemperaturesFromHeatTransfer(container, liquid, containerArea, Simulator.TIME_CONST);
+            calculateHeatTransfer(liquid, time);
         }
         if(Math.abs(liquid.getTemperature() - container.getTemperature()) < ((liquid.getMaterialType().getBoilingPoint() - initialContainerTemperatureCondense)*EQUALIZATION_THRESHOLD_RATIO)){
             state = STATE.DONE;
         }
     }
 
+    public void calculateHeatTransfer(Material material, double time){
+        if(exactHeatTransfer){
+            MaterialHelper.setMaterialTemperaturesFromExactHeatTransfer(container, material, containerArea, time);
+        }else{
+            MaterialHelper.setMaterialTemperaturesFromHeatTransfer(container, material, containerArea, time);
+        }
+    }
+
     public void pullFromChamber(){
         volumeToPull = calculateVolumeToPull();
         if(inputChamber.getContents() != null){
-            gas = MachineHelper.pullFromChamber(inputChamber, volumeToPull);
+            gas = MachineHelper.pullFromChamber(inputChamber, volumeToPull, gasBuffer);
         }
         if(gas != null){
+            gasBuffer = gas;
             state = STATE.EXPANDING_GAS;
         }
     }
@@ -155,27 +284,8 @@ public class Expander implements Machine {
         }
     }
 
-    public void drawExpander(Graphics g, int xPos, int yPos, int scale){
-        if(containerHeight > MAX_EXPANDER_DRAW_SIZE){
-            scale *= (MAX_EXPANDER_DRAW_SIZE/containerHeight);
-        }
-        double currentVolume = MaterialHelper.materialVolume(liquid);
-        double gasLevel = currentVolume / (containerHeight * containerHeight);
-        double gasPosition = containerHeight - gasLevel;
-        int scaledChamberSide = (int)(containerHeight * scale);
-        g.drawRect(xPos,yPos,scaledChamberSide, scaledChamberSide);
-        g.drawString("Chamber Temperature: " + (float)(container.getTemperature() - 273) + " C ", xPos, yPos - 30);
-        if(gas != null){
-            g.drawString("Gas Temperature: " + (float)(gas.getTemperature() - 273) + " C ", xPos, yPos - 45);
-        }
-        if(liquid != null){
-            g.drawLine(xPos, yPos + (int)(gasPosition * scale), xPos + scaledChamberSide, yPos + (int)(gasPosition * scale));
-            double colorScale = 5;
-            g.setColor(new Color(0,255, 0));
-            g.fillRect(xPos + 1, yPos + (int)(gasPosition * scale) + 1,scaledChamberSide - 1, scaledChamberSide - (int)(gasPosition * scale) - 1);
-            g.setColor(new Color(0,0,0));
-            g.drawString((float)MaterialHelper.materialVolume(liquid) + " m3 of liquid" + liquid.getMaterialType().getName() + " at " + (float)(liquid.getTemperature() - 273.13) + " C", xPos, yPos - 15);
-        }
+    public void displayExpanderInfo(double seconds){
+        System.out.println("Expander: " + "State " + state + "     Container Temperature " + (container.getTemperature() - 273) + " C " + "     Gas Temperature " + (gasTemperature - 273) + " C" + "    Time " + seconds + " s");
     }
 
     public STATE getState() {
@@ -246,6 +356,14 @@ public class Expander implements Machine {
         return volumeCapacity;
     }
 
+    public double getContainerHeight() {
+        return containerHeight;
+    }
+
+    public Material getLiquid() {
+        return liquid;
+    }
+
     public void setVolumeCapacity(double volumeCapacity) {
         this.volumeCapacity = volumeCapacity;
     }
@@ -257,4 +375,12 @@ public class Expander implements Machine {
     public void setGasTemperature(double gasTemperature) {
         this.gasTemperature = gasTemperature;
     }
+
+    public boolean isExactHeatTransfer() {
+        return exactHeatTransfer;
+    }
+
+    public void setExactHeatTransfer(boolean exactHeatTransfer) {
+        this.exactHeatTransfer = exactHeatTransfer;
+    }
 }
@@ -0,0 +1,82 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Steps a plant with its compression strokes jumped ahead by StrokeFastForward. While a stroke runs, its motor and compressor only share their shaft,
+//so the rest of the plant keeps stepping tick by tick while they are skipped. Jumps never run past the end of a batch,
+//so anything changed between batches is seen by the next one, and a stroke that is no longer steady falls back to being stepped.
+public class FastForwardStepPlan {
+    private Machine[] machines;
+    private StrokeFastForward[] machineStrokes;
+    private StrokeFastForward[] strokes;
+    private StepPlan otherPlan;
+
+    public FastForwardStepPlan(List<Machine> machineList) {
+        machines = machineList.toArray(new Machine[0]);
+        machineStrokes = new StrokeFastForward[machines.length];
+
+        Map<Machine, Integer> indexes = new IdentityHashMap<>();
+        for(int i=0;i<machines.length;i++){
+            indexes.put(machines[i], i);
+        }
+        List<StrokeFastForward> strokeList = new ArrayList<>();
+        for(int i=0;i<machines.length;i++){
+            if(machines[i] instanceof Compressor && StrokeFastForward.canFastForward((Compressor)machines[i])){
+                Compressor compressor = (Compressor)machines[i];
+                Motor motor = (Motor)compressor.getInputValue().getInputMachine();
+                Integer motorIndex = indexes.get(motor);
+                if(motorIndex != null){
+                    StrokeFastForward stroke = new StrokeFastForward(motor, compressor);
+                    machineStrokes[i] = stroke;
+                    machineStrokes[motorIndex] = stroke;
+                    strokeList.add(stroke);
+                }
+            }
+        }
+        strokes = strokeList.toArray(new StrokeFastForward[0]);
+
+        List<Machine> otherMachines = new ArrayList<>();
+        for(int i=0;i<machines.length;i++){
+            if(machineStrokes[i] == null) otherMachines.add(machines[i]);
+        }
+        otherPlan = new StepPlan(otherMachines);
+    }
+
+    public void runTicks(long ticks){
+        long tick = 0;
+        while(tick < ticks){
+            long skippedTicks = ticks - tick;
+            for(StrokeFastForward stroke : strokes){
+                if(!stroke.isJumping()){
+                    stroke.jump(ticks - tick);
+                }
+                skippedTicks = Math.min(skippedTicks, stroke.getRemainingTicks());
+            }
+
+            if(skippedTicks > 0){
+                otherPlan.runTicks(skippedTicks);
+            }else{
+                skippedTicks = 1;
+                step();
+            }
+            for(StrokeFastForward stroke : strokes){
+                if(stroke.isJumping()) stroke.countTicks(skippedTicks);
+            }
+            tick += skippedTicks;
+        }
+    }
+
+    public void step(){
+        for(int i=0;i<machines.length;i++){
+            StrokeFastForward stroke = machineStrokes[i];
+            if(stroke == null || !stroke.isJumping()){
+                machines[i].stepMachine();
+            }
+        }
+    }
+
+    public int getStrokeCount() {
+        return strokes.length;
+    }
+}
@@ -1,5 +1,6 @@
-import java.awt.Graphics;
-import java.awt.Color;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 
 public class HeatExchanger implements Machine {
     public static final double FINAL_TEMPERATURE_DIFFERENCE = 10;
@@ -22,6 +23,8 @@ public class HeatExchanger implements Machine {
     private Chamber outputCoolantChamber;
     private Material contents;
     private Material coolant;
+    private Material contentsBuffer;
+    private Material coolantBuffer;
     private double contentVolume;
     private double coolantVolume;
     private double initialCoolantTemperature;
@@ -29,6 +32,13 @@ public class HeatExchanger implements Machine {
     private double coolantTemperature;
     private double pressure;
 
+    private double contentTemperatureRate;
+    private double coolantTemperatureRate;
+    private boolean hasRates;
+    private double stepError;
+    private boolean quiescent;
+    private boolean exactHeatTransfer;
+
     public HeatExchanger(Pipe pipe, double coolantVolume){
         this.coolantVolume = coolantVolume;
         this.pipe = pipe;
@@ -45,6 +55,16 @@ public class HeatExchanger implements Machine {
 
     @Override
     public void stepMachine(){
+        stepMachine(Simulator.TIME_CONST);
+    }
+
+    @Override
+    public void stepMachine(double time){
+        stepError = 0;
+        quiescent = true;
+        if(contentState == MATERIAL_STATE.EMPTY || coolantState == MATERIAL_STATE.EMPTY){
+            hasRates = false;
+        }
         if(contentState == MATERIAL_STATE.EMPTY){
             pullFromContentChamber();
         }
@@ -53,7 +73,13 @@ public class HeatExchanger implements Machine {
         }
 
         if(contentState == MATERIAL_STATE.TRANSFERRING_HEAT && coolantState == MATERIAL_STATE.TRANSFERRING_HEAT){
-            calculateHeatExchanger();
+            quiescent = false;
+            double lastContentTemperature = contentTemperature;
+            double lastCoolantTemperature = coolantTemperature;
+            calculateHeatExchanger(time);
+            if(!exactHeatTransfer){
+                calculateStepError(lastContentTemperature, lastCoolantTemperature, time);
+            }
             if(contents.getTemperature() <= (initialCoolantTemperature + FINAL_TEMPERATURE_DIFFERENCE)){
                 pushToContentChamber();
             }
@@ -63,9 +89,16 @@ public class HeatExchanger implements Machine {
         }
     }
 
+    //Idle while content or coolant is missing and the pull for it fails, until one of the input chambers changes.
+    @Override
+    public boolean isQuiescent(){
+        return quiescent;
+    }
+
     public void pullFromContentChamber(){
-        contents = MachineHelper.pullFromChamber(inputContentChamber, contentVolume);
+        contents = MachineHelper.pullFromChamber(inputContentChamber, contentVolume, contentsBuffer);
         if(contents != null){
+            contentsBuffer = contents;
             contentState = MATERIAL_STATE.TRANSFERRING_HEAT;
             pressure = contents.getPressure();
             contentTemperature = contents.getTemperature();
@@ -73,8 +106,9 @@ public class HeatExchanger implements Machine {
     }
 
     public void pullFromCoolantChamber(){
-        coolant = MachineHelper.pullFromChamber(inputCoolantChamber, coolantVolume);
+        coolant = MachineHelper.pullFromChamber(inputCoolantChamber, coolantVolume, coolantBuffer);
         if(coolant != null){
+            coolantBuffer = coolant;
             initialCoolantTemperature = coolant.getTemperature();
             coolantState = MATERIAL_STATE.TRANSFERRING_HEAT;
             coolantTemperature = coolant.getTemperature();
@@ -97,42 +131,114 @@ public class HeatExchanger implements Machine {
         }
     }
 
-    public void calculateHeatExchanger(){
-        calculateContentPipeExchange();
-        calculatePipeCoolantExchange();
+    public void calculateStepError(double lastContentTemperature, double lastCoolantTemperature, double time){
+        double newContentTemperatureRate = (contentTemperature - lastContentTemperature) / time;
+        double newCoolantTemperatureRate = (coolantTemperature - lastCoolantTemperature) / time;
+        if(hasRates){
+            double contentError = MachineHelper.estimateStepError(newContentTemperatureRate, contentTemperatureRate, time, contentTemperature);
+            double coolantError = MachineHelper.estimateStepError(newCoolantTemperatureRate, coolantTemperatureRate, time, coolantTemperature);
+            stepError = Math.max(contentError, coolantError);
+        }
+        contentTemperatureRate = newContentTemperatureRate;
+        coolantTemperatureRate = newCoolantTemperatureRate;
+        hasRates = true;
+    }
+
+    //Explicit heat transfer between two bodies is stable below 2 / (kA * (1/C1 + 1/C2)). The exact solution is stable at any step.
+    @Override
+    public double getStableTimeStep(){
+        if(exactHeatTransfer || contents == null || coolant == null) return Double.POSITIVE_INFINITY;
+        double contentRate = MaterialHelper.getHeatTransferRate(pipe.getMaterial(), contents, pipe.getInnerSurfaceArea());
+        double coolantRate = MaterialHelper.getHeatTransferRate(coolant, pipe.getMaterial(), pipe.getOuterSurfaceArea());
+        return 2 / Math.max(contentRate, coolantRate);
+    }
+
+    @Override
+    public double getStepError() {
+        return stepError;
+    }
+
+    //While both sides are transferring heat, a fraction of the fastest thermal time constant. Otherwise it is waiting to pull and stays on the base step.
+    @Override
+    public double getNaturalTimeStep(){
+        if(contentState != MATERIAL_STATE.TRANSFERRING_HEAT || coolantState != MATERIAL_STATE.TRANSFERRING_HEAT) return Simulator.TIME_CONST;
+        double contentRate = MaterialHelper.getHeatTransferRate(pipe.getMaterial(), contents, pipe.getInnerSurfaceArea());
+        double coolantRate = MaterialHelper.getHeatTransferRate(coolant, pipe.getMaterial(), pipe.getOuterSurfaceArea());
+        return Math.min(Simulator.NATURAL_STEP_FRACTION / Math.max(contentRate, coolantRate), getStableTimeStep() / 2);
+    }
+
+    @Override
+    public void writeState(Checkpoint checkpoint) throws IOException {
+        DataOutputStream output = checkpoint.getOutput();
+        output.writeByte(contentState.ordinal());
+        output.writeByte(coolantState.ordinal());
+        checkpoint.writeMaterial(contents);
+        checkpoint.writeMaterial(coolant);
+        checkpoint.writeMaterial(pipe.getMaterial());
+        output.writeDouble(initialCoolantTemperature);
+        output.writeDouble(contentTemperature);
+        output.writeDouble(coolantTemperature);
+        output.writeDouble(pressure);
+        output.writeDouble(contentTemperatureRate);
+        output.writeDouble(coolantTemperatureRate);
+        output.writeBoolean(hasRates);
+        output.writeDouble(stepError);
+        output.writeBoolean(quiescent);
+    }
+
+    @Override
+    public void readState(Checkpoint checkpoint) throws IOException {
+        DataInputStream input = checkpoint.getInput();
+        contentState = MATERIAL_STATE.values()[input.readUnsignedByte()];
+        coolantState = MATERIAL_STATE.values()[input.readUnsignedByte()];
+        contents = checkpoint.readMaterial(contentsBuffer);
+        if(contents != null) contentsBuffer = contents;
+        coolant = checkpoint.readMaterial(coolantBuffer);
+        if(coolant != null) coolantBuffer = coolant;
+        checkpoint.readMaterial(pipe.getMaterial());
+        initialCoolantTemperature = input.readDouble();
+        contentTemperature = input.readDouble();
+        coolantTemperature = input.readDouble();
+        pressure = input.readDouble();
+        contentTemperatureRate = input.readDouble();
+        coolantTemperatureRate = input.readDouble();
+        hasRates = input.readBoolean();
+        stepError = input.readDouble();
+        quiescent = input.readBoolean();
+    }
+
+    public void calculateHeatExchanger(double time){
+        if(exactHeatTransfer){
+            calculateExactExchange(time);
+        }else{
+            calculateContentPipeExchange(time);
+            calculatePipeCoolantExchange(time);
+        }
+    }
+
+    //Content, pipe and coolant exchange heat together over the whole step, rather than content to pipe and then pipe to coolant.
+    public void calculateExactExchange(double time){
+        MaterialHelper.setMaterialTemperaturesFromExactHeatTransfer(contents, pipe.getMaterial(), coolant, pipe.getInnerSurfaceArea(), pipe.getOuterSurfaceArea(), time);
+        MaterialHelper.materialPressureFromTemperature(contents, contentVolume);
+        pressure = contents.getPressure();
+        contentTemperature = contents.getTemperature();
+        coolantTemperature = coolant.getTemperature();
     }
 
-    public void calculateContentPipeExchange(){
-        MaterialHelper.setMaterialTemperaturesFromHeatTransfer(pipe.getMaterial(), contents, pipe.getInnerSurfaceArea(), Simulator.TIME_CONST);
+    public void calculateContentPipeExchange(double time){
+        MaterialHelper.setMaterialTemperaturesFromHeatTransfer(pipe.getMaterial(), contents, pipe.getInnerSurfaceArea(), time);
         MaterialHelper.materialPressureFromTemperature(contents, contentVolume);
         pressure = contents.getPressure();
         contentTemperature = contents.getTemperature();
     }
 
-    public void calculatePipeCoolantExchange(){
-        MaterialHelper.setMaterialTemperaturesFromHeatTransfer(coolant, pipe.getMaterial(), pipe.getOuterSurfaceArea(), Simulator.TIME_CONST);
+    public void calculatePipeCoolantExchange(double time){
+        MaterialHelper.setMaterialTemperaturesFromHeatTransfer(coolant, pipe.getMaterial(), pipe.getOuterSurfaceArea(), time);
         coolantTemperature = coolant.getTemperature();
     }
 
-    public void drawHeatExchanger(Graphics g, int xPos, int yPos, int scale){
-        Color contentColor = new Color(200,200,200);
-        Color coolantColor = new Color(255,255,255);
-
-        if(contents != null) contentColor = GraphicsHelper.getTemperatureGradient(MIN_TEMPERATURE, MAX_TEMPERATURE, contentTemperature);
-        if(coolant != null) coolantColor = GraphicsHelper.getTemperatureGradient(MIN_TEMPERATURE, MAX_TEMPERATURE, coolantTemperature);
-
-        GraphicsHelper.fillCoil(g, xPos, yPos, contentColor,coolantColor, 0.02,3,scale);
-        g.drawString("Pipe Temperature " + (float)(pipe.getMaterial().getTemperature() - 273) + " C",xPos,yPos - 15);
-        g.drawString("Pipe Max Pressure " + (float)pipe.getMaxPressure() + " Atm", xPos, yPos - 30);
-        if(contents != null){
-            g.drawString("Content Volume" + (float)MaterialHelper.materialVolume(contents) + " m3",xPos, yPos - 75);
-            g.drawString("Content Pressure " + (float)pressure + " Atm",xPos,yPos - 60);
-            g.drawString("Content Temperature " + (float)(contentTemperature - 273) + " C",xPos,yPos - 45);
-        }
-        if(coolant != null){
-            g.drawString("Coolant Temperature " + (float)(coolantTemperature - 273) + " C", xPos, yPos - 105);
-            g.drawString("Coolant Volume " + (float)MaterialHelper.materialVolume(coolant) + " m3",xPos,yPos - 90);
-        }
+    public void displayHeatExchangerInfo(double seconds){
+        System.out.println("Heat Exchanger: " + "Content " + contentState + "     Content Temperature " + (contentTemperature - 273) + " C " + "     Content Pressure " + pressure + " atm " + "     Coolant " + coolantState + "     Coolant Temperature " + (coolantTemperature - 273) + " C " + "     Pipe Temperature " + (pipe.getMaterial().getTemperature() - 273) + " C" + "    Time " + seconds + " s");
     }
 
     public MATERIAL_STATE getContentState() {
@@ -211,6 +317,18 @@ public class HeatExchanger implements Machine {
         return contentVolume;
     }
 
+    public double getContentTemperature() {
+        return contentTemperature;
+    }
+
+    public double getCoolantTemperature() {
+        return coolantTemperature;
+    }
+
+    public double getPressure() {
+        return pressure;
+    }
+
     public void setContentVolume(double contentVolume) {
         this.contentVolume = contentVolume;
     }
@@ -222,4 +340,12 @@ public class HeatExchanger implements Machine {
     public void setCoolantVolume(double coolantVolume) {
         this.coolantVolume = coolantVolume;
     }
+
+    public boolean isExactHeatTransfer() {
+        return exactHeatTransfer;
+    }
+
+    public void setExactHeatTransfer(boolean exactHeatTransfer) {
+        this.exactHeatTransfer = exactHeatTransfer;
+    }
 }
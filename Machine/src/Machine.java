@@ -1,3 +1,39 @@
+import java.io.IOException;
+
 public interface Machine {
     void stepMachine();
+
+    //Steps the machine over the given time in seconds. Machines without time dependent physics ignore it.
+    default void stepMachine(double time){
+        stepMachine();
+    }
+
+    //Estimated relative local error of the last step, used by the adaptive time step controller.
+    default double getStepError(){
+        return 0;
+    }
+
+    //True when the last step did nothing and further steps will keep doing nothing until a linked chamber's contents change.
+    default boolean isQuiescent(){
+        return false;
+    }
+
+    //Time step that resolves the machine's own dynamics, used by the multi-rate scheduler to pick how often the machine is stepped.
+    //Machines that pull, push or otherwise react to events keep the default so the events are not delayed.
+    default double getNaturalTimeStep(){
+        return Simulator.TIME_CONST;
+    }
+
+    //Writes the values that change while the machine runs. Machines without any keep the default.
+    default void writeState(Checkpoint checkpoint) throws IOException {
+    }
+
+    //Reads back the values written by writeState, in the same order.
+    default void readState(Checkpoint checkpoint) throws IOException {
+    }
+
+    //Largest time step the machine's integrator stays stable at.
+    default double getStableTimeStep(){
+        return Double.POSITIVE_INFINITY;
+    }
 }
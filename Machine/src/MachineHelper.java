@@ -1,14 +1,27 @@
 public class MachineHelper {
     public static Material pullFromChamber(Chamber chamber, double volumeToPull){
-        if(volumeToPull <= chamber.getMaxVolume() && volumeToPull <= MaterialHelper.materialVolume(chamber.getContents())){
-            return chamber.removeFromContents(MaterialHelper.materialMassFromVolume(chamber.getContents(),volumeToPull));
+        return pullFromChamber(chamber, volumeToPull, null);
+    }
+
+    //Pulls into the given holder so machines can reuse one Material across transfers. A holder is created if none is given.
+    public static Material pullFromChamber(Chamber chamber, double volumeToPull, Material material){
+        if(volumeToPull <= chamber.getMaxVolume() && volumeToPull <= chamber.getPullableVolume()){
+            if(material == null){
+                material = new Material(chamber.getContents().getMaterialType());
+            }
+            return chamber.removeFromContents(MaterialHelper.materialMassFromVolume(chamber.getContents(),volumeToPull), material);
         }
         return null;
     }
 
+    //Local error of an explicit Euler step from the change in rate between two steps, relative to the given scale.
+    public static double estimateStepError(double rate, double lastRate, double time, double scale){
+        return 0.5 * time * Math.abs(rate - lastRate) / Math.max(Math.abs(scale), Double.MIN_NORMAL);
+    }
+
     public static boolean pushToChamber(Chamber chamber, double volumeToPush, Material material){
         boolean success = false;
-        if(volumeToPush <= chamber.getMaxVolume() - MaterialHelper.materialVolume(chamber.getContents())){
+        if(volumeToPush <= chamber.getPushableVolume()){
             chamber.addToContents(material);
             success = true;
         }
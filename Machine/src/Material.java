@@ -38,6 +38,28 @@ public class Material{
         calculateProps();
     }
 
+    public void setProperties(MaterialType materialType, double mass, double temperature, double pressure){
+        this.materialType = materialType;
+        this.mass = mass;
+        this.temperature = temperature;
+        this.pressure = pressure;
+
+        calculateProps();
+    }
+
+    public void copyFrom(Material material, double mass){
+        setProperties(material.getMaterialType(), mass, material.getTemperature(), material.getPressure());
+    }
+
+    public void copyStateFrom(Material material){
+        this.materialType = material.getMaterialType();
+        this.materialState = material.getMaterialState();
+        this.mass = material.getMass();
+        this.temperature = material.getTemperature();
+        this.pressure = material.getPressure();
+        this.density = material.getDensity();
+    }
+
     public void calculateProps(){
         if(temperature < materialType.getMeltingPoint()){
             materialState = MATERIAL_STATE.SOLID;
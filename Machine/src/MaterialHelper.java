@@ -16,7 +16,16 @@ public class MaterialHelper {
         }
     }
 
+    //A new material holding both, leaving the two unchanged. Materials that cannot be merged give back material1.
     public static Material addMaterials(Material material1, Material material2){
+        if(material1.getMaterialType() != material2.getMaterialType() || material1.getMaterialState() != material2.getMaterialState()) return material1;
+        Material sum = createMaterialCopy(material1, material1.getMass());
+        mergeMaterials(sum, material2);
+        return sum;
+    }
+
+    //Merges material2 into material1 in place.
+    public static void mergeMaterials(Material material1, Material material2){
         if(material1.getMaterialType() == material2.getMaterialType() && material1.getMaterialState() == material2.getMaterialState()){
             double volume = materialVolume(material1) + materialVolume(material2);
             double tMass1 = material1.getTemperature() * material1.getMass();
@@ -25,12 +34,11 @@ public class MaterialHelper {
             double temperature = (tMass1 + tMass2)/totalMass;
             if(material1.getMaterialState() == Material.MATERIAL_STATE.GAS){
                 double pressure = (totalMass * material1.getMaterialType().getGasConstant() * temperature) / volume;
-                return new Material(material1.getMaterialType(), totalMass, temperature, pressure);
+                material1.setProperties(material1.getMaterialType(), totalMass, temperature, pressure);
             }else{
-                return new Material(material1.getMaterialType(),totalMass,temperature);
+                material1.setProperties(material1.getMaterialType(), totalMass, temperature, Simulator.AMBIENT_PRESSURE);
             }
         }
-        return material1;
     }
 
     public static Material createMaterialCopy(Material material, double mass){
@@ -43,6 +51,14 @@ public class MaterialHelper {
         return effectiveThermalConductivity * area * (material2.getTemperature() - material1.getTemperature());
     }
 
+    //Rate at which the temperature difference between two materials decays, kA * (1/C1 + 1/C2).
+    public static double getHeatTransferRate(Material material1, Material material2, double area){
+        double effectiveThermalConductivity = Math.min(material1.getMaterialType().getThermalConductivity(), material2.getMaterialType().getThermalConductivity());
+        double heatCapacity1 = material1.getMass() * material1.getMaterialType().getSpecificHeat();
+        double heatCapacity2 = material2.getMass() * material2.getMaterialType().getSpecificHeat();
+        return effectiveThermalConductivity * area * ((1 / heatCapacity1) + (1 / heatCapacity2));
+    }
+
     public static void setMaterialTemperaturesFromHeatTransfer(Material material1, Material material2, double area, double time){
         double heat = getHeatTransfer(material1, material2, area) * time;
         double temperature1 = material1.getTemperature() + (heat/(material1.getMass() * material1.getMaterialType().getSpecificHeat()));
@@ -51,6 +67,61 @@ public class MaterialHelper {
         material2.setTemperature(temperature2);
     }
 
+    //Exact solution for two bodies with constant conductivity. The temperature difference decays as e^(-rate * time),
+    //so the step is stable for any time and the bodies never overshoot each other.
+    public static void setMaterialTemperaturesFromExactHeatTransfer(Material material1, Material material2, double area, double time){
+        double effectiveThermalConductivity = Math.min(material1.getMaterialType().getThermalConductivity(), material2.getMaterialType().getThermalConductivity());
+        double heatCapacity1 = material1.getMass() * material1.getMaterialType().getSpecificHeat();
+        double heatCapacity2 = material2.getMass() * material2.getMaterialType().getSpecificHeat();
+        double inverseCapacity = (1 / heatCapacity1) + (1 / heatCapacity2);
+        double rate = effectiveThermalConductivity * area * inverseCapacity;
+        double heat = (material2.getTemperature() - material1.getTemperature()) * -Math.expm1(-rate * time) / inverseCapacity;
+        material1.setTemperature(material1.getTemperature() + (heat / heatCapacity1));
+        material2.setTemperature(material2.getTemperature() - (heat / heatCapacity2));
+    }
+
+    //Exact solution for a chain of three bodies, material1 - material2 - material3, where material2 exchanges heat with both of the others.
+    //The temperatures relax to the common equilibrium temperature along two modes with rates from the roots of rate^2 - b * rate + c = 0.
+    public static void setMaterialTemperaturesFromExactHeatTransfer(Material material1, Material material2, Material material3, double area12, double area23, double time){
+        double conductance12 = Math.min(material1.getMaterialType().getThermalConductivity(), material2.getMaterialType().getThermalConductivity()) * area12;
+        double conductance23 = Math.min(material2.getMaterialType().getThermalConductivity(), material3.getMaterialType().getThermalConductivity()) * area23;
+        double heatCapacity1 = material1.getMass() * material1.getMaterialType().getSpecificHeat();
+        double heatCapacity2 = material2.getMass() * material2.getMaterialType().getSpecificHeat();
+        double heatCapacity3 = material3.getMass() * material3.getMaterialType().getSpecificHeat();
+
+        double equilibriumTemperature = (heatCapacity1 * material1.getTemperature() + heatCapacity2 * material2.getTemperature() + heatCapacity3 * material3.getTemperature())
+                / (heatCapacity1 + heatCapacity2 + heatCapacity3);
+        double u1 = material1.getTemperature() - equilibriumTemperature;
+        double u2 = material2.getTemperature() - equilibriumTemperature;
+        double u3 = material3.getTemperature() - equilibriumTemperature;
+
+        double v1 = conductance12 * (u2 - u1) / heatCapacity1;
+        double v2 = (conductance12 * (u1 - u2) + conductance23 * (u3 - u2)) / heatCapacity2;
+        double v3 = conductance23 * (u2 - u3) / heatCapacity3;
+
+        double b = conductance12 / heatCapacity1 + (conductance12 + conductance23) / heatCapacity2 + conductance23 / heatCapacity3;
+        double c = conductance12 * conductance23 * (heatCapacity1 + heatCapacity2 + heatCapacity3) / (heatCapacity1 * heatCapacity2 * heatCapacity3);
+        double root = Math.sqrt(Math.max(b * b - 4 * c, 0));
+        double fastRate = 0.5 * (b + root);
+        double slowRate = fastRate > 0 ? c / fastRate : 0;
+
+        //With s1 = -slowRate and s2 = -fastRate, e^(At) u = (e^(s1 t) (A - s2) - e^(s2 t) (A - s1)) u / (s1 - s2), where A u = v.
+        double slowDecay = Math.exp(-slowRate * time);
+        double fastDecay = Math.exp(-fastRate * time);
+        double uWeight;
+        double vWeight;
+        if(root > 1e-9 * b){
+            uWeight = (fastRate * slowDecay - slowRate * fastDecay) / root;
+            vWeight = (slowDecay - fastDecay) / root;
+        }else{
+            uWeight = slowDecay * (1 + slowRate * time);
+            vWeight = slowDecay * time;
+        }
+        material1.setTemperature(equilibriumTemperature + uWeight * u1 + vWeight * v1);
+        material2.setTemperature(equilibriumTemperature + uWeight * u2 + vWeight * v2);
+        material3.setTemperature(equilibriumTemperature + uWeight * u3 + vWeight * v3);
+    }
+
     public static double getPressure(double initialPressure, double initialVolume, double finalVolume){
         return initialPressure * Math.pow((initialVolume/finalVolume), Simulator.GAMMA);
     }
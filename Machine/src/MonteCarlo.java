@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+//Runs a plant many times with fields drawn from distributions, to see how far the outputs spread when the parts vary.
+//The plant, metrics, stop rules, run time and thread count come from a ParameterSweep, which builds and runs each Simulator.
+//Every run draws its values from its own SplittableRandom, split from the seed's stream in run order before any run starts,
+//so run n gets the same values whatever the thread count and however the runs are scheduled.
+//Results go into quantile sketches as runs finish, so thousands of runs take no more memory than a handful.
+//The plant is also run once as written, before the sampled runs, to give the metric sketches their centers.
+public class MonteCarlo {
+    public static final int DEFAULT_RUNS = 1000;
+    public static final double[] DEFAULT_PERCENTILES = {5, 25, 50, 75, 95};
+
+    private ParameterSweep sweep;
+    private List<UncertainParameter> parameters = new ArrayList<>();
+    private double accuracy = QuantileSketch.DEFAULT_ACCURACY;
+
+    public MonteCarlo(ParameterSweep sweep) {
+        this.sweep = sweep;
+    }
+
+    public void addParameter(UncertainParameter parameter){
+        parameters.add(parameter);
+    }
+
+    public MonteCarloResults run(int runs, long seed){
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[runs];
+        for(int i=0;i<runs;i++){
+            streams[i] = root.split();
+        }
+        long start = System.nanoTime();
+        double[] parameterCenters = new double[parameters.size()];
+        for(int i=0;i<parameterCenters.length;i++){
+            parameterCenters[i] = parameters.get(i).getCenter();
+        }
+        MonteCarloResults results = new MonteCarloResults(getParameterNames(), sweep.getMetricNames(), accuracy, parameterCenters, runNominal());
+        List<SweepRun> sweepRuns = new ArrayList<>();
+        for(int i=0;i<runs;i++){
+            sweepRuns.add(new SweepRun(i, new double[parameters.size()]));
+        }
+        ForkJoinPool pool = new ForkJoinPool(sweep.getParallelism());
+        try{
+            //Each run is let go once it is recorded, as its metrics are in the sketches.
+            ParameterSweep.forEach(pool, sweepRuns, run -> {
+                runOne(run, streams[run.getIndex()], results);
+                streams[run.getIndex()] = null;
+                sweepRuns.set(run.getIndex(), null);
+            });
+        }finally{
+            pool.shutdown();
+        }
+        results.setElapsedNanos(System.nanoTime() - start);
+        return results;
+    }
+
+    //The metrics of the plant as written. A metric the nominal run cannot give, because it failed or the value is not finite, is 0.
+    public double[] runNominal(){
+        double[] metrics = new double[sweep.getMetricNames().size()];
+        SweepRun run = new SweepRun(-1, new double[0]);
+        if(sweep.start(run, new HashMap<>())) sweep.runTo(run, sweep.getRunTime());
+        run.release();
+        if(run.isFailed()) return metrics;
+        for(int i=0;i<metrics.length;i++){
+            if(Double.isFinite(run.getMetrics()[i])) metrics[i] = run.getMetrics()[i];
+        }
+        return metrics;
+    }
+
+    //Draws the run's values into it, runs it to the end or until a stop rule ends it, and records it.
+    public void runOne(SweepRun run, SplittableRandom random, MonteCarloResults results){
+        double[] values = run.getValues();
+        Map<String, String> overrides = new HashMap<>();
+        for(int i=0;i<values.length;i++){
+            UncertainParameter parameter = parameters.get(i);
+            values[i] = parameter.sample(random);
+            overrides.put(parameter.getName(), parameter.toOverride(values[i]));
+        }
+        if(sweep.start(run, overrides)) sweep.runTo(run, sweep.getRunTime());
+        run.release();
+        results.record(run);
+    }
+
+    public List<String> getParameterNames(){
+        List<String> names = new ArrayList<>();
+        for(UncertainParameter parameter : parameters){
+            names.add(parameter.getName());
+        }
+        return names;
+    }
+
+    public List<UncertainParameter> getParameters() {
+        return parameters;
+    }
+
+    public ParameterSweep getSweep() {
+        return sweep;
+    }
+
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    public void setAccuracy(double accuracy) {
+        this.accuracy = accuracy;
+    }
+
+    //Usage: MonteCarlo plantFile runTime --vary=name=distribution... [--runs=n] [--seed=n] [--threads=n] [--mode=EXECUTION_MODE]
+    //                  [--stop] [--check=seconds] [--accuracy=fraction] [--percentiles=p,...]
+    //See UncertainParameter for how distributions are written, as in --vary=Copper.resistivity=*normal:1:0.03 --vary=carBattery.voltage=uniform:11:13.
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2){
+            System.out.println("Usage: MonteCarlo plantFile runTime --vary=name=distribution... [--runs=n] [--seed=n] [--threads=n] [--mode=EXECUTION_MODE] [--stop] [--check=seconds] [--accuracy=fraction] [--percentiles=p,...]");
+            return;
+        }
+        ParameterSweep sweep = ParameterSweep.load(Path.of(args[0]), Double.parseDouble(args[1]));
+        sweep.addStandardMetrics();
+        MonteCarlo monteCarlo = new MonteCarlo(sweep);
+        int runs = DEFAULT_RUNS;
+        long seed = 1;
+        double[] percentiles = DEFAULT_PERCENTILES;
+        for(int i=2;i<args.length;i++){
+            String arg = args[i];
+            if(arg.startsWith("--vary=")){
+                monteCarlo.addParameter(UncertainParameter.parse(arg.substring("--vary=".length())));
+            }else if(arg.startsWith("--runs=")){
+                runs = Integer.parseInt(arg.substring("--runs=".length()));
+            }else if(arg.startsWith("--seed=")){
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            }else if(arg.startsWith("--threads=")){
+                sweep.setParallelism(Integer.parseInt(arg.substring("--threads=".length())));
+            }else if(arg.startsWith("--mode=")){
+                sweep.setExecutionMode(Simulator.EXECUTION_MODE.valueOf(arg.substring("--mode=".length())));
+            }else if(arg.equals("--stop")){
+                sweep.addStandardStopRules();
+            }else if(arg.startsWith("--check=")){
+                sweep.setCheckInterval(Double.parseDouble(arg.substring("--check=".length())));
+            }else if(arg.startsWith("--accuracy=")){
+                monteCarlo.setAccuracy(Double.parseDouble(arg.substring("--accuracy=".length())));
+            }else if(arg.startsWith("--percentiles=")){
+                String[] list = arg.substring("--percentiles=".length()).split(",");
+                percentiles = new double[list.length];
+                for(int j=0;j<list.length;j++){
+                    percentiles[j] = Double.parseDouble(list[j]);
+                }
+            }else{
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        System.out.println("Running " + runs + " samples of " + sweep.getRunTime() + " s on " + sweep.getParallelism() + " threads");
+        MonteCarloResults results = monteCarlo.run(runs, seed);
+        results.print(System.out, percentiles);
+    }
+}
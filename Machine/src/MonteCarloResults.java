@@ -0,0 +1,134 @@
+import java.io.PrintStream;
+import java.util.List;
+
+//What a Monte Carlo study keeps of its runs: a quantile sketch per sampled parameter and per metric, and counts of the runs
+//that failed or were stopped. Runs are recorded as they finish, from any thread, and then let go.
+//Only runs that reached the full run time go into the metric sketches, since a stopped run's metrics are from an earlier time.
+//A relative parameter's sketch holds the factors drawn rather than the values they gave.
+//Each sketch is centered, a parameter's on the middle of its distribution and a metric's on the nominal run's value,
+//so the percentiles resolve small spreads around large values.
+public class MonteCarloResults {
+    private List<String> parameterNames;
+    private List<String> metricNames;
+    private QuantileSketch[] parameterSketches;
+    private QuantileSketch[] metricSketches;
+    private int runCount;
+    private int completedCount;
+    private int failedCount;
+    private int stoppedCount;
+    private SweepRun firstFailure;
+    private SweepRun firstStop;
+    private long simulationNanos;
+    private long elapsedNanos;
+
+    public MonteCarloResults(List<String> parameterNames, List<String> metricNames, double accuracy, double[] parameterCenters, double[] metricCenters) {
+        this.parameterNames = parameterNames;
+        this.metricNames = metricNames;
+        parameterSketches = new QuantileSketch[parameterNames.size()];
+        for(int i=0;i<parameterSketches.length;i++){
+            parameterSketches[i] = new QuantileSketch(accuracy, parameterCenters[i]);
+        }
+        metricSketches = new QuantileSketch[metricNames.size()];
+        for(int i=0;i<metricSketches.length;i++){
+            metricSketches[i] = new QuantileSketch(accuracy, metricCenters[i]);
+        }
+    }
+
+    public synchronized void record(SweepRun run){
+        runCount++;
+        simulationNanos += run.getElapsedNanos();
+        double[] values = run.getValues();
+        for(int i=0;i<values.length;i++){
+            parameterSketches[i].add(values[i]);
+        }
+        //The lowest numbered failure and stop are kept as examples, so the report does not depend on which thread got there first.
+        if(run.isFailed()){
+            failedCount++;
+            if(firstFailure == null || run.getIndex() < firstFailure.getIndex()) firstFailure = run;
+        }else if(run.isStopped()){
+            stoppedCount++;
+            if(firstStop == null || run.getIndex() < firstStop.getIndex()) firstStop = run;
+        }else{
+            completedCount++;
+            double[] metrics = run.getMetrics();
+            for(int i=0;i<metrics.length;i++){
+                metricSketches[i].add(metrics[i]);
+            }
+        }
+    }
+
+    public void print(PrintStream out, double[] percentiles){
+        out.println("Ran " + runCount + " configurations in " + elapsedNanos / 1e9 + " s (" + simulationNanos / 1e9 + " s of simulation, "
+                + completedCount + " completed, " + failedCount + " failed, " + stoppedCount + " stopped)");
+        StringBuilder header = new StringBuilder(String.format("%-24s", ""));
+        header.append(String.format(" %13s", "min"));
+        for(double percentile : percentiles) header.append(String.format(" %13s", "p" + formatPercentile(percentile)));
+        header.append(String.format(" %13s", "max"));
+        out.println(header);
+        for(int i=0;i<parameterSketches.length;i++){
+            printRow(out, parameterNames.get(i), parameterSketches[i], percentiles);
+        }
+        for(int i=0;i<metricSketches.length;i++){
+            printRow(out, metricNames.get(i), metricSketches[i], percentiles);
+        }
+        if(firstFailure != null) out.println("Run " + firstFailure.getIndex() + " failed: " + firstFailure.getError());
+        if(firstStop != null) out.println("Run " + firstStop.getIndex() + " " + firstStop.getStatus());
+    }
+
+    private static void printRow(PrintStream out, String name, QuantileSketch sketch, double[] percentiles){
+        StringBuilder row = new StringBuilder(String.format("%-24s", name));
+        row.append(String.format(" %13.7g", sketch.getCount() == 0 ? Double.NaN : sketch.getMin()));
+        for(double percentile : percentiles) row.append(String.format(" %13.7g", sketch.getQuantile(percentile / 100)));
+        row.append(String.format(" %13.7g", sketch.getCount() == 0 ? Double.NaN : sketch.getMax()));
+        if(sketch.getNanCount() > 0) row.append("  (").append(sketch.getNanCount()).append(" NaN)");
+        out.println(row);
+    }
+
+    private static String formatPercentile(double percentile){
+        return percentile == Math.rint(percentile) ? Integer.toString((int)percentile) : Double.toString(percentile);
+    }
+
+    public QuantileSketch getParameterSketch(String name){
+        int parameter = parameterNames.indexOf(name);
+        if(parameter < 0) throw new IllegalArgumentException("No parameter " + name);
+        return parameterSketches[parameter];
+    }
+
+    public QuantileSketch getMetricSketch(String name){
+        int metric = metricNames.indexOf(name);
+        if(metric < 0) throw new IllegalArgumentException("No metric " + name);
+        return metricSketches[metric];
+    }
+
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    public List<String> getMetricNames() {
+        return metricNames;
+    }
+
+    public int getRunCount() {
+        return runCount;
+    }
+
+    public int getCompletedCount() {
+        return completedCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public int getStoppedCount() {
+        return stoppedCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+}
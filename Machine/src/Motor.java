@@ -1,10 +1,12 @@
-import java.awt.Graphics;
-import java.awt.Color;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 
 public class Motor implements Machine{
-    private static final double ROTOR_FRICTION = 0.995;
-    private static final double WIRE_TEMPERATURE_RATING = 1000;
-    private static final double RESTART_TEMPERATURE = 303;
+    static final double ROTOR_FRICTION = 0.995;
+    private static final double ROTOR_FRICTION_RATE = -Math.log(ROTOR_FRICTION) / Simulator.TIME_CONST;
+    static final double WIRE_TEMPERATURE_RATING = 1000;
+    static final double RESTART_TEMPERATURE = 303;
 
     public enum STATE{
         RUNNING,
@@ -12,9 +14,15 @@ public class Motor implements Machine{
         STOPPED_EXTERNAL
     }
 
+    public enum INTEGRATOR{
+        EXPLICIT,
+        SEMI_IMPLICIT
+    }
+
     private Battery battery;
     private RotationalForce outputValue;
     private STATE state;
+    private INTEGRATOR integrator = INTEGRATOR.EXPLICIT;
     private Coil coil;
     private Magnet magnet;
     private Rotor rotor;
@@ -43,6 +51,18 @@ public class Motor implements Machine{
     private double wireMass;
     private double wireTemperature;
 
+    private double frictionTime = Simulator.TIME_CONST;
+    private double frictionFactor = ROTOR_FRICTION;
+    private double radsRate;
+    private double wireTemperatureRate;
+    private boolean hasRates;
+    private double stepError;
+
+    //With thermal sub-cycling the wire temperature runs on its own slower clock, heated by the resistive heat averaged over the steps in between.
+    private boolean thermalSubCycling;
+    private double wireHeat;
+    private double wireHeatTime;
+
     public Motor(Wire wire, Magnet magnet, Rotor rotor, Battery battery, double numTurns, double coilArea, double ambientTemperature) {
         coil = new Coil(wire, numTurns, coilArea);
         this.turns = coil.getNumTurns();
@@ -73,6 +93,11 @@ public class Motor implements Machine{
 
     @Override
     public void stepMachine(){
+        stepMachine(Simulator.TIME_CONST);
+    }
+
+    @Override
+    public void stepMachine(double time){
         if(state == STATE.RUNNING){
             if(wireTemperature > WIRE_TEMPERATURE_RATING){
                 killMotor(false);
@@ -82,7 +107,95 @@ public class Motor implements Machine{
                 restartMotor();
             }
         }
-        calculateMotor();
+        double lastRads = rads;
+        double lastWireTemperature = wireTemperature;
+        calculateMotor(time);
+        calculateStepError(lastRads, lastWireTemperature, time);
+    }
+
+    public void calculateStepError(double lastRads, double lastWireTemperature, double time){
+        double newRadsRate = (rads - lastRads) / time;
+        double newWireTemperatureRate = (wireTemperature - lastWireTemperature) / time;
+        if(hasRates){
+            double radsError = MachineHelper.estimateStepError(newRadsRate, radsRate, time, Math.max(Math.abs(rads), 1));
+            double wireTemperatureError = MachineHelper.estimateStepError(newWireTemperatureRate, wireTemperatureRate, time, wireTemperature);
+            stepError = Math.max(radsError, wireTemperatureError);
+        }
+        radsRate = newRadsRate;
+        wireTemperatureRate = newWireTemperatureRate;
+        hasRates = true;
+    }
+
+    //Explicit Euler on the coupled current and speed equations is stable below 2 / (k^2 / (R * J) + friction rate). The semi-implicit step is stable at any step.
+    @Override
+    public double getStableTimeStep(){
+        if(integrator == INTEGRATOR.SEMI_IMPLICIT) return Double.POSITIVE_INFINITY;
+        double motorConstant = magneticField * coilArea * turns;
+        double electricalRate = (motorConstant * motorConstant) / (resistance * rotorMoment);
+        return 2 / (electricalRate + ROTOR_FRICTION_RATE);
+    }
+
+    @Override
+    public double getStepError() {
+        return stepError;
+    }
+
+    //The semi-implicit step can follow the speed at the rate it is changing. The explicit step stays on TIME_CONST, which its friction factor and clamp were tuned for.
+    @Override
+    public double getNaturalTimeStep(){
+        if(integrator == INTEGRATOR.EXPLICIT || !hasRates) return Simulator.TIME_CONST;
+        return Simulator.NATURAL_STEP_FRACTION * Math.max(Math.abs(rads), 1) / Math.abs(radsRate);
+    }
+
+    //A fraction of the wire's thermal time constant, C / (h * A).
+    public double getThermalTimeStep(){
+        double wireSurfaceArea = (wireRadius * 2 * Simulator.PI) * wireLength;
+        double heatCapacity = wireMass * coil.getWire().getMaterial().getMaterialType().getSpecificHeat();
+        return Simulator.NATURAL_STEP_FRACTION * heatCapacity / (Simulator.SOLID_AIR_THERMAL_CONDUCTIVITY * wireSurfaceArea);
+    }
+
+    @Override
+    public void writeState(Checkpoint checkpoint) throws IOException {
+        DataOutputStream output = checkpoint.getOutput();
+        output.writeByte(state.ordinal());
+        output.writeDouble(inpVoltage);
+        output.writeDouble(backEmf);
+        output.writeDouble(torque);
+        output.writeDouble(current);
+        output.writeDouble(rpm);
+        output.writeDouble(rads);
+        output.writeDouble(radAngle);
+        output.writeDouble(wireTemperature);
+        output.writeDouble(frictionTime);
+        output.writeDouble(frictionFactor);
+        output.writeDouble(radsRate);
+        output.writeDouble(wireTemperatureRate);
+        output.writeBoolean(hasRates);
+        output.writeDouble(stepError);
+        output.writeDouble(wireHeat);
+        output.writeDouble(wireHeatTime);
+    }
+
+    @Override
+    public void readState(Checkpoint checkpoint) throws IOException {
+        DataInputStream input = checkpoint.getInput();
+        state = STATE.values()[input.readUnsignedByte()];
+        inpVoltage = input.readDouble();
+        backEmf = input.readDouble();
+        torque = input.readDouble();
+        current = input.readDouble();
+        rpm = input.readDouble();
+        rads = input.readDouble();
+        radAngle = input.readDouble();
+        wireTemperature = input.readDouble();
+        frictionTime = input.readDouble();
+        frictionFactor = input.readDouble();
+        radsRate = input.readDouble();
+        wireTemperatureRate = input.readDouble();
+        hasRates = input.readBoolean();
+        stepError = input.readDouble();
+        wireHeat = input.readDouble();
+        wireHeatTime = input.readDouble();
     }
 
     public void killMotor(boolean external){
@@ -99,12 +212,65 @@ public class Motor implements Machine{
         inpVoltage = maxVoltage;
     }
 
-    public void calculateMotor(){
+    public void calculateMotor(double time){
+        if(integrator == INTEGRATOR.SEMI_IMPLICIT){
+            calculateMotorSemiImplicit(time);
+        }else{
+            calculateCurrent();
+            if(thermalSubCycling){
+                calculateWireHeat(time);
+            }else{
+                calculateWireTemperature(time);
+            }
+            calculateTorque();
+            calculateSpeed(time);
+            calculateBackEmf();
+        }
+        outputValue.advanceTorque(time);
+    }
+
+    //Speed and wire temperature are taken implicitly in the terms that make the explicit step stiff: the back emf and friction acting on the speed,
+    //and the heat lost from the wire. The load torque is taken from the start of the step and the resistive heating from the current at the new speed,
+    //so each update is a single division.
+    //Friction is the continuous rate matching ROTOR_FRICTION per TIME_CONST, and the speed settles on its steady value without needing the maxRads clamp.
+    public void calculateMotorSemiImplicit(double time){
+        double motorConstant = magneticField * coilArea * turns;
+        double driveTorque = motorConstant * inpVoltage / resistance;
+        double dampingRate = (motorConstant * motorConstant) / (resistance * rotorMoment) + ROTOR_FRICTION_RATE;
+        rads = (rads + ((driveTorque - outputValue.getTorque()) / rotorMoment) * time) / (1 + dampingRate * time);
+        radAngle += rads * time;
+        outputValue.setAngularVelocity(rads);
+        rpm = rads * Simulator.RADS_TO_RPM;
+
+        calculateBackEmf();
         calculateCurrent();
-        calculateWireTemperature();
         calculateTorque();
-        calculateSpeed();
-        calculateBackEmf();
+
+        if(thermalSubCycling){
+            calculateWireHeat(time);
+        }else{
+            calculateWireTemperatureImplicit(current * current * resistance, time);
+        }
+    }
+
+    //Wire temperature with the heat loss taken at the end of the step, for a constant heating power.
+    public void calculateWireTemperatureImplicit(double heatPower, double time){
+        double wireSurfaceArea = (wireRadius * 2 * Simulator.PI) * wireLength;
+        double heatCapacity = wireMass * coil.getWire().getMaterial().getMaterialType().getSpecificHeat();
+        double heatLossRate = (Simulator.SOLID_AIR_THERMAL_CONDUCTIVITY * wireSurfaceArea) / heatCapacity;
+        double heatRate = heatPower / heatCapacity;
+        wireTemperature = (wireTemperature + (heatRate + heatLossRate * ambientTemperature) * time) / (1 + heatLossRate * time);
+    }
+
+    //Adds up the resistive heat of this step and advances the wire temperature once a thermal step has built up.
+    public void calculateWireHeat(double time){
+        wireHeat += current * current * resistance * time;
+        wireHeatTime += time;
+        if(wireHeatTime >= getThermalTimeStep()){
+            calculateWireTemperatureImplicit(wireHeat / wireHeatTime, wireHeatTime);
+            wireHeat = 0;
+            wireHeatTime = 0;
+        }
     }
 
     public void calculateCurrent(){
@@ -123,14 +289,58 @@ public class Motor implements Machine{
         return turns * calculateMaxCurrent() * coilArea * magneticField;
     }
 
-    public void calculateWireTemperature(){
-        double heat = current * current * resistance * Simulator.TIME_CONST;
+    public void calculateWireTemperature(double time){
+        double heat = current * current * resistance * time;
         double wireSurfaceArea = (wireRadius * 2 * Simulator.PI) * wireLength;
-        double heatLoss = (Simulator.SOLID_AIR_THERMAL_CONDUCTIVITY * wireSurfaceArea * (wireTemperature - ambientTemperature)) * Simulator.TIME_CONST;
+        double heatLoss = (Simulator.SOLID_AIR_THERMAL_CONDUCTIVITY * wireSurfaceArea * (wireTemperature - ambientTemperature)) * time;
         double specificHeat = coil.getWire().getMaterial().getMaterialType().getSpecificHeat();
         wireTemperature += (heat - heatLoss)/(wireMass * specificHeat);
     }
 
+    //Rate of change of the wire temperature at a given speed, from resistive heating less the heat lost to the surrounding air.
+    public double calculateWireTemperatureRate(double rads, double wireTemperature){
+        double current = (inpVoltage - magneticField * coilArea * turns * rads) / resistance;
+        double wireSurfaceArea = (wireRadius * 2 * Simulator.PI) * wireLength;
+        double heatLoss = Simulator.SOLID_AIR_THERMAL_CONDUCTIVITY * wireSurfaceArea * (wireTemperature - ambientTemperature);
+        double specificHeat = coil.getWire().getMaterial().getMaterialType().getSpecificHeat();
+        return (current * current * resistance - heatLoss) / (wireMass * specificHeat);
+    }
+
+    //Speed at which a step under a constant load torque leaves the speed unchanged, with drive torque from the back emf balancing load and friction.
+    public double calculateSteadyRads(double loadTorque, double time){
+        double motorConstant = magneticField * coilArea * turns;
+        if(integrator == INTEGRATOR.SEMI_IMPLICIT){
+            return (motorConstant * inpVoltage / resistance - loadTorque) / ((motorConstant * motorConstant) / resistance + ROTOR_FRICTION_RATE * rotorMoment);
+        }
+        double frictionFactor = calculateFrictionFactor(time);
+        double accelerationRate = frictionFactor * time / rotorMoment;
+        return accelerationRate * (motorConstant * inpVoltage / resistance - loadTorque) / (1 - frictionFactor + accelerationRate * motorConstant * motorConstant / resistance);
+    }
+
+    //True when the motor is running at its steady speed for the current shaft load.
+    public boolean isSteady(double tolerance){
+        if(state != STATE.RUNNING || wireTemperature > WIRE_TEMPERATURE_RATING) return false;
+        double steadyRads = calculateSteadyRads(outputValue.getTorque(), Simulator.TIME_CONST);
+        return steadyRads < maxRads && Math.abs(rads - steadyRads) <= tolerance * Math.abs(steadyRads);
+    }
+
+    //Puts the motor in the state a run of steps at steady speed ends in, having turned through the given angle.
+    public void setSteadyState(double rads, double wireTemperature, double angle){
+        this.rads = rads;
+        this.wireTemperature = wireTemperature;
+        radAngle += angle;
+        calculateBackEmf();
+        calculateCurrent();
+        calculateTorque();
+        outputValue.setAngularVelocity(rads);
+        rpm = rads * Simulator.RADS_TO_RPM;
+        hasRates = false;
+    }
+
+    public double getWireTemperatureRating() {
+        return WIRE_TEMPERATURE_RATING;
+    }
+
     public void calculateRotorMoment(){
         rotorMoment = rotor.getMoment();
     }
@@ -139,31 +349,27 @@ public class Motor implements Machine{
         torque = turns * current * coilArea * magneticField;
     }
 
-    public void calculateSpeed(){
+    public void calculateSpeed(double time){
         double angularAccel = (torque - outputValue.getTorque()) / rotorMoment;
-        rads += angularAccel * Simulator.TIME_CONST;
+        rads += angularAccel * time;
         if(rads > maxRads) rads = maxRads;
-        rads *= ROTOR_FRICTION;
-        radAngle += rads * Simulator.TIME_CONST;
+        rads *= calculateFrictionFactor(time);
+        radAngle += rads * time;
         outputValue.setAngularVelocity(rads);
         rpm = rads * Simulator.RADS_TO_RPM;
     }
 
-    public void calculateBackEmf(){
-        backEmf = magneticField * coilArea * turns * rads;
+    //ROTOR_FRICTION is the speed retained per TIME_CONST, so other step sizes retain ROTOR_FRICTION^(time / TIME_CONST).
+    public double calculateFrictionFactor(double time){
+        if(time != frictionTime){
+            frictionFactor = Math.pow(ROTOR_FRICTION, time / Simulator.TIME_CONST);
+            frictionTime = time;
+        }
+        return frictionFactor;
     }
 
-    public void drawMotor(Graphics g, int xPos, int yPos, int scale){
-        double coilRadius = Math.sqrt(coilArea);
-        double scaledMotorRadius = coilRadius * scale;
-        int tempCol = (int)Math.min((wireTemperature - Simulator.AMBIENT_TEMP) * (255/(WIRE_TEMPERATURE_RATING - Simulator.AMBIENT_TEMP)),255);
-        GraphicsHelper.drawCircle(g, xPos, yPos, (int)scaledMotorRadius);
-        GraphicsHelper.fillCircle(g, xPos, yPos, (int)scaledMotorRadius - 1, new Color(255, 255 - tempCol, 255 - tempCol));
-        g.drawLine(xPos,yPos,(int)(Math.cos(radAngle) * scaledMotorRadius) + xPos, (int)(Math.sin(radAngle) * scaledMotorRadius) + yPos);
-        g.drawString((float)rpm + " RPM", xPos - (int)scaledMotorRadius, (yPos - (int)scaledMotorRadius) - 60);
-        g.drawString("Temperature " + (float)(wireTemperature - 273.13) + " C", xPos - (int)scaledMotorRadius, (yPos - (int)scaledMotorRadius) - 45);
-        g.drawString("Torque " + (float)torque + " Nm", xPos - (int)scaledMotorRadius, (yPos - (int)scaledMotorRadius) - 30);
-        g.drawString("Back Emf " + (float)backEmf + " V", xPos - (int)scaledMotorRadius, (yPos - (int)scaledMotorRadius) - 15);
+    public void calculateBackEmf(){
+        backEmf = magneticField * coilArea * turns * rads;
     }
 
     public void displayMotorInfo(double seconds){
@@ -339,6 +545,28 @@ public class Motor implements Machine{
         this.state = state;
     }
 
+    public boolean isThermalSubCycling() {
+        return thermalSubCycling;
+    }
+
+    //Turning sub-cycling off applies any heat still building up. Turning it on keeps what has built up, so a restored run carries on where it was saved.
+    public void setThermalSubCycling(boolean thermalSubCycling) {
+        if(!thermalSubCycling && wireHeatTime > 0){
+            calculateWireTemperatureImplicit(wireHeat / wireHeatTime, wireHeatTime);
+            wireHeat = 0;
+            wireHeatTime = 0;
+        }
+        this.thermalSubCycling = thermalSubCycling;
+    }
+
+    public INTEGRATOR getIntegrator() {
+        return integrator;
+    }
+
+    public void setIntegrator(INTEGRATOR integrator) {
+        this.integrator = integrator;
+    }
+
     public Coil getCoil() {
         return coil;
     }
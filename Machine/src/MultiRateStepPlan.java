@@ -0,0 +1,58 @@
+import java.util.List;
+
+//Steps each machine on its own clock. After every step a machine is given a cycle of ticks from its natural time step,
+//rounded down to a power of two and capped at MAX_CYCLE_TICKS, and is stepped once over the whole cycle.
+//Machines waiting on events stay on the base tick, while slow thermal and compression dynamics are super-cycled.
+//Motors run their wire temperature on a slower clock of its own, and shafts interpolate the load torque between compressor steps.
+//Cycles never run past the end of a batch, so every machine is at the same time when runTicks returns.
+public class MultiRateStepPlan {
+    private static final long MAX_CYCLE_TICKS = 1024;
+
+    private Machine[] machines;
+    private long[] nextTicks;
+    private long tick;
+    private long machineSteps;
+
+    public MultiRateStepPlan(List<Machine> machineList) {
+        machines = machineList.toArray(new Machine[0]);
+        nextTicks = new long[machines.length];
+    }
+
+    public void setMultiRate(boolean multiRate){
+        for(Machine machine : machines){
+            if(machine instanceof Motor){
+                Motor motor = (Motor)machine;
+                motor.setThermalSubCycling(multiRate);
+                if(motor.getOutputValue() != null) motor.getOutputValue().setInterpolated(multiRate);
+            }
+        }
+    }
+
+    public void runTicks(long ticks){
+        long endTick = tick + ticks;
+        while(tick < endTick){
+            long nextTick = endTick;
+            for(int i=0;i<machines.length;i++){
+                if(nextTicks[i] <= tick){
+                    long cycleTicks = Math.min(calculateCycleTicks(machines[i].getNaturalTimeStep()), endTick - tick);
+                    machines[i].stepMachine(cycleTicks * Simulator.TIME_CONST);
+                    nextTicks[i] = tick + cycleTicks;
+                    machineSteps++;
+                }
+                nextTick = Math.min(nextTick, nextTicks[i]);
+            }
+            tick = nextTick;
+        }
+    }
+
+    public static long calculateCycleTicks(double naturalTimeStep){
+        double ticks = naturalTimeStep / Simulator.TIME_CONST;
+        if(!(ticks >= 2)) return 1;
+        if(ticks >= MAX_CYCLE_TICKS) return MAX_CYCLE_TICKS;
+        return Long.highestOneBit((long)ticks);
+    }
+
+    public long getMachineSteps() {
+        return machineSteps;
+    }
+}
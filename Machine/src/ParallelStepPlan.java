@@ -0,0 +1,56 @@
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//Steps the independent components of a plant on a ForkJoinPool. Components share no chamber, pipe or shaft,
+//so running each one for the whole batch of ticks on its own gives the same results as stepping them together.
+public class ParallelStepPlan {
+    private StepPlan[] componentPlans;
+    private ForkJoinPool pool;
+
+    public ParallelStepPlan(PlantGraph plantGraph, ForkJoinPool pool) {
+        this.pool = pool;
+
+        List<List<Machine>> components = plantGraph.getComponents();
+        componentPlans = new StepPlan[components.size()];
+        for(int i=0;i<componentPlans.length;i++){
+            componentPlans[i] = new StepPlan(components.get(i));
+        }
+    }
+
+    public void runTicks(long ticks){
+        if(componentPlans.length == 1){
+            componentPlans[0].runTicks(ticks);
+        }else if(componentPlans.length > 1){
+            pool.invoke(new ComponentTask(componentPlans, 0, componentPlans.length, ticks));
+        }
+    }
+
+    public int getComponentCount() {
+        return componentPlans.length;
+    }
+
+    private static class ComponentTask extends RecursiveAction {
+        private StepPlan[] plans;
+        private int start;
+        private int end;
+        private long ticks;
+
+        public ComponentTask(StepPlan[] plans, int start, int end, long ticks) {
+            this.plans = plans;
+            this.start = start;
+            this.end = end;
+            this.ticks = ticks;
+        }
+
+        @Override
+        protected void compute(){
+            if(end - start == 1){
+                plans[start].runTicks(ticks);
+            }else{
+                int middle = (start + end) >>> 1;
+                invokeAll(new ComponentTask(plans, start, middle, ticks), new ComponentTask(plans, middle, end, ticks));
+            }
+        }
+    }
+}
@@ -0,0 +1,339 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+//Runs one plant file over many parameter configurations, each in its own Simulator, across a ForkJoinPool.
+//A configuration sets plant fields through PlantLoader overrides, so any constructor argument a plant file has can be swept:
+//battery voltage, wire radius, compressor piston area, pipe length, heat exchanger coolant volume, expander capacity and so on.
+//Simulators share no state, so runs need no locking. The runs are split in halves down to single runs, and idle workers steal halves,
+//which keeps every core busy even though configurations take very different times to simulate.
+public class ParameterSweep {
+    private static final int DEFAULT_TOP = 10;
+    private static final double DEFAULT_CHECK_INTERVAL = 1;
+
+    public interface Metric {
+        double measure(Simulator simulator);
+    }
+
+    private String plantText;
+    private String source;
+    private List<SweepParameter> parameters = new ArrayList<>();
+    private List<String> metricNames = new ArrayList<>();
+    private List<Metric> metrics = new ArrayList<>();
+    private List<Supplier<StopRule>> stopRules = new ArrayList<>();
+    private double checkInterval = DEFAULT_CHECK_INTERVAL;
+    private double runTime;
+    private Simulator.EXECUTION_MODE executionMode = Simulator.EXECUTION_MODE.SEQUENTIAL;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    public ParameterSweep(String plantText, String source, double runTime) {
+        this.plantText = plantText;
+        this.source = source;
+        this.runTime = runTime;
+    }
+
+    public static ParameterSweep load(Path plantPath, double runTime) throws IOException {
+        return new ParameterSweep(Files.readString(plantPath, StandardCharsets.UTF_8), plantPath.toString(), runTime);
+    }
+
+    public void addParameter(SweepParameter parameter){
+        parameters.add(parameter);
+    }
+
+    public void addMetric(String name, Metric metric){
+        metricNames.add(name);
+        metrics.add(metric);
+    }
+
+    //Metrics for plants built like the demo plant, found through the Simulator fields its components fill.
+    public void addStandardMetrics(){
+        addMetric("liquidPerHour", s -> getLiquidMass(s) * 3600 / s.getSimulatedTime());
+        addMetric("liquidMass", ParameterSweep::getLiquidMass);
+        addMetric("wireTemperature", s -> s.getMotor() == null ? Double.NaN : s.getMotor().getWireTemperature());
+        addMetric("compressorPressure", s -> s.getCompressor() == null ? Double.NaN : s.getCompressor().getPressure());
+    }
+
+    //Each run gets its own rule from the factory.
+    public void addStopRule(Supplier<StopRule> stopRule){
+        stopRules.add(stopRule);
+    }
+
+    public void addStandardStopRules(){
+        addStopRule(StopRule::motorOverheated);
+        addStopRule(StopRule::compressorStuck);
+        addStopRule(StopRule::pipeOverPressure);
+    }
+
+    public static double getLiquidMass(Simulator simulator){
+        Chamber chamber = simulator.getExpanderOutputLiquidChamber();
+        if(chamber == null) return Double.NaN;
+        return chamber.getContents() == null ? 0 : chamber.getContents().getMass();
+    }
+
+    //Every combination of the parameters' grid values, the last parameter varying fastest.
+    public List<SweepRun> createGrid(){
+        int count = 1;
+        double[][] gridValues = new double[parameters.size()][];
+        for(int i=0;i<gridValues.length;i++){
+            gridValues[i] = parameters.get(i).getGridValues();
+            count = Math.multiplyExact(count, gridValues[i].length);
+        }
+        List<SweepRun> runs = new ArrayList<>(count);
+        for(int index=0;index<count;index++){
+            double[] values = new double[gridValues.length];
+            int remainder = index;
+            for(int i=gridValues.length-1;i>=0;i--){
+                values[i] = gridValues[i][remainder % gridValues[i].length];
+                remainder /= gridValues[i].length;
+            }
+            runs.add(new SweepRun(index, values));
+        }
+        return runs;
+    }
+
+    //Latin hypercube samples: each parameter's range is cut into as many strata as there are samples,
+    //and every stratum of every parameter is used exactly once, in an order shuffled independently per parameter.
+    public List<SweepRun> createLatinHypercube(int samples, long seed){
+        Random random = new Random(seed);
+        int[][] strata = new int[parameters.size()][samples];
+        for(int[] order : strata){
+            for(int i=0;i<samples;i++){
+                order[i] = i;
+            }
+            for(int i=samples-1;i>0;i--){
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+        }
+        List<SweepRun> runs = new ArrayList<>(samples);
+        for(int index=0;index<samples;index++){
+            double[] values = new double[parameters.size()];
+            for(int i=0;i<values.length;i++){
+                values[i] = parameters.get(i).getValue((strata[i][index] + random.nextDouble()) / samples);
+            }
+            runs.add(new SweepRun(index, values));
+        }
+        return runs;
+    }
+
+    public SweepResults run(List<SweepRun> runs){
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long start = System.nanoTime();
+        try{
+            forEach(pool, runs, this::runToEnd);
+        }finally{
+            pool.shutdown();
+        }
+        return new SweepResults(getParameterNames(), metricNames, runs, System.nanoTime() - start);
+    }
+
+    //Applies the action to every run on the pool and waits for them all.
+    public static void forEach(ForkJoinPool pool, List<SweepRun> runs, Consumer<SweepRun> action){
+        if(!runs.isEmpty()){
+            pool.invoke(new RunTask(runs, 0, runs.size(), action));
+        }
+    }
+
+    //Builds the run's simulator from the plant file with the run's values as overrides. Returns false when the plant is rejected.
+    public boolean start(SweepRun run){
+        Map<String, String> overrides = new HashMap<>();
+        double[] values = run.getValues();
+        for(int i=0;i<values.length;i++){
+            overrides.put(parameters.get(i).getName(), Double.toString(values[i]));
+        }
+        return start(run, overrides);
+    }
+
+    //Builds the run's simulator from the plant file with the given overrides, in place of the sweep parameters.
+    public boolean start(SweepRun run, Map<String, String> overrides){
+        try{
+            Simulator simulator = new Simulator(PlantLoader.load(new StringReader(plantText), source, overrides));
+            simulator.setExecutionMode(executionMode);
+            run.setSimulator(simulator);
+            run.addStopRules(stopRules);
+            return true;
+        }catch(IOException e){
+            run.fail(e.getMessage());
+            return false;
+        }
+    }
+
+    //Runs on to the given simulated time, starting the run first if it has no simulator, and measures it.
+    //A simulation that throws fails the run rather than the sweep.
+    public void runTo(SweepRun run, double endTime){
+        if(run.getSimulator() == null && !start(run)) return;
+        try{
+            run.advance(endTime, checkInterval);
+        }catch(RuntimeException e){
+            run.fail(e.toString());
+            return;
+        }
+        run.measure(metrics);
+    }
+
+    //Runs a configuration to the end, or until a stop rule ends it, and lets its simulator go.
+    public void runToEnd(SweepRun run){
+        runTo(run, runTime);
+        run.release();
+    }
+
+    private static class RunTask extends RecursiveAction {
+        private List<SweepRun> runs;
+        private int start;
+        private int end;
+        private Consumer<SweepRun> action;
+
+        public RunTask(List<SweepRun> runs, int start, int end, Consumer<SweepRun> action) {
+            this.runs = runs;
+            this.start = start;
+            this.end = end;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute(){
+            if(end - start == 1){
+                action.accept(runs.get(start));
+            }else{
+                int middle = (start + end) >>> 1;
+                invokeAll(new RunTask(runs, start, middle, action), new RunTask(runs, middle, end, action));
+            }
+        }
+    }
+
+    public List<String> getParameterNames(){
+        List<String> names = new ArrayList<>();
+        for(SweepParameter parameter : parameters){
+            names.add(parameter.getName());
+        }
+        return names;
+    }
+
+    public List<SweepParameter> getParameters() {
+        return parameters;
+    }
+
+    public List<String> getMetricNames() {
+        return metricNames;
+    }
+
+    public List<Metric> getMetrics() {
+        return metrics;
+    }
+
+    public List<Supplier<StopRule>> getStopRules() {
+        return stopRules;
+    }
+
+    public double getCheckInterval() {
+        return checkInterval;
+    }
+
+    public void setCheckInterval(double checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+
+    public double getRunTime() {
+        return runTime;
+    }
+
+    public void setRunTime(double runTime) {
+        this.runTime = runTime;
+    }
+
+    public Simulator.EXECUTION_MODE getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(Simulator.EXECUTION_MODE executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    //Usage: ParameterSweep plantFile runTime --param=name=values... [--samples=n] [--seed=n] [--threads=n] [--mode=EXECUTION_MODE]
+    //                      [--stop] [--check=seconds] [--halving=minTime] [--eta=n] [--sort=metric] [--top=n] [--csv=file]
+    //Without --samples every combination of the parameters is run. With it, that many Latin hypercube samples are.
+    //--stop ends runs early on the standard stop rules, checked every --check seconds of simulated time.
+    //--halving gives every run minTime first and then only the best 1/eta of them, by the --sort metric, eta times more each rung.
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2){
+            System.out.println("Usage: ParameterSweep plantFile runTime --param=name=values... [--samples=n] [--seed=n] [--threads=n] [--mode=EXECUTION_MODE] [--stop] [--check=seconds] [--halving=minTime] [--eta=n] [--sort=metric] [--top=n] [--csv=file]");
+            return;
+        }
+        ParameterSweep sweep = load(Path.of(args[0]), Double.parseDouble(args[1]));
+        sweep.addStandardMetrics();
+        int samples = 0;
+        long seed = 1;
+        String sortMetric = "liquidPerHour";
+        int top = DEFAULT_TOP;
+        String csvPath = null;
+        double halvingTime = 0;
+        int eta = SuccessiveHalving.DEFAULT_ETA;
+        for(int i=2;i<args.length;i++){
+            String arg = args[i];
+            if(arg.startsWith("--param=")){
+                sweep.addParameter(SweepParameter.parse(arg.substring("--param=".length())));
+            }else if(arg.startsWith("--samples=")){
+                samples = Integer.parseInt(arg.substring("--samples=".length()));
+            }else if(arg.startsWith("--seed=")){
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            }else if(arg.startsWith("--threads=")){
+                sweep.setParallelism(Integer.parseInt(arg.substring("--threads=".length())));
+            }else if(arg.startsWith("--mode=")){
+                sweep.setExecutionMode(Simulator.EXECUTION_MODE.valueOf(arg.substring("--mode=".length())));
+            }else if(arg.equals("--stop")){
+                sweep.addStandardStopRules();
+            }else if(arg.startsWith("--check=")){
+                sweep.setCheckInterval(Double.parseDouble(arg.substring("--check=".length())));
+            }else if(arg.startsWith("--halving=")){
+                halvingTime = Double.parseDouble(arg.substring("--halving=".length()));
+            }else if(arg.startsWith("--eta=")){
+                eta = Integer.parseInt(arg.substring("--eta=".length()));
+            }else if(arg.startsWith("--sort=")){
+                sortMetric = arg.substring("--sort=".length());
+            }else if(arg.startsWith("--top=")){
+                top = Integer.parseInt(arg.substring("--top=".length()));
+            }else if(arg.startsWith("--csv=")){
+                csvPath = arg.substring("--csv=".length());
+            }else{
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        List<SweepRun> runs = samples > 0 ? sweep.createLatinHypercube(samples, seed) : sweep.createGrid();
+        System.out.println("Sweeping " + runs.size() + " configurations of " + sweep.getRunTime() + " s on " + sweep.getParallelism() + " threads");
+        SweepResults results;
+        if(halvingTime > 0){
+            SuccessiveHalving halving = new SuccessiveHalving(sweep, halvingTime, sortMetric);
+            halving.setEta(eta);
+            results = halving.run(runs);
+            System.out.println("Runs per rung: " + halving.getRungSizes());
+        }else{
+            results = sweep.run(runs);
+        }
+        results.print(System.out, sortMetric, top);
+        if(csvPath != null){
+            results.writeCsv(Path.of(csvPath));
+        }
+    }
+}
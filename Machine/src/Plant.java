@@ -0,0 +1,54 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//A plant built by PlantLoader: its material types, its machines in step order, and every named component.
+public class Plant {
+    private List<MaterialType> materialTypes = new ArrayList<>();
+    private Map<String, MaterialType> materialTypesByName = new HashMap<>();
+    private List<Machine> machines = new ArrayList<>();
+    private List<String> machineNames = new ArrayList<>();
+    private Map<String, Object> components = new HashMap<>();
+
+    public void addMaterialType(MaterialType materialType){
+        materialTypes.add(materialType);
+        materialTypesByName.put(materialType.getName(), materialType);
+    }
+
+    public void addComponent(String name, Object component){
+        components.put(name, component);
+    }
+
+    public void addMachine(String name, Machine machine){
+        machines.add(machine);
+        machineNames.add(name);
+        components.put(name, machine);
+    }
+
+    public MaterialType getMaterialType(String name){
+        return materialTypesByName.get(name);
+    }
+
+    //Returns the component with the given name, or null when there is none of that type.
+    public <T> T get(String name, Class<T> type){
+        Object component = components.get(name);
+        return type.isInstance(component) ? type.cast(component) : null;
+    }
+
+    public List<MaterialType> getMaterialTypes() {
+        return materialTypes;
+    }
+
+    public List<Machine> getMachines() {
+        return machines;
+    }
+
+    public List<String> getMachineNames() {
+        return machineNames;
+    }
+
+    public Map<String, Object> getComponents() {
+        return components;
+    }
+}
@@ -0,0 +1,181 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Dependency graph of a plant, built from the chamber, pipe and shaft links of its machines.
+//Machines that share no chamber, pipe or shaft end up in different components and can be stepped independently.
+public class PlantGraph {
+    private List<Machine> machines;
+    private Map<Object, Object> parents = new IdentityHashMap<>();
+    private List<List<Machine>> components;
+    private boolean hasUnknownMachines;
+    private List<Chamber> chambers = new ArrayList<>();
+    private List<RotationalForce> rotationalForces = new ArrayList<>();
+    private Map<Chamber, int[]> transferCounts = new IdentityHashMap<>();
+    private Map<Chamber, List<Machine>> linkedMachines = new IdentityHashMap<>();
+
+    public PlantGraph(List<Machine> machines) {
+        this.machines = machines;
+
+        for(Machine machine : machines){
+            addLinks(machine);
+        }
+        calculateComponents();
+    }
+
+    public void addLinks(Machine machine){
+        find(machine);
+        if(machine instanceof Chamber){
+            Chamber chamber = (Chamber)machine;
+            addChamber(chamber);
+            if(chamber.getOutputChamber() != null){
+                //A forwarding chamber is not one of its own consumers, since its forward only takes what the consumers leave.
+                linkedMachines.get(chamber).add(chamber);
+                linkProducer(chamber, chamber.getOutputChamber());
+                if(chamber.getAlternateOutputChamber() != chamber.getOutputChamber()){
+                    linkProducer(chamber, chamber.getAlternateOutputChamber());
+                }
+            }
+        }else if(machine instanceof Motor){
+            Motor motor = (Motor)machine;
+            linkShaft(motor, motor.getOutputValue());
+        }else if(machine instanceof Compressor){
+            Compressor compressor = (Compressor)machine;
+            linkConsumer(compressor, compressor.getChamber());
+            linkProducer(compressor, compressor.getOutputChamber());
+            linkShaft(compressor, compressor.getInputValue());
+        }else if(machine instanceof HeatExchanger){
+            HeatExchanger heatExchanger = (HeatExchanger)machine;
+            linkConsumer(heatExchanger, heatExchanger.getInputContentChamber());
+            linkConsumer(heatExchanger, heatExchanger.getInputCoolantChamber());
+            linkProducer(heatExchanger, heatExchanger.getOutputContentChamber());
+            linkProducer(heatExchanger, heatExchanger.getOutputCoolantChamber());
+            link(heatExchanger, heatExchanger.getPipe());
+        }else if(machine instanceof Expander){
+            Expander expander = (Expander)machine;
+            linkConsumer(expander, expander.getInputChamber());
+            linkProducer(expander, expander.getOutputGasChamber());
+            linkProducer(expander, expander.getOutputLiquidChamber());
+        }else if(!(machine instanceof Battery)){
+            hasUnknownMachines = true;
+        }
+    }
+
+    public void addChamber(Chamber chamber){
+        if(!transferCounts.containsKey(chamber)){
+            transferCounts.put(chamber, new int[2]);
+            linkedMachines.put(chamber, new ArrayList<>());
+            chambers.add(chamber);
+        }
+    }
+
+    public void linkConsumer(Machine machine, Chamber chamber){
+        if(chamber == null) return;
+        addChamber(chamber);
+        transferCounts.get(chamber)[0]++;
+        linkedMachines.get(chamber).add(machine);
+        link(machine, chamber);
+    }
+
+    public void linkProducer(Machine machine, Chamber chamber){
+        if(chamber == null) return;
+        addChamber(chamber);
+        transferCounts.get(chamber)[1]++;
+        linkedMachines.get(chamber).add(machine);
+        link(machine, chamber);
+    }
+
+    public void linkShaft(Machine machine, RotationalForce rotationalForce){
+        if(rotationalForce == null) return;
+        if(!parents.containsKey(rotationalForce)){
+            rotationalForces.add(rotationalForce);
+        }
+        link(machine, rotationalForce);
+        link(rotationalForce, rotationalForce.getInputMachine());
+        link(rotationalForce, rotationalForce.getOutputMachine());
+    }
+
+    public void link(Object node1, Object node2){
+        if(node1 == null || node2 == null) return;
+        Object root1 = find(node1);
+        Object root2 = find(node2);
+        if(root1 != root2){
+            parents.put(root1, root2);
+        }
+    }
+
+    public Object find(Object node){
+        Object root = node;
+        Object parent = parents.get(root);
+        while(parent != null && parent != root){
+            root = parent;
+            parent = parents.get(root);
+        }
+        if(parent == null){
+            parents.put(root, root);
+        }
+        while(node != root){
+            Object next = parents.get(node);
+            parents.put(node, root);
+            node = next;
+        }
+        return root;
+    }
+
+    //Components keep the machines in list order. Machines of a type whose links are not known are put in one component with everything else.
+    public void calculateComponents(){
+        components = new ArrayList<>();
+        if(hasUnknownMachines){
+            components.add(new ArrayList<>(machines));
+            return;
+        }
+        Map<Object, List<Machine>> componentsByRoot = new IdentityHashMap<>();
+        for(Machine machine : machines){
+            Object root = find(machine);
+            List<Machine> component = componentsByRoot.get(root);
+            if(component == null){
+                component = new ArrayList<>();
+                componentsByRoot.put(root, component);
+                components.add(component);
+            }
+            component.add(machine);
+        }
+    }
+
+    public boolean isConnected(Object node1, Object node2){
+        return find(node1) == find(node2);
+    }
+
+    public int getConsumerCount(Chamber chamber){
+        int[] counts = transferCounts.get(chamber);
+        return counts == null ? 0 : counts[0];
+    }
+
+    public int getProducerCount(Chamber chamber){
+        int[] counts = transferCounts.get(chamber);
+        return counts == null ? 0 : counts[1];
+    }
+
+    //Machines that pull from or push into the chamber, including the chamber itself when it forwards its contents.
+    public List<Machine> getLinkedMachines(Chamber chamber){
+        List<Machine> machines = linkedMachines.get(chamber);
+        return machines == null ? new ArrayList<>() : machines;
+    }
+
+    public List<Chamber> getChambers() {
+        return chambers;
+    }
+
+    public List<RotationalForce> getRotationalForces() {
+        return rotationalForces;
+    }
+
+    public List<List<Machine>> getComponents() {
+        return components;
+    }
+
+    public List<Machine> getMachines() {
+        return machines;
+    }
+}
@@ -0,0 +1,592 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//Builds a Plant from a plant description file.
+//Each line declares one thing: a kind, a name, then key=value fields. Blank lines and anything after # are ignored.
+//  material Nitrogen strength=0 resistivity=100 ...        a material type, referred to by name in material= fields
+//  battery, wire, rotor, magnet, pipe, shaft               parts the machines are built from
+//  chamber, motor, compressor, heatExchanger, expander     machines, stepped in the order they are declared
+//  contents chamber material=Nitrogen mass=1 ...           material put into a chamber before the run starts
+//Links between machines are fields naming another component, and may refer to one declared further down.
+//The whole file is checked before anything is reported, so every unknown field, bad number, dangling link and closed loop
+//comes back in one IOException, each with its line.
+//Overrides replace or add fields by name.field, as in pipe.length=50 or Nitrogen.specificHeat=1100, so one file can be built with many variations.
+//A number override written *factor, as in Copper.resistivity=*1.05, scales the file's value instead.
+public class PlantLoader {
+    private static final int MAX_LOOP_NAMES = 5;
+
+    private Plant plant = new Plant();
+    private List<String> errors = new ArrayList<>();
+    private List<Entry> entries = new ArrayList<>();
+    private Map<String, Entry> entriesByName = new HashMap<>();
+    private Map<Object, Entry> entriesByComponent = new IdentityHashMap<>();
+    private Map<Object, Entry> partOwners = new IdentityHashMap<>();
+    private List<Chamber> chambers = new ArrayList<>();
+    private Map<Chamber, Integer> chamberIndexes = new IdentityHashMap<>();
+    private Map<Chamber, Machine> chamberConsumers = new IdentityHashMap<>();
+    private Map<String, String> overrides;
+    private Set<String> usedOverrides = new HashSet<>();
+
+    //One declaration. Its fields are kept as offsets into the line, three to a field: key start, the '=' and the end,
+    //so a large file is parsed without a string for every key and value.
+    //A field is marked used once it is read, and any left unused are reported as unknown.
+    private static class Entry {
+        String text;
+        String kind;
+        String name;
+        int line;
+        int[] fields;
+        boolean[] used;
+        Object component;
+        boolean skipped;
+
+        int getFieldCount(){
+            return fields.length / 3;
+        }
+
+        String getKey(int field){
+            return text.substring(fields[field * 3], fields[field * 3 + 1]);
+        }
+
+        int findField(String key){
+            for(int i=0;i<fields.length;i+=3){
+                int start = fields[i];
+                if(fields[i + 1] - start == key.length() && text.regionMatches(start, key, 0, key.length())) return i / 3;
+            }
+            return -1;
+        }
+    }
+
+    public static Plant load(Path path) throws IOException {
+        try(BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)){
+            return load(reader, path.toString());
+        }
+    }
+
+    public static Plant load(Reader reader, String source) throws IOException {
+        return load(reader, source, null);
+    }
+
+    public static Plant load(Reader reader, String source, Map<String, String> overrides) throws IOException {
+        PlantLoader loader = new PlantLoader();
+        loader.overrides = overrides;
+        loader.parse(reader instanceof BufferedReader ? (BufferedReader)reader : new BufferedReader(reader));
+        loader.build();
+        if(overrides != null){
+            for(String override : overrides.keySet()){
+                if(!loader.usedOverrides.contains(override)) loader.errors.add("override " + override + " matches no field of the plant");
+            }
+        }
+        if(!loader.errors.isEmpty()){
+            loader.errors.sort(Comparator.comparingInt(PlantLoader::getErrorLine));
+            StringBuilder message = new StringBuilder("Plant " + source + " has " + loader.errors.size() + " errors");
+            for(String error : loader.errors){
+                message.append(System.lineSeparator()).append(error);
+            }
+            throw new IOException(message.toString());
+        }
+        return loader.plant;
+    }
+
+    public void parse(BufferedReader reader) throws IOException {
+        String line;
+        int lineNumber = 0;
+        int[] tokens = new int[64];
+        while((line = reader.readLine()) != null){
+            lineNumber++;
+            int tokenCount = tokenize(line, tokens);
+            if(tokenCount > tokens.length / 2){
+                tokens = new int[tokenCount * 2];
+                tokenize(line, tokens);
+            }
+            if(tokenCount == 0) continue;
+            if(tokenCount < 2){
+                errors.add("line " + lineNumber + ": " + line.substring(tokens[0], tokens[1]) + " has no name");
+                continue;
+            }
+
+            Entry entry = new Entry();
+            entry.text = line;
+            entry.kind = line.substring(tokens[0], tokens[1]);
+            entry.name = line.substring(tokens[2], tokens[3]);
+            entry.line = lineNumber;
+            int fieldCount = tokenCount - 2;
+            entry.fields = new int[fieldCount * 3];
+            entry.used = new boolean[fieldCount];
+            for(int i=0;i<fieldCount;i++){
+                int start = tokens[(i + 2) * 2];
+                int end = tokens[(i + 2) * 2 + 1];
+                int split = line.indexOf('=', start);
+                if(split <= start || split >= end){
+                    errors.add("line " + lineNumber + ": " + line.substring(start, end) + " is not a key=value field");
+                    split = end;
+                    entry.used[i] = true;
+                }
+                entry.fields[i * 3] = start;
+                entry.fields[i * 3 + 1] = split;
+                entry.fields[i * 3 + 2] = end;
+            }
+            entries.add(entry);
+        }
+    }
+
+    //Finds the whitespace separated tokens before any comment, storing the start and end of each in pairs, as many as fit.
+    //Returns the number of tokens.
+    public static int tokenize(String line, int[] tokens){
+        int end = line.indexOf('#');
+        if(end < 0) end = line.length();
+        int count = 0;
+        int i = 0;
+        while(i < end){
+            while(i < end && Character.isWhitespace(line.charAt(i))) i++;
+            int start = i;
+            while(i < end && !Character.isWhitespace(line.charAt(i))) i++;
+            if(i > start){
+                if(count * 2 + 1 < tokens.length){
+                    tokens[count * 2] = start;
+                    tokens[count * 2 + 1] = i;
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    //Builds in dependency order: material types, then parts, then machines in file order, then the links and contents,
+    //so a link may name a component declared anywhere in the file.
+    public void build(){
+        for(Entry entry : entries){
+            if(entry.kind.equals("material")){
+                buildMaterialType(entry);
+            }
+        }
+        for(Entry entry : entries){
+            if(entry.kind.equals("material") || entry.kind.equals("contents")) continue;
+            if(entriesByName.containsKey(entry.name)){
+                error(entry, "has the same name as line " + entriesByName.get(entry.name).line);
+                entry.skipped = true;
+                continue;
+            }
+            entriesByName.put(entry.name, entry);
+            switch(entry.kind){
+                case "battery": entry.component = new Battery(getNumber(entry, "voltage"), getNumber(entry, "internalResistance")); break;
+                case "wire": case "rotor": case "magnet": case "pipe": entry.component = buildPart(entry); break;
+                case "shaft": entry.component = new RotationalForce(getNumber(entry, "leverArm")); break;
+                case "chamber": entry.component = new Chamber(getNumber(entry, "volume")); break;
+                case "compressor":
+                    entry.component = new Compressor(getNumber(entry, "initialVolume"), getNumber(entry, "initialPressure"), getNumber(entry, "initialTemperature", Simulator.AMBIENT_TEMP),
+                            getNumber(entry, "pistonArea"), getNumber(entry, "pistonMass"), getNumber(entry, "externalPressure", Simulator.AMBIENT_PRESSURE));
+                    break;
+                case "expander":
+                    MaterialType containerType = getMaterialType(entry, "material");
+                    double containerThickness = getNumber(entry, "containerThickness");
+                    double volumeCapacity = getNumber(entry, "volumeCapacity");
+                    if(containerType != null) entry.component = new Expander(containerType, containerThickness, volumeCapacity);
+                    break;
+                case "motor": case "heatExchanger": break;
+                default:
+                    error(entry, "is of unknown kind " + entry.kind);
+                    entry.skipped = true;
+            }
+            if(entry.component instanceof Chamber){
+                chamberIndexes.put((Chamber)entry.component, chambers.size());
+                chambers.add((Chamber)entry.component);
+            }
+        }
+        //Motors and heat exchangers are built from parts, which now all exist.
+        for(Entry entry : entries){
+            if(entry.skipped) continue;
+            if(entry.kind.equals("motor")){
+                Wire wire = getPart(entry, "wire", Wire.class);
+                Magnet magnet = getPart(entry, "magnet", Magnet.class);
+                Rotor rotor = getPart(entry, "rotor", Rotor.class);
+                Battery battery = getReference(entry, "battery", Battery.class, true);
+                double numTurns = getNumber(entry, "numTurns");
+                double coilArea = getNumber(entry, "coilArea");
+                double ambientTemperature = getNumber(entry, "ambientTemperature", Simulator.AMBIENT_TEMP);
+                if(wire != null && magnet != null && rotor != null && battery != null){
+                    entry.component = new Motor(wire, magnet, rotor, battery, numTurns, coilArea, ambientTemperature);
+                }
+            }else if(entry.kind.equals("heatExchanger")){
+                Pipe pipe = getPart(entry, "pipe", Pipe.class);
+                double coolantVolume = getNumber(entry, "coolantVolume");
+                if(pipe != null){
+                    entry.component = new HeatExchanger(pipe, coolantVolume);
+                }
+            }
+        }
+        for(Entry entry : entries){
+            if(entry.component == null || entry.skipped) continue;
+            entriesByComponent.put(entry.component, entry);
+            if(entry.component instanceof Machine && !(entry.component instanceof Battery)){
+                plant.addMachine(entry.name, (Machine)entry.component);
+            }else{
+                plant.addComponent(entry.name, entry.component);
+            }
+        }
+
+        for(Entry entry : entries){
+            if(entry.component != null && !entry.skipped){
+                link(entry);
+            }
+        }
+        for(Entry entry : entries){
+            if(entry.kind.equals("contents")){
+                addContents(entry);
+            }
+        }
+        for(Entry entry : entries){
+            if(entry.component instanceof RotationalForce){
+                RotationalForce rotationalForce = (RotationalForce)entry.component;
+                if(rotationalForce.getInputMachine() == null && rotationalForce.getOutputMachine() == null){
+                    error(entry, "is not attached to any machine");
+                }
+            }
+            for(int i=0;i<entry.getFieldCount() && !entry.skipped;i++){
+                if(!entry.used[i]) error(entry, "has unknown field " + entry.getKey(i));
+            }
+        }
+        findClosedLoops();
+    }
+
+    //Builds a wire, rotor, magnet or pipe, or returns null when its material is not known.
+    public Object buildPart(Entry entry){
+        MaterialType materialType = getMaterialType(entry, "material");
+        if(entry.kind.equals("magnet")){
+            return materialType == null ? null : new Magnet(new Material(materialType));
+        }
+        double radius = entry.kind.equals("pipe") ? getNumber(entry, "diameter") : getNumber(entry, "radius");
+        double thickness = entry.kind.equals("pipe") ? getNumber(entry, "thickness") : 0;
+        double length = getNumber(entry, "length");
+        if(materialType == null) return null;
+        switch(entry.kind){
+            case "wire": return new Wire(new Material(materialType), radius, length);
+            case "rotor": return new Rotor(new Material(materialType), radius, length);
+            default: return new Pipe(new Material(materialType), radius, thickness, length);
+        }
+    }
+
+    public void buildMaterialType(Entry entry){
+        if(plant.getMaterialType(entry.name) != null){
+            error(entry, "is declared twice");
+            entry.skipped = true;
+            return;
+        }
+        plant.addMaterialType(new MaterialType(entry.name, getNumber(entry, "strength"), getNumber(entry, "resistivity"), getNumber(entry, "specificHeat"),
+                getNumber(entry, "gasDensity"), getNumber(entry, "liquidDensity"), getNumber(entry, "solidDensity"), getNumber(entry, "thermalConductivity"),
+                getNumber(entry, "boilingPoint"), getNumber(entry, "meltingPoint"), getNumber(entry, "magnetism"), getNumber(entry, "expansionRatio"),
+                getNumber(entry, "latentHeatFusion"), getNumber(entry, "latentHeatVaporization")));
+    }
+
+    //Sets the links named in the machine's fields. Required links that are missing or name nothing are dangling.
+    public void link(Entry entry){
+        Object component = entry.component;
+        if(component instanceof Chamber){
+            Chamber chamber = (Chamber)component;
+            Chamber output = getReference(entry, "output", Chamber.class, false);
+            Chamber alternateOutput = getReference(entry, "alternateOutput", Chamber.class, false);
+            if(output == chamber || alternateOutput == chamber){
+                error(entry, "forwards into itself");
+            }
+            if(alternateOutput != null && output == null && !hasField(entry, "output")){
+                error(entry, "has an alternateOutput but no output");
+            }
+            chamber.setOutputChamber(output);
+            chamber.setAlternateOutputChamber(alternateOutput);
+        }else if(component instanceof Motor){
+            Motor motor = (Motor)component;
+            RotationalForce rotationalForce = getReference(entry, "shaft", RotationalForce.class, true);
+            if(rotationalForce == null) return;
+            if(rotationalForce.getInputMachine() != null){
+                error(entry, "drives shaft " + getField(entry, "shaft") + ", which " + entriesByComponent.get(rotationalForce.getInputMachine()).name + " already drives");
+                return;
+            }
+            motor.setOutputValue(rotationalForce);
+            rotationalForce.setInputMachine(motor);
+        }else if(component instanceof Compressor){
+            Compressor compressor = (Compressor)component;
+            Chamber input = getReference(entry, "input", Chamber.class, true);
+            Chamber output = getReference(entry, "output", Chamber.class, true);
+            RotationalForce rotationalForce = getReference(entry, "shaft", RotationalForce.class, true);
+            if(input != null && input == output) error(entry, "takes from and delivers to the same chamber");
+            compressor.setChamber(input);
+            compressor.setOutputChamber(output);
+            addConsumer(input, compressor);
+            if(rotationalForce == null) return;
+            if(rotationalForce.getOutputMachine() != null){
+                error(entry, "is driven by shaft " + getField(entry, "shaft") + ", which already drives " + entriesByComponent.get(rotationalForce.getOutputMachine()).name);
+                return;
+            }
+            compressor.setInputValue(rotationalForce);
+            rotationalForce.setOutputMachine(compressor);
+        }else if(component instanceof HeatExchanger){
+            HeatExchanger heatExchanger = (HeatExchanger)component;
+            Chamber input = getReference(entry, "input", Chamber.class, true);
+            Chamber output = getReference(entry, "output", Chamber.class, true);
+            Chamber coolantInput = getReference(entry, "coolantInput", Chamber.class, true);
+            Chamber coolantOutput = getReference(entry, "coolantOutput", Chamber.class, true);
+            if(input != null && input == output) error(entry, "takes from and delivers to the same chamber");
+            if(coolantInput != null && coolantInput == coolantOutput) error(entry, "takes coolant from and delivers it to the same chamber");
+            heatExchanger.setInputContentChamber(input);
+            heatExchanger.setOutputContentChamber(output);
+            heatExchanger.setInputCoolantChamber(coolantInput);
+            heatExchanger.setOutputCoolantChamber(coolantOutput);
+            addConsumer(input, heatExchanger);
+            addConsumer(coolantInput, heatExchanger);
+        }else if(component instanceof Expander){
+            Expander expander = (Expander)component;
+            Chamber input = getReference(entry, "input", Chamber.class, true);
+            Chamber gasOutput = getReference(entry, "gasOutput", Chamber.class, true);
+            Chamber liquidOutput = getReference(entry, "liquidOutput", Chamber.class, true);
+            if(input != null && (input == gasOutput || input == liquidOutput)) error(entry, "takes from and delivers to the same chamber");
+            expander.setInputChamber(input);
+            expander.setOutputGasChamber(gasOutput);
+            expander.setOutputLiquidChamber(liquidOutput);
+            addConsumer(input, expander);
+        }
+    }
+
+    public void addConsumer(Chamber chamber, Machine machine){
+        if(chamber != null) chamberConsumers.put(chamber, machine);
+    }
+
+    public void addContents(Entry entry){
+        MaterialType materialType = getMaterialType(entry, "material");
+        double mass = getNumber(entry, "mass");
+        double temperature = getNumber(entry, "temperature", Simulator.AMBIENT_TEMP);
+        double pressure = getNumber(entry, "pressure", Simulator.AMBIENT_PRESSURE);
+        Entry chamberEntry = entriesByName.get(entry.name);
+        if(chamberEntry == null || !(chamberEntry.component instanceof Chamber)){
+            if(chamberEntry == null || chamberEntry.component != null) error(entry, chamberEntry == null ? "names no chamber" : "names a " + chamberEntry.kind + ", not a chamber");
+            return;
+        }
+        if(materialType != null){
+            ((Chamber)chamberEntry.component).addToContents(new Material(materialType, mass, temperature, pressure));
+        }
+    }
+
+    //Finds groups of chambers that forward into each other in a loop nothing ever draws from, so whatever is put in them circulates forever.
+    //Strongly connected components of the forwarding links are found with an iterative Tarjan search, which copes with chains of any length.
+    public void findClosedLoops(){
+        int count = chambers.size();
+        int[] index = new int[count];
+        int[] lowLink = new int[count];
+        int[] edge = new int[count];
+        boolean[] onStack = new boolean[count];
+        int[] stack = new int[count];
+        int[] callStack = new int[count];
+        int[] components = new int[count];
+        Arrays.fill(index, -1);
+        int nextIndex = 0;
+        int componentCount = 0;
+        int stackSize = 0;
+
+        for(int root=0;root<count;root++){
+            if(index[root] >= 0) continue;
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while(depth > 0){
+                int node = callStack[depth - 1];
+                int next = edge[node] < 2 ? getForwardIndex(chambers.get(node), edge[node]++) : -2;
+                if(next == -2){
+                    depth--;
+                    if(depth > 0){
+                        int parent = callStack[depth - 1];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                    }
+                    if(lowLink[node] == index[node]){
+                        int start = stackSize;
+                        do{
+                            start--;
+                            onStack[stack[start]] = false;
+                            components[stack[start]] = componentCount;
+                        }while(stack[start] != node);
+                        checkLoop(stack, start, stackSize, components);
+                        componentCount++;
+                        stackSize = start;
+                    }
+                }else if(next >= 0){
+                    if(index[next] < 0){
+                        index[next] = lowLink[next] = nextIndex++;
+                        stack[stackSize++] = next;
+                        onStack[next] = true;
+                        callStack[depth++] = next;
+                    }else if(onStack[next]){
+                        lowLink[node] = Math.min(lowLink[node], index[next]);
+                    }
+                }
+            }
+        }
+    }
+
+    //Returns the index of the chamber's output or alternate output, or -1 when it has none.
+    public int getForwardIndex(Chamber chamber, int edge){
+        Chamber next = edge == 0 ? chamber.getOutputChamber() : chamber.getAlternateOutputChamber();
+        return next == null ? -1 : chamberIndexes.get(next);
+    }
+
+    //A component of more than one chamber is closed when no chamber in it forwards out of it and no other machine draws from it.
+    public void checkLoop(int[] stack, int start, int end, int[] components){
+        if(end - start < 2) return;
+        int component = components[stack[start]];
+        for(int i=start;i<end;i++){
+            Chamber chamber = chambers.get(stack[i]);
+            if(chamberConsumers.containsKey(chamber)) return;
+            for(int edge=0;edge<2;edge++){
+                int next = getForwardIndex(chamber, edge);
+                if(next >= 0 && components[next] != component) return;
+            }
+        }
+        StringBuilder names = new StringBuilder();
+        for(int i=start;i<end && i-start<MAX_LOOP_NAMES;i++){
+            if(i > start) names.append(", ");
+            names.append(entriesByComponent.get(chambers.get(stack[i])).name);
+        }
+        if(end - start > MAX_LOOP_NAMES) names.append(" and ").append(end - start - MAX_LOOP_NAMES).append(" more");
+        Entry entry = entriesByComponent.get(chambers.get(stack[start]));
+        error(entry, "forwards in a closed loop of " + (end - start) + " chambers nothing draws from: " + names);
+    }
+
+    public double getNumber(Entry entry, String key){
+        return getNumber(entry, key, Double.NaN);
+    }
+
+    //Reads a number field, falling back to the default when there is one. A field without a default is required.
+    //An override written *factor scales the value the file or the default gives instead of replacing it.
+    public double getNumber(Entry entry, String key, double defaultValue){
+        String value = getField(entry, key);
+        double factor = 1;
+        if(value != null && value.startsWith("*")){
+            factor = parseNumber(entry, key, value.substring(1));
+            value = getFileField(entry, key);
+        }
+        if(value == null){
+            if(Double.isNaN(defaultValue)) error(entry, "is missing " + key);
+            return defaultValue * factor;
+        }
+        return parseNumber(entry, key, value) * factor;
+    }
+
+    public double parseNumber(Entry entry, String key, String value){
+        try{
+            return Double.parseDouble(value);
+        }catch(NumberFormatException e){
+            error(entry, "has " + key + "=" + value + ", which is not a number");
+            return Double.NaN;
+        }
+    }
+
+    public MaterialType getMaterialType(Entry entry, String key){
+        String name = getField(entry, key);
+        if(name == null){
+            error(entry, "is missing " + key);
+            return null;
+        }
+        MaterialType materialType = plant.getMaterialType(name);
+        if(materialType == null) error(entry, "has " + key + "=" + name + ", which is not a declared material");
+        return materialType;
+    }
+
+    public <T> T getReference(Entry entry, String key, Class<T> type, boolean required){
+        String name = getField(entry, key);
+        if(name == null){
+            if(required) error(entry, "is missing link " + key);
+            return null;
+        }
+        Entry target = entriesByName.get(name);
+        if(target == null){
+            error(entry, "links " + key + " to " + name + ", which is not declared");
+            return null;
+        }
+        if(!type.isInstance(target.component)){
+            if(target.component != null) error(entry, "links " + key + " to " + name + ", which is a " + target.kind + ", not a " + type.getSimpleName());
+            return null;
+        }
+        return type.cast(target.component);
+    }
+
+    //Parts hold material that heats up as the machine runs, so each part belongs to a single machine.
+    public <T> T getPart(Entry entry, String key, Class<T> type){
+        T part = getReference(entry, key, type, true);
+        if(part == null) return null;
+        Entry owner = partOwners.putIfAbsent(part, entry);
+        if(owner != null){
+            error(entry, "uses " + key + " " + getField(entry, key) + ", which " + owner.name + " already uses");
+            return null;
+        }
+        return part;
+    }
+
+    public boolean hasField(Entry entry, String key){
+        return entry.findField(key) >= 0 || getOverride(entry, key) != null;
+    }
+
+    public String getField(Entry entry, String key){
+        int field = entry.findField(key);
+        if(field >= 0) entry.used[field] = true;
+        String override = getOverride(entry, key);
+        if(override != null){
+            usedOverrides.add(entry.name + "." + key);
+            return override;
+        }
+        return getFileField(entry, key);
+    }
+
+    //The field as the file gives it, ignoring overrides.
+    public String getFileField(Entry entry, String key){
+        int field = entry.findField(key);
+        if(field < 0) return null;
+        return entry.text.substring(entry.fields[field * 3 + 1] + 1, entry.fields[field * 3 + 2]);
+    }
+
+    public String getOverride(Entry entry, String key){
+        return overrides == null ? null : overrides.get(entry.name + "." + key);
+    }
+
+    public void error(Entry entry, String message){
+        errors.add("line " + entry.line + ": " + entry.kind + " " + entry.name + " " + message);
+    }
+
+    //Errors that are not about a line, like unmatched overrides, sort first.
+    public static int getErrorLine(String error){
+        if(!error.startsWith("line ")) return 0;
+        return Integer.parseInt(error.substring("line ".length(), error.indexOf(':')));
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    //Usage: PlantLoader file...
+    //Checks each plant file and reports its errors, or the number of machines it builds and how long it took to load.
+    public static void main(String[] args) {
+        int failures = 0;
+        for(String arg : args){
+            long start = System.nanoTime();
+            try{
+                Plant plant = load(Path.of(arg));
+                System.out.println(arg + ": " + plant.getMachines().size() + " machines, " + plant.getComponents().size() + " components in " + (System.nanoTime() - start) / 1000000 + " ms");
+            }catch(IOException e){
+                System.out.println(e.getMessage());
+                failures++;
+            }
+        }
+        if(failures > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,165 @@
+//Estimates quantiles of a stream of values without keeping the values.
+//Each value is counted in a logarithmically spaced bucket, each bucket (1 + accuracy) / (1 - accuracy) times as wide as the one below,
+//so a quantile comes back within the relative accuracy of a value that really is at that rank, using memory that grows with
+//the spread of the values rather than with how many there are. Buckets only count, so the answer does not depend on the order
+//values arrive in, which keeps percentiles from parallel runs the same whatever the thread count.
+//A sketch can be given a center, such as the value of a nominal run, and then buckets each value's distance from it instead,
+//so the accuracy is relative to how far a value strays rather than to its size: a wire temperature near 294 K that spreads
+//by a hundredth of a kelvin is told apart to a few microkelvin at the default accuracy.
+//Each sign keeps at most MAX_BUCKETS buckets. Past that the buckets nearest the center are merged into the lowest one kept,
+//so a sketch never takes more than 64 KB per sign, and only values far closer to the center than the rest lose accuracy.
+//At the default accuracy the buckets kept span a factor of about 10^7 between the smallest and largest magnitude.
+//The buckets merged depend only on the largest magnitude seen, so merging does not depend on the order values arrive in either.
+public class QuantileSketch {
+    public static final double DEFAULT_ACCURACY = 0.001;
+    public static final int MAX_BUCKETS = 8192;
+    private static final int INITIAL_BUCKETS = 64;
+
+    private double accuracy;
+    private double logGamma;
+    private double center;
+    private Buckets positive = new Buckets();
+    private Buckets negative = new Buckets();
+    private long zeroCount;
+    private long nanCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch() {
+        this(DEFAULT_ACCURACY);
+    }
+
+    public QuantileSketch(double accuracy) {
+        this(accuracy, 0);
+    }
+
+    public QuantileSketch(double accuracy, double center) {
+        if(!(accuracy > 0 && accuracy < 1)) throw new IllegalArgumentException("Accuracy must be between 0 and 1");
+        if(!Double.isFinite(center)) throw new IllegalArgumentException("Center must be finite");
+        this.accuracy = accuracy;
+        this.logGamma = Math.log((1 + accuracy) / (1 - accuracy));
+        this.center = center;
+    }
+
+    //NaN values are counted apart and left out of the quantiles.
+    public void add(double value){
+        if(Double.isNaN(value)){
+            nanCount++;
+            return;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        double deviation = value - center;
+        if(deviation >= Double.MIN_NORMAL){
+            positive.add(getBucket(deviation));
+        }else if(deviation <= -Double.MIN_NORMAL){
+            negative.add(getBucket(-deviation));
+        }else{
+            zeroCount++;
+        }
+    }
+
+    //The value at fraction q of the way through the sorted values, so 0.5 is the median. NaN when nothing has been added.
+    public double getQuantile(double q){
+        if(count == 0) return Double.NaN;
+        long rank = (long)(Math.max(0, Math.min(1, q)) * (count - 1));
+        double deviation;
+        if(rank < negative.total){
+            deviation = -getValue(negative.find(negative.total - 1 - rank));
+        }else if(rank < negative.total + zeroCount){
+            deviation = 0;
+        }else{
+            deviation = getValue(positive.find(rank - negative.total - zeroCount));
+        }
+        //The ends are known exactly.
+        return Math.max(min, Math.min(max, center + deviation));
+    }
+
+    //Bucket i holds the magnitudes in (gamma^(i-1), gamma^i].
+    private int getBucket(double magnitude){
+        return (int)Math.ceil(Math.log(magnitude) / logGamma);
+    }
+
+    //The point of bucket i within the accuracy of both its edges.
+    private double getValue(int bucket){
+        return 2 * Math.exp(bucket * logGamma) / (1 + Math.exp(logGamma));
+    }
+
+    //Counts by bucket index, in an array that grows towards whichever end a new index falls past, up to MAX_BUCKETS.
+    //Indices more than MAX_BUCKETS below the highest one seen are counted in the lowest bucket kept.
+    private static class Buckets {
+        private long[] counts;
+        private int offset;
+        private int lowest;
+        private int highest;
+        private long total;
+
+        public void add(int bucket){
+            if(counts == null){
+                counts = new long[INITIAL_BUCKETS];
+                offset = bucket - INITIAL_BUCKETS / 2;
+                lowest = bucket;
+                highest = bucket;
+            }
+            highest = Math.max(highest, bucket);
+            int floor = highest - MAX_BUCKETS + 1;
+            bucket = Math.max(bucket, floor);
+            int kept = Math.max(lowest, floor);
+            if(lowest < floor || bucket < offset || highest >= offset + counts.length){
+                resize(Math.min(kept, bucket), highest, floor);
+            }
+            lowest = Math.min(kept, bucket);
+            counts[bucket - offset]++;
+            total++;
+        }
+
+        //Moves the counts into an array that covers low to high, with room to grow on the side that ran out,
+        //counting everything below floor in floor.
+        private void resize(int low, int high, int floor){
+            int length = Math.min(MAX_BUCKETS, Math.max(counts.length * 2, high - low + 1));
+            int resizedOffset = low < offset ? Math.max(high - length + 1, floor) : low;
+            long[] resized = new long[length];
+            for(int i=0;i<counts.length;i++){
+                if(counts[i] != 0) resized[Math.max(offset + i, floor) - resizedOffset] += counts[i];
+            }
+            counts = resized;
+            offset = resizedOffset;
+        }
+
+        //The bucket holding the value of the given rank, counting up from the smallest.
+        public int find(long rank){
+            long seen = 0;
+            for(int i=0;i<counts.length;i++){
+                seen += counts[i];
+                if(seen > rank) return offset + i;
+            }
+            return offset + counts.length - 1;
+        }
+    }
+
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    public double getCenter() {
+        return center;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getNanCount() {
+        return nanCount;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+}
@@ -1,3 +1,7 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 public class RotationalForce {
     private Machine inputMachine;
     private Machine outputMachine;
@@ -5,6 +9,16 @@ public class RotationalForce {
     private double angularVelocity;
     private double leverArm;
 
+    //When buffered, setters write the value for the next tick and getters keep returning this tick's value until commit().
+    private boolean buffered;
+    private double nextTorque;
+    private double nextAngularVelocity;
+
+    //When interpolated, the torque carries on changing at torqueRate between the output machine's steps, so a motor stepped more often than its load
+    //sees the load torque move smoothly instead of in jumps.
+    private boolean interpolated;
+    private double torqueRate;
+
     public RotationalForce(double leverArm) {
         torque = 0;
         angularVelocity = 0;
@@ -21,7 +35,11 @@ public class RotationalForce {
     }
 
     public void setTorque(double torque) {
-        this.torque = torque;
+        if(buffered){
+            this.nextTorque = torque;
+        }else{
+            this.torque = torque;
+        }
     }
 
     public double getAngularVelocity() {
@@ -29,7 +47,65 @@ public class RotationalForce {
     }
 
     public void setAngularVelocity(double angularVelocity) {
-        this.angularVelocity = angularVelocity;
+        if(buffered){
+            this.nextAngularVelocity = angularVelocity;
+        }else{
+            this.angularVelocity = angularVelocity;
+        }
+    }
+
+    public void writeState(Checkpoint checkpoint) throws IOException {
+        DataOutputStream output = checkpoint.getOutput();
+        output.writeDouble(torque);
+        output.writeDouble(angularVelocity);
+        output.writeDouble(torqueRate);
+    }
+
+    public void readState(Checkpoint checkpoint) throws IOException {
+        DataInputStream input = checkpoint.getInput();
+        torque = input.readDouble();
+        angularVelocity = input.readDouble();
+        torqueRate = input.readDouble();
+        nextTorque = torque;
+        nextAngularVelocity = angularVelocity;
+    }
+
+    public void commit(){
+        torque = nextTorque;
+        angularVelocity = nextAngularVelocity;
+    }
+
+    public void advanceTorque(double time){
+        if(interpolated){
+            torque += torqueRate * time;
+        }
+    }
+
+    public double getTorqueRate() {
+        return torqueRate;
+    }
+
+    public void setTorqueRate(double torqueRate) {
+        this.torqueRate = torqueRate;
+    }
+
+    public boolean isInterpolated() {
+        return interpolated;
+    }
+
+    public void setInterpolated(boolean interpolated) {
+        this.interpolated = interpolated;
+        if(!interpolated) torqueRate = 0;
+    }
+
+    public boolean isBuffered() {
+        return buffered;
+    }
+
+    public void setBuffered(boolean buffered) {
+        this.buffered = buffered;
+        nextTorque = torque;
+        nextAngularVelocity = angularVelocity;
     }
 
     public Machine getInputMachine() {
@@ -0,0 +1,165 @@
+import java.util.concurrent.locks.LockSupport;
+
+//Paces a simulator against the wall clock at a chosen real time factor.
+//Each frame the wall time since the last frame is scaled by the factor and turned into ticks, carrying any fraction of a tick over.
+//The ticks run in a frame are capped by how many fit in FRAME_BUDGET of the frame at the measured cost of a tick,
+//so a factor the machine can't keep up with runs as fast as it can instead of falling further behind every frame.
+//At MAX_SPEED the simulator is stepped until the frame's budget is spent.
+//Between frames the thread parks until the next frame deadline, so an idle pacer uses no CPU.
+public class SimulationPacer {
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+    private static final double FRAME_BUDGET = 0.75;
+    private static final long MIN_BATCH_TICKS = 16;
+    private static final long REPORT_NANOS = 1000000000L;
+    private static final double TICK_COST_SMOOTHING = 0.2;
+
+    private Simulator simulator;
+    private long frameNanos;
+    private volatile double realTimeFactor = 1;
+
+    private long lastFrameTime;
+    private long nextFrameTime;
+    private double owedTicks;
+    private double nanosPerTick = 1000;
+
+    private long reportStartTime;
+    private double reportStartSimulatedTime;
+    private int reportFrames;
+    private double achievedFactor;
+    private double framesPerSecond;
+    private boolean reportReady;
+
+    public SimulationPacer(Simulator simulator, double targetFramesPerSecond) {
+        if(!(targetFramesPerSecond > 0)) throw new IllegalArgumentException("Frame rate must be positive");
+        this.simulator = simulator;
+        this.frameNanos = (long)(1000000000L / targetFramesPerSecond);
+    }
+
+    //Starts the clock. Called before the first frame and after a pause, so time spent away is never owed.
+    public void start(){
+        long now = System.nanoTime();
+        lastFrameTime = now;
+        nextFrameTime = now + frameNanos;
+        owedTicks = 0;
+        resetReport(now);
+    }
+
+    //Runs the ticks owed for the wall time since the last frame.
+    public void runFrame(){
+        long now = System.nanoTime();
+        long elapsed = now - lastFrameTime;
+        lastFrameTime = now;
+        long budget = (long)(frameNanos * FRAME_BUDGET);
+
+        double factor = realTimeFactor;
+        if(factor == MAX_SPEED){
+            runFor(now + budget);
+        }else{
+            owedTicks += elapsed * 1e-9 * factor / Simulator.TIME_CONST;
+            long ticks = (long)owedTicks;
+            long maxTicks = Math.max(1, (long)(budget / nanosPerTick));
+            if(ticks > maxTicks){
+                //Whatever doesn't fit is dropped rather than carried, or the debt would grow without bound.
+                ticks = maxTicks;
+                owedTicks = ticks;
+            }
+            advance(ticks);
+            owedTicks -= ticks;
+        }
+        reportFrames++;
+        updateReport(System.nanoTime());
+    }
+
+    //Steps the simulator in batches sized from the measured tick cost until the deadline.
+    public void runFor(long deadline){
+        long remaining;
+        while((remaining = deadline - System.nanoTime()) > 0){
+            advance(Math.max(MIN_BATCH_TICKS, (long)(remaining / nanosPerTick / 2)));
+        }
+    }
+
+    public void advance(long ticks){
+        if(ticks <= 0) return;
+        long start = System.nanoTime();
+        if(simulator.isAdaptiveTimeStep()){
+            simulator.runSimulation(ticks * Simulator.TIME_CONST);
+        }else{
+            simulator.runTicks(ticks);
+        }
+        double cost = (double)(System.nanoTime() - start) / ticks;
+        nanosPerTick += TICK_COST_SMOOTHING * (cost - nanosPerTick);
+    }
+
+    //Parks until the next frame deadline. A frame that ran late moves the deadline on instead of running the next frames back to back.
+    public void waitForNextFrame(){
+        long now = System.nanoTime();
+        if(now - nextFrameTime > frameNanos){
+            nextFrameTime = now;
+        }
+        long remaining;
+        while((remaining = nextFrameTime - System.nanoTime()) > 0){
+            LockSupport.parkNanos(remaining);
+        }
+        nextFrameTime += frameNanos;
+    }
+
+    public void resetReport(long now){
+        reportStartTime = now;
+        reportStartSimulatedTime = simulator.getSimulatedTime();
+        reportFrames = 0;
+    }
+
+    //Measures the achieved speed and frame rate over each REPORT_NANOS of wall time.
+    public void updateReport(long now){
+        long elapsed = now - reportStartTime;
+        if(elapsed < REPORT_NANOS) return;
+        double seconds = elapsed * 1e-9;
+        achievedFactor = (simulator.getSimulatedTime() - reportStartSimulatedTime) / seconds;
+        framesPerSecond = reportFrames / seconds;
+        reportReady = true;
+        resetReport(now);
+    }
+
+    //Returns true once after each new report.
+    public boolean takeReport(){
+        boolean ready = reportReady;
+        reportReady = false;
+        return ready;
+    }
+
+    public static String formatFactor(double factor){
+        if(factor == MAX_SPEED) return "max";
+        if(factor >= 10) return String.format("%.0fx", factor);
+        if(factor >= 1) return String.format("%.1fx", factor);
+        return String.format("%.2fx", factor);
+    }
+
+    public String getReport(){
+        return "requested " + formatFactor(realTimeFactor) + ", achieved " + formatFactor(achievedFactor) + String.format(", %.0f fps", framesPerSecond);
+    }
+
+    public double getRealTimeFactor() {
+        return realTimeFactor;
+    }
+
+    public void setRealTimeFactor(double realTimeFactor) {
+        if(!(realTimeFactor > 0)) throw new IllegalArgumentException("Real time factor must be positive");
+        this.realTimeFactor = realTimeFactor;
+    }
+
+    public double getAchievedFactor() {
+        return achievedFactor;
+    }
+
+    public double getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    public double getNanosPerTick() {
+        return nanosPerTick;
+    }
+
+    public long getFrameNanos() {
+        return frameNanos;
+    }
+}
@@ -1,5 +1,9 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 public class Simulator {
     public static final double TIME_CONST = 0.0001; //seconds
@@ -10,11 +14,28 @@ public class Simulator {
     public static final double SOLID_AIR_THERMAL_CONDUCTIVITY = 13.1;
     public static final double AMBIENT_TEMPERATURE = 294;
     public static final double GAMMA = 1.66f;
+    public static final double NATURAL_STEP_FRACTION = 0.001;
+    private static final double STEP_SAFETY = 0.9;
+    private static final double STABILITY_SAFETY = 0.5;
+    private static final double MAX_STEP_GROWTH = 2;
+    private static final double MAX_STEP_SHRINK = 0.2;
+
+    public enum EXECUTION_MODE{
+        SEQUENTIAL,
+        GROUPED,
+        PARALLEL,
+        TWO_PHASE,
+        TWO_PHASE_PARALLEL,
+        EVENT_DRIVEN,
+        FAST_FORWARD,
+        MULTI_RATE
+    }
 
     private MaterialType copper;
     private MaterialType iron;
     private MaterialType nitrogen;
     private MaterialType water;
+    private List<MaterialType> materialTypes;
 
     private Material gas;
     private Material coolant;
@@ -52,6 +73,25 @@ public class Simulator {
     private RotationalForce rotationalForce;
 
     private List<Machine> machines;
+    private long tickCount;
+    private double simulatedTime;
+    private boolean adaptiveTimeStep = false;
+    private double tolerance = 0.00001;
+    private double minTimeStep = TIME_CONST;
+    private double maxTimeStep = TIME_CONST * 1000;
+    private double timeStep = TIME_CONST;
+    private boolean exactHeatTransfer = false;
+    private Motor.INTEGRATOR motorIntegrator = Motor.INTEGRATOR.EXPLICIT;
+    private EXECUTION_MODE executionMode = EXECUTION_MODE.SEQUENTIAL;
+    private StepPlan stepPlan;
+    private PlantGraph plantGraph;
+    private ParallelStepPlan parallelStepPlan;
+    private TwoPhaseStepPlan twoPhaseStepPlan;
+    private EventDrivenStepPlan eventDrivenStepPlan;
+    private FastForwardStepPlan fastForwardStepPlan;
+    private MultiRateStepPlan multiRateStepPlan;
+    private TelemetryRecorder telemetryRecorder;
+    private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
 
     public Simulator(){
         nitrogen = new MaterialType("Nitrogen",0,100, 1200, 1.165, 807,1000,1,94,30, 0, 696,25300,199000);
@@ -127,17 +167,272 @@ public class Simulator {
         machines.add(expanderOutputGasChamber);
         machines.add(expanderOutputLiquidChamber);
         machines.add(heatExchangerGateChamber);
+        materialTypes = List.of(copper, iron, nitrogen, water);
+    }
+
+    //Builds a simulator for a plant loaded from a description file. Components named like the fields of the built-in plant fill those fields,
+    //so anything written against the built-in plant works on a file that describes a variant of it.
+    public Simulator(Plant plant){
+        materialTypes = List.copyOf(plant.getMaterialTypes());
+        copper = plant.getMaterialType("Copper");
+        iron = plant.getMaterialType("Iron");
+        nitrogen = plant.getMaterialType("Nitrogen");
+        water = plant.getMaterialType("Water");
+
+        copperWire = plant.get("copperWire", Wire.class);
+        rotor = plant.get("rotor", Rotor.class);
+        magnet = plant.get("magnet", Magnet.class);
+        nineVoltBattery = plant.get("nineVoltBattery", Battery.class);
+        carBattery = plant.get("carBattery", Battery.class);
+        powerSupply = plant.get("powerSupply", Battery.class);
+        deadBattery = plant.get("deadBattery", Battery.class);
+        pipe = plant.get("pipe", Pipe.class);
+        rotationalForce = plant.get("rotationalForce", RotationalForce.class);
+
+        motor = plant.get("motor", Motor.class);
+        compressor = plant.get("compressor", Compressor.class);
+        chamber = plant.get("chamber", Chamber.class);
+        outputChamber = plant.get("outputChamber", Chamber.class);
+        heatExchangerGateChamber = plant.get("heatExchangerGateChamber", Chamber.class);
+        heatExchanger = plant.get("heatExchanger", HeatExchanger.class);
+        inputCoolantChamber = plant.get("inputCoolantChamber", Chamber.class);
+        outputCoolantChamber = plant.get("outputCoolantChamber", Chamber.class);
+        outputContentChamber = plant.get("outputContentChamber", Chamber.class);
+        expander = plant.get("expander", Expander.class);
+        expanderOutputGasChamber = plant.get("expanderOutputGasChamber", Chamber.class);
+        expanderOutputLiquidChamber = plant.get("expanderOutputLiquidChamber", Chamber.class);
+        gas = chamber == null ? null : chamber.getContents();
+        coolant = inputCoolantChamber == null ? null : inputCoolantChamber.getContents();
+
+        machines = new ArrayList<>(plant.getMachines());
     }
 
     public void runSimulation(double runTime){
-        double counter = 0;
-        int runTimeTicks = (int)(runTime/TIME_CONST);
-        while(counter < runTimeTicks){
-            machines.forEach(m -> {
-                m.stepMachine();
-            });
-            counter ++;
+        if(adaptiveTimeStep){
+            runAdaptive(runTime);
+        }else{
+            runTicks((long)(runTime/TIME_CONST));
+        }
+    }
+
+    //Steps the machines in list order with a variable time step. After each step the step is grown or shrunk
+    //so the largest machine step error stays near the tolerance, and kept inside every machine's stable step.
+    //The step plans all work in fixed ticks, so adaptive steps only run in SEQUENTIAL mode and the setters refuse any other.
+    public void runAdaptive(double runTime){
+        double endTime = simulatedTime + runTime;
+        while(simulatedTime < endTime){
+            double time = Math.min(timeStep, endTime - simulatedTime);
+            for(int i=0;i<machines.size();i++){
+                machines.get(i).stepMachine(time);
+            }
+            simulatedTime += time;
+            tickCount ++;
+            if(telemetryRecorder != null && telemetryRecorder.isSampleTick(tickCount)){
+                telemetryRecorder.record(tickCount, simulatedTime);
+            }
+            calculateTimeStep();
+        }
+    }
+
+    public void calculateTimeStep(){
+        double stepError = 0;
+        double stableTimeStep = Double.POSITIVE_INFINITY;
+        for(int i=0;i<machines.size();i++){
+            Machine machine = machines.get(i);
+            stepError = Math.max(stepError, machine.getStepError());
+            stableTimeStep = Math.min(stableTimeStep, machine.getStableTimeStep());
         }
+        double factor = MAX_STEP_GROWTH;
+        if(stepError > 0){
+            factor = Math.max(MAX_STEP_SHRINK, Math.min(MAX_STEP_GROWTH, STEP_SAFETY * Math.sqrt(tolerance / stepError)));
+        }
+        timeStep = Math.min(timeStep * factor, stableTimeStep * STABILITY_SAFETY);
+        timeStep = Math.max(minTimeStep, Math.min(maxTimeStep, timeStep));
+    }
+
+    //With a telemetry recorder the ticks are stepped in batches that end on each sample tick.
+    //Plans that jump or super-cycle never run past the end of a batch, so heavy decimation keeps them fast.
+    public void runTicks(long ticks){
+        if(ticks <= 0) return;
+        if(telemetryRecorder == null){
+            stepTicks(ticks);
+        }else{
+            long counter = 0;
+            while(counter < ticks){
+                long sampleTick = telemetryRecorder.getNextSampleTick(tickCount + counter);
+                long batchTicks = Math.min(sampleTick - tickCount - counter, ticks - counter);
+                stepTicks(batchTicks);
+                counter += batchTicks;
+                if(tickCount + counter == sampleTick){
+                    telemetryRecorder.record(sampleTick, simulatedTime + counter * TIME_CONST);
+                }
+            }
+        }
+        tickCount += ticks;
+        simulatedTime += ticks * TIME_CONST;
+    }
+
+    //Steps the machines in the current execution mode. The tick count and simulated time are left to runTicks.
+    public void stepTicks(long ticks){
+        if(executionMode == EXECUTION_MODE.GROUPED){
+            getStepPlan().runTicks(ticks);
+        }else if(executionMode == EXECUTION_MODE.PARALLEL){
+            getParallelStepPlan().runTicks(ticks);
+        }else if(executionMode == EXECUTION_MODE.TWO_PHASE || executionMode == EXECUTION_MODE.TWO_PHASE_PARALLEL){
+            getTwoPhaseStepPlan().runTicks(ticks);
+        }else if(executionMode == EXECUTION_MODE.EVENT_DRIVEN){
+            getEventDrivenStepPlan().runTicks(ticks);
+        }else if(executionMode == EXECUTION_MODE.FAST_FORWARD){
+            getFastForwardStepPlan().runTicks(ticks);
+        }else if(executionMode == EXECUTION_MODE.MULTI_RATE){
+            getMultiRateStepPlan().runTicks(ticks);
+        }else{
+            long counter = 0;
+            while(counter < ticks){
+                machines.forEach(m -> {
+                    m.stepMachine();
+                });
+                counter ++;
+            }
+        }
+    }
+
+    public void addMachine(Machine machine){
+        machines.add(machine);
+        applyExactHeatTransfer(machine);
+        applyMotorIntegrator(machine);
+        invalidateStepPlans();
+    }
+
+    public void applyExactHeatTransfer(Machine machine){
+        if(machine instanceof HeatExchanger){
+            ((HeatExchanger)machine).setExactHeatTransfer(exactHeatTransfer);
+        }else if(machine instanceof Expander){
+            ((Expander)machine).setExactHeatTransfer(exactHeatTransfer);
+        }
+    }
+
+    //Must be called after changing the links between machines so the plans and plant graph are rebuilt.
+    public void invalidateStepPlans(){
+        stepPlan = null;
+        plantGraph = null;
+        parallelStepPlan = null;
+        fastForwardStepPlan = null;
+        releaseTwoPhaseStepPlan();
+        releaseEventDrivenStepPlan();
+        releaseMultiRateStepPlan();
+    }
+
+    public void releaseTwoPhaseStepPlan(){
+        if(twoPhaseStepPlan != null){
+            twoPhaseStepPlan.setBuffered(false);
+            twoPhaseStepPlan = null;
+        }
+    }
+
+    public void releaseMultiRateStepPlan(){
+        if(multiRateStepPlan != null){
+            multiRateStepPlan.setMultiRate(false);
+            multiRateStepPlan = null;
+        }
+    }
+
+    public void releaseEventDrivenStepPlan(){
+        if(eventDrivenStepPlan != null){
+            eventDrivenStepPlan.release();
+            eventDrivenStepPlan = null;
+        }
+    }
+
+    //The material types a checkpoint refers to by index. New types go on the end so older checkpoints still line up.
+    //A loaded plant uses the order of its file.
+    public List<MaterialType> getMaterialTypes(){
+        return materialTypes;
+    }
+
+    public void writeState(Checkpoint checkpoint) throws IOException {
+        DataOutputStream output = checkpoint.getOutput();
+        output.writeLong(tickCount);
+        output.writeDouble(simulatedTime);
+        output.writeDouble(timeStep);
+        output.writeBoolean(adaptiveTimeStep);
+        output.writeDouble(tolerance);
+        output.writeDouble(minTimeStep);
+        output.writeDouble(maxTimeStep);
+        output.writeByte(executionMode.ordinal());
+        output.writeBoolean(exactHeatTransfer);
+        output.writeByte(motorIntegrator.ordinal());
+    }
+
+    public void readState(Checkpoint checkpoint) throws IOException {
+        DataInputStream input = checkpoint.getInput();
+        tickCount = input.readLong();
+        simulatedTime = input.readDouble();
+        timeStep = input.readDouble();
+        adaptiveTimeStep = input.readBoolean();
+        tolerance = input.readDouble();
+        minTimeStep = input.readDouble();
+        maxTimeStep = input.readDouble();
+        setExecutionMode(EXECUTION_MODE.values()[input.readUnsignedByte()]);
+        setExactHeatTransfer(input.readBoolean());
+        setMotorIntegrator(Motor.INTEGRATOR.values()[input.readUnsignedByte()]);
+        //Plans are dropped before the machines are read, so releasing one cannot touch the restored state.
+        invalidateStepPlans();
+    }
+
+    public StepPlan getStepPlan(){
+        if(stepPlan == null){
+            stepPlan = new StepPlan(machines);
+        }
+        return stepPlan;
+    }
+
+    public PlantGraph getPlantGraph(){
+        if(plantGraph == null){
+            plantGraph = new PlantGraph(machines);
+        }
+        return plantGraph;
+    }
+
+    public TwoPhaseStepPlan getTwoPhaseStepPlan(){
+        if(twoPhaseStepPlan == null){
+            twoPhaseStepPlan = new TwoPhaseStepPlan(getPlantGraph(), executionMode == EXECUTION_MODE.TWO_PHASE_PARALLEL ? forkJoinPool : null);
+            twoPhaseStepPlan.setBuffered(true);
+        }
+        return twoPhaseStepPlan;
+    }
+
+    public EventDrivenStepPlan getEventDrivenStepPlan(){
+        if(eventDrivenStepPlan == null){
+            eventDrivenStepPlan = new EventDrivenStepPlan(getPlantGraph());
+        }
+        return eventDrivenStepPlan;
+    }
+
+    public MultiRateStepPlan getMultiRateStepPlan(){
+        if(multiRateStepPlan == null){
+            multiRateStepPlan = new MultiRateStepPlan(machines);
+            multiRateStepPlan.setMultiRate(true);
+        }
+        return multiRateStepPlan;
+    }
+
+    public FastForwardStepPlan getFastForwardStepPlan(){
+        if(fastForwardStepPlan == null){
+            fastForwardStepPlan = new FastForwardStepPlan(machines);
+        }
+        return fastForwardStepPlan;
+    }
+
+    public ParallelStepPlan getParallelStepPlan(){
+        if(parallelStepPlan == null){
+            parallelStepPlan = new ParallelStepPlan(getPlantGraph(), forkJoinPool);
+        }
+        return parallelStepPlan;
+    }
+
+    public double getSimulatedTime(){
+        return simulatedTime;
     }
 
     public Motor getMotor() {
@@ -292,12 +587,119 @@ public class Simulator {
         this.pipe = pipe;
     }
 
+    public long getTickCount() {
+        return tickCount;
+    }
+
     public List<Machine> getMachines() {
         return machines;
     }
 
     public void setMachines(List<Machine> machines) {
         this.machines = machines;
+        invalidateStepPlans();
+    }
+
+    public EXECUTION_MODE getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(EXECUTION_MODE executionMode) {
+        checkAdaptiveMode(adaptiveTimeStep, executionMode);
+        this.executionMode = executionMode;
+        releaseTwoPhaseStepPlan();
+        releaseEventDrivenStepPlan();
+        releaseMultiRateStepPlan();
+    }
+
+    public TelemetryRecorder getTelemetryRecorder() {
+        return telemetryRecorder;
+    }
+
+    public void setTelemetryRecorder(TelemetryRecorder telemetryRecorder) {
+        this.telemetryRecorder = telemetryRecorder;
+    }
+
+    public boolean isAdaptiveTimeStep() {
+        return adaptiveTimeStep;
+    }
+
+    public void setAdaptiveTimeStep(boolean adaptiveTimeStep) {
+        checkAdaptiveMode(adaptiveTimeStep, executionMode);
+        this.adaptiveTimeStep = adaptiveTimeStep;
+    }
+
+    private static void checkAdaptiveMode(boolean adaptiveTimeStep, EXECUTION_MODE executionMode){
+        if(adaptiveTimeStep && executionMode != EXECUTION_MODE.SEQUENTIAL){
+            throw new IllegalStateException("Adaptive time steps only run in SEQUENTIAL mode, not " + executionMode);
+        }
+    }
+
+    public void applyMotorIntegrator(Machine machine){
+        if(machine instanceof Motor){
+            ((Motor)machine).setIntegrator(motorIntegrator);
+        }
+    }
+
+    public Motor.INTEGRATOR getMotorIntegrator() {
+        return motorIntegrator;
+    }
+
+    public void setMotorIntegrator(Motor.INTEGRATOR motorIntegrator) {
+        this.motorIntegrator = motorIntegrator;
+        machines.forEach(this::applyMotorIntegrator);
+    }
+
+    public boolean isExactHeatTransfer() {
+        return exactHeatTransfer;
+    }
+
+    //Switches every heat exchanger and expander between explicit and exact heat transfer.
+    public void setExactHeatTransfer(boolean exactHeatTransfer) {
+        this.exactHeatTransfer = exactHeatTransfer;
+        machines.forEach(this::applyExactHeatTransfer);
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public double getMinTimeStep() {
+        return minTimeStep;
+    }
+
+    public void setMinTimeStep(double minTimeStep) {
+        this.minTimeStep = minTimeStep;
+    }
+
+    public double getMaxTimeStep() {
+        return maxTimeStep;
+    }
+
+    public void setMaxTimeStep(double maxTimeStep) {
+        this.maxTimeStep = maxTimeStep;
+    }
+
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    public void setTimeStep(double timeStep) {
+        this.timeStep = timeStep;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+        parallelStepPlan = null;
+        releaseTwoPhaseStepPlan();
     }
 
     public MaterialType getWater() {
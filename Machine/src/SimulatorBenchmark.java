@@ -0,0 +1,237 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class SimulatorBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final long TICKS_PER_ITERATION = 200000;
+    private static final double SETUP_RUN_TIME = 1;
+    private static final int LARGE_PLANT_CHAINS = 100;
+    private static final int LARGE_PLANT_CHAIN_LENGTH = 5;
+    private static final int IDLE_PLANT_UNITS = 100;
+    private static final int IDLE_PLANT_BUFFER_CHAMBERS = 5;
+    private static final double NORMAL_999 = 3.290527;
+    private static final double[] STUDENT_T_999 = {
+        636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+        4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850,
+        3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646
+    };
+
+    public interface Workload {
+        void run(long ticks);
+    }
+
+    //A named workload, built the first time it is asked for, so benchmarks left out by the filter never build their plants.
+    public static class Benchmark {
+        private String name;
+        private Supplier<Workload> setup;
+        private Workload workload;
+
+        public Benchmark(String name, Supplier<Workload> setup) {
+            this.name = name;
+            this.setup = setup;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Workload getWorkload() {
+            if(workload == null){
+                workload = setup.get();
+                setup = null;
+            }
+            return workload;
+        }
+    }
+
+    public static void main(String[] args){
+        String filter = args.length > 0 ? args[0] : "";
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : MEASUREMENT_ITERATIONS;
+
+        System.out.println(String.format("%-34s %14s %12s %16s", "Benchmark", "ns/tick", "error", "bytes/tick"));
+        for(Benchmark benchmark : createBenchmarks()){
+            if(benchmark.getName().contains(filter)){
+                runBenchmark(benchmark, iterations);
+            }
+        }
+    }
+
+    public static List<Benchmark> createBenchmarks(){
+        List<Benchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(createMachineBenchmark("chamber", Chamber.class));
+        benchmarks.add(createMachineBenchmark("motor", Motor.class));
+        benchmarks.add(createMachineBenchmark("compressor", Compressor.class));
+        benchmarks.add(createMachineBenchmark("heatExchanger", HeatExchanger.class));
+        benchmarks.add(createMachineBenchmark("expander", Expander.class));
+
+        benchmarks.add(createTransferBenchmark());
+
+        for(Simulator.EXECUTION_MODE executionMode : Simulator.EXECUTION_MODE.values()){
+            String suffix = executionMode == Simulator.EXECUTION_MODE.SEQUENTIAL ? "" : "_" + executionMode.name().toLowerCase();
+            benchmarks.add(createSimulatorBenchmark("runSimulation" + suffix, SimulatorBenchmark::createSimulator, executionMode));
+            benchmarks.add(createSimulatorBenchmark("largePlant" + suffix, SimulatorBenchmark::createLargeSimulator, executionMode));
+            benchmarks.add(createSimulatorBenchmark("idlePlant" + suffix, SimulatorBenchmark::createIdleSimulator, executionMode));
+        }
+        return benchmarks;
+    }
+
+    public static Benchmark createSimulatorBenchmark(String name, Supplier<Simulator> plant, Simulator.EXECUTION_MODE executionMode){
+        return new Benchmark(name, () -> {
+            Simulator simulator = plant.get();
+            simulator.setExecutionMode(executionMode);
+            return ticks -> simulator.runTicks(ticks);
+        });
+    }
+
+    //Builds the default plant, runs it past start-up and charges the heat exchanger and expander inputs so their physics paths are exercised.
+    public static Simulator createSimulator(){
+        Simulator simulator = new Simulator();
+        simulator.runSimulation(SETUP_RUN_TIME);
+        simulator.getOutputChamber().setContents(new Material(simulator.getNitrogen(), 0.05, 400, 10));
+        simulator.getOutputContentChamber().setContents(new Material(simulator.getNitrogen(), 5, 303, 300));
+        return simulator;
+    }
+
+    //Adds rings of chambers to the default plant. The first chamber of each ring holds a parcel of gas that is forwarded around the ring every tick.
+    public static Simulator createLargeSimulator(){
+        Simulator simulator = createSimulator();
+        for(int i=0;i<LARGE_PLANT_CHAINS;i++){
+            Chamber[] chain = new Chamber[LARGE_PLANT_CHAIN_LENGTH];
+            for(int j=0;j<chain.length;j++){
+                chain[j] = new Chamber(.1);
+            }
+            for(int j=0;j<chain.length;j++){
+                chain[j].setOutputChamber(chain[(j + 1) % chain.length]);
+                simulator.addMachine(chain[j]);
+            }
+            chain[0].addToContents(new Material(simulator.getNitrogen(), 0.01, 294, 1));
+        }
+        return simulator;
+    }
+
+    //Adds standby units to the default plant. Each unit is a compressor waiting on an empty input chamber, fed by a line of empty buffer chambers,
+    //so almost every machine in the plant is idle.
+    public static Simulator createIdleSimulator(){
+        Simulator simulator = createSimulator();
+        for(int i=0;i<IDLE_PLANT_UNITS;i++){
+            Chamber inputChamber = new Chamber(.1);
+            Chamber outputChamber = new Chamber(.1);
+            Chamber nextChamber = inputChamber;
+            for(int j=0;j<IDLE_PLANT_BUFFER_CHAMBERS;j++){
+                Chamber bufferChamber = new Chamber(.1);
+                bufferChamber.setOutputChamber(nextChamber);
+                simulator.addMachine(bufferChamber);
+                nextChamber = bufferChamber;
+            }
+
+            Compressor compressor = new Compressor(0.02,1,294,.02,1,1);
+            RotationalForce rotationalForce = new RotationalForce(0.00001);
+            compressor.setChamber(inputChamber);
+            compressor.setOutputChamber(outputChamber);
+            compressor.setInputValue(rotationalForce);
+            rotationalForce.setOutputMachine(compressor);
+            simulator.addMachine(inputChamber);
+            simulator.addMachine(compressor);
+            simulator.addMachine(outputChamber);
+        }
+        return simulator;
+    }
+
+    public static Benchmark createMachineBenchmark(String name, Class<? extends Machine> machineType){
+        return new Benchmark(name, () -> {
+            Simulator simulator = createSimulator();
+            List<Machine> machines = new ArrayList<>();
+            for(Machine machine : simulator.getMachines()){
+                if(machineType.isInstance(machine)) machines.add(machine);
+            }
+            Machine[] machineArray = machines.toArray(new Machine[0]);
+            return ticks -> {
+                for(long i=0;i<ticks;i++){
+                    for(Machine machine : machineArray){
+                        machine.stepMachine();
+                    }
+                }
+            };
+        });
+    }
+
+    //Pulls a parcel of gas out of one chamber and pushes it into a second chamber that forwards it back, so every tick does a pull, a push into an empty chamber and a merge.
+    public static Benchmark createTransferBenchmark(){
+        return new Benchmark("transfer", () -> {
+            Simulator simulator = new Simulator();
+            Chamber sourceChamber = new Chamber(10);
+            Chamber returnChamber = new Chamber(.1);
+            sourceChamber.addToContents(new Material(simulator.getNitrogen(), 1, 294, 1));
+            returnChamber.setOutputChamber(sourceChamber);
+            Material[] parcel = new Material[1];
+            return ticks -> {
+                for(long i=0;i<ticks;i++){
+                    parcel[0] = MachineHelper.pullFromChamber(sourceChamber, 0.01, parcel[0]);
+                    MachineHelper.pushToChamber(returnChamber, 0.01, parcel[0]);
+                    returnChamber.stepMachine();
+                }
+            };
+        });
+    }
+
+    public static void runBenchmark(Benchmark benchmark, int iterations){
+        for(int i=0;i<WARMUP_ITERATIONS;i++){
+            benchmark.getWorkload().run(TICKS_PER_ITERATION);
+        }
+
+        double[] nanosPerTick = new double[iterations];
+        double[] bytesPerTick = new double[iterations];
+        for(int i=0;i<iterations;i++){
+            long startBytes = getAllocatedBytes();
+            long startTime = System.nanoTime();
+            benchmark.getWorkload().run(TICKS_PER_ITERATION);
+            long elapsed = System.nanoTime() - startTime;
+            long allocated = getAllocatedBytes() - startBytes;
+            nanosPerTick[i] = (double)elapsed / TICKS_PER_ITERATION;
+            bytesPerTick[i] = (double)allocated / TICKS_PER_ITERATION;
+        }
+
+        System.out.println(String.format("%-34s %14.3f %12.3f %16.3f", benchmark.getName(), mean(nanosPerTick), error(nanosPerTick), mean(bytesPerTick)));
+    }
+
+    //Bytes allocated by every live thread, so work handed off the calling thread is counted too.
+    //Threads that end between two readings take their allocations with them, so workers are expected to outlive an iteration.
+    public static long getAllocatedBytes(){
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for(long bytes : threadBean.getThreadAllocatedBytes(threadBean.getAllThreadIds())){
+            if(bytes > 0) total += bytes;
+        }
+        return total;
+    }
+
+    public static double mean(double[] values){
+        double sum = 0;
+        for(double value : values) sum += value;
+        return sum / values.length;
+    }
+
+    //99.9% confidence half-width from Student's t distribution with n - 1 degrees of freedom, like JMH's score error.
+    public static double error(double[] values){
+        if(values.length < 2) return 0;
+        double mean = mean(values);
+        double sumSquares = 0;
+        for(double value : values) sumSquares += (value - mean) * (value - mean);
+        double standardDeviation = Math.sqrt(sumSquares / (values.length - 1));
+        return getStudentT999(values.length - 1) * standardDeviation / Math.sqrt(values.length);
+    }
+
+    //The two-sided 99.9% quantile of Student's t distribution. Up to 30 degrees of freedom it comes from the usual table,
+    //and past that from the Cornish-Fisher expansion around the normal quantile, which is within 1e-4 there.
+    public static double getStudentT999(int degreesOfFreedom){
+        if(degreesOfFreedom <= STUDENT_T_999.length) return STUDENT_T_999[degreesOfFreedom - 1];
+        double z = NORMAL_999;
+        double v = degreesOfFreedom;
+        return z + (z * z * z + z) / (4 * v)
+                + (5 * Math.pow(z, 5) + 16 * z * z * z + 3 * z) / (96 * v * v)
+                + (3 * Math.pow(z, 7) + 19 * Math.pow(z, 5) + 17 * z * z * z - 15 * z) / (384 * v * v * v);
+    }
+}
@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//Regression checks for behaviour the execution modes promise, run with: java SimulatorChecks
+//Each check prints its result, and the run exits with status 1 if any failed.
+public class SimulatorChecks {
+    private static final long CHECK_TICKS = 2000;
+
+    private static final String MATERIALS =
+            "material Copper strength=1920 resistivity=1.68E-8 specificHeat=385 gasDensity=1.3 liquidDensity=7000 solidDensity=8290 thermalConductivity=400 boilingPoint=2862 meltingPoint=1538 magnetism=0 expansionRatio=800 latentHeatFusion=400000 latentHeatVaporization=1000000\n"
+            + "material Iron strength=1920 resistivity=1.68E-7 specificHeat=385 gasDensity=1.2 liquidDensity=6500 solidDensity=7874 thermalConductivity=400 boilingPoint=2562 meltingPoint=1085 magnetism=0.2 expansionRatio=800 latentHeatFusion=300000 latentHeatVaporization=1000000\n"
+            + "material Nitrogen strength=0 resistivity=100 specificHeat=1200 gasDensity=1.165 liquidDensity=807 solidDensity=1000 thermalConductivity=1 boilingPoint=94 meltingPoint=30 magnetism=0 expansionRatio=696 latentHeatFusion=25300 latentHeatVaporization=199000\n";
+
+    private static final String DRIVE =
+            "wire copperWire material=Copper radius=0.001 length=60\n"
+            + "rotor rotor material=Iron radius=.02 length=.05\n"
+            + "magnet magnet material=Iron\n"
+            + "battery carBattery voltage=8 internalResistance=0.04\n"
+            + "shaft rotationalForce leverArm=0.00001\n"
+            + "motor motor wire=copperWire magnet=magnet rotor=rotor battery=carBattery numTurns=-1 coilArea=.004 shaft=rotationalForce\n";
+
+    //A chamber that forwards its contents while a compressor also draws from it. The compressor is declared first,
+    //so sequential stepping lets it pull before the chamber forwards the rest, which is the order two-phase stepping settles on.
+    private static final String SHARED_SOURCE_PLANT = MATERIALS + DRIVE
+            + "compressor compressor initialVolume=0.02 initialPressure=1 pistonArea=.02 pistonMass=1 input=source output=store shaft=rotationalForce\n"
+            + "chamber source volume=10 output=forwarded\n"
+            + "chamber forwarded volume=10\n"
+            + "chamber store volume=1\n"
+            + "contents source material=Nitrogen mass=1 temperature=294 pressure=1\n";
+
+    private static int failures;
+
+    public static void main(String[] args) throws IOException {
+        checkTwoPhaseForwarding();
+        checkTwoPhaseOrderIndependence();
+        checkAdaptiveModeRejected();
+        System.out.println(failures == 0 ? "All checks passed" : failures + " checks failed");
+        if(failures > 0) System.exit(1);
+    }
+
+    //Two-phase stepping must forward the same mass as sequential stepping from a chamber another machine also draws from.
+    public static void checkTwoPhaseForwarding() throws IOException {
+        double[] masses = new double[2];
+        Simulator.EXECUTION_MODE[] modes = {Simulator.EXECUTION_MODE.SEQUENTIAL, Simulator.EXECUTION_MODE.TWO_PHASE};
+        for(int i=0;i<modes.length;i++){
+            Plant plant = load(SHARED_SOURCE_PLANT);
+            Simulator simulator = new Simulator(plant);
+            simulator.setExecutionMode(modes[i]);
+            simulator.runTicks(CHECK_TICKS);
+            masses[i] = getMass(plant.get("forwarded", Chamber.class)) + getMass(plant.get("store", Chamber.class));
+        }
+        report("two-phase forwards like sequential", masses[0] > 0 && masses[0] == masses[1],
+                "sequential moved " + masses[0] + " kg, two-phase " + masses[1] + " kg");
+    }
+
+    //Two-phase stepping must give the same plant state whatever order the machines are listed in.
+    public static void checkTwoPhaseOrderIndependence() throws IOException {
+        String plantText = MATERIALS + DRIVE
+                + "compressor compressor initialVolume=0.02 initialPressure=1 pistonArea=.02 pistonMass=1 input=source output=store shaft=rotationalForce\n"
+                + "chamber source volume=10 output=forwarded alternateOutput=store\n"
+                + "chamber forwarded volume=10 output=source\n"
+                + "chamber store volume=1 output=forwarded\n"
+                + "contents source material=Nitrogen mass=1 temperature=294 pressure=1\n";
+        List<String> states = new ArrayList<>();
+        for(int order=0;order<2;order++){
+            Plant plant = load(plantText);
+            Simulator simulator = new Simulator(plant);
+            if(order == 1) Collections.reverse(simulator.getMachines());
+            simulator.setExecutionMode(Simulator.EXECUTION_MODE.TWO_PHASE);
+            simulator.runTicks(CHECK_TICKS);
+            states.add("source " + getMass(plant.get("source", Chamber.class)) + ", forwarded " + getMass(plant.get("forwarded", Chamber.class))
+                    + ", store " + getMass(plant.get("store", Chamber.class)) + ", rads " + plant.get("motor", Motor.class).getRads()
+                    + ", pressure " + plant.get("compressor", Compressor.class).getPressure());
+        }
+        report("two-phase is independent of machine order", states.get(0).equals(states.get(1)),
+                "listed order gave " + states.get(0) + "; reversed gave " + states.get(1));
+    }
+
+    //Adaptive steps ignore the step plans, so asking for both must fail whichever is set first rather than run sequentially.
+    public static void checkAdaptiveModeRejected(){
+        int rejected = 0;
+        for(int order=0;order<2;order++){
+            Simulator simulator = new Simulator();
+            try{
+                if(order == 0){
+                    simulator.setAdaptiveTimeStep(true);
+                    simulator.setExecutionMode(Simulator.EXECUTION_MODE.PARALLEL);
+                }else{
+                    simulator.setExecutionMode(Simulator.EXECUTION_MODE.PARALLEL);
+                    simulator.setAdaptiveTimeStep(true);
+                }
+            }catch(IllegalStateException e){
+                rejected++;
+            }
+        }
+        report("adaptive steps refuse other execution modes", rejected == 2, rejected + " of 2 orders rejected");
+    }
+
+    private static Plant load(String plantText) throws IOException {
+        return PlantLoader.load(new StringReader(plantText), "check plant");
+    }
+
+    private static double getMass(Chamber chamber){
+        return chamber.getContents() == null ? 0 : chamber.getContents().getMass();
+    }
+
+    private static void report(String name, boolean passed, String detail){
+        System.out.println((passed ? "PASS " : "FAIL ") + name + ": " + detail);
+        if(!passed) failures++;
+    }
+}
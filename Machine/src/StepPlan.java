@@ -0,0 +1,138 @@
+import java.util.ArrayList;
+import java.util.List;
+
+//Steps a machine list as runs of machines with the same concrete type, each run held in its own typed array so the step call in each loop is monomorphic.
+//Runs are taken in list order, so machines step in exactly the same order as iterating the list.
+public class StepPlan {
+    public enum SEGMENT_TYPE{
+        CHAMBER,
+        MOTOR,
+        COMPRESSOR,
+        HEAT_EXCHANGER,
+        EXPANDER,
+        OTHER
+    }
+
+    private SEGMENT_TYPE[] segmentTypes;
+    private Chamber[][] chamberSegments;
+    private Motor[][] motorSegments;
+    private Compressor[][] compressorSegments;
+    private HeatExchanger[][] heatExchangerSegments;
+    private Expander[][] expanderSegments;
+    private Machine[][] otherSegments;
+
+    public StepPlan(List<Machine> machines) {
+        List<List<Machine>> runs = new ArrayList<>();
+        List<Machine> run = null;
+        for(Machine machine : machines){
+            if(run == null || run.get(0).getClass() != machine.getClass()){
+                run = new ArrayList<>();
+                runs.add(run);
+            }
+            run.add(machine);
+        }
+
+        int segmentCount = runs.size();
+        segmentTypes = new SEGMENT_TYPE[segmentCount];
+        chamberSegments = new Chamber[segmentCount][];
+        motorSegments = new Motor[segmentCount][];
+        compressorSegments = new Compressor[segmentCount][];
+        heatExchangerSegments = new HeatExchanger[segmentCount][];
+        expanderSegments = new Expander[segmentCount][];
+        otherSegments = new Machine[segmentCount][];
+
+        for(int i=0;i<segmentCount;i++){
+            List<Machine> segment = runs.get(i);
+            Class<?> machineClass = segment.get(0).getClass();
+            if(machineClass == Chamber.class){
+                segmentTypes[i] = SEGMENT_TYPE.CHAMBER;
+                chamberSegments[i] = segment.toArray(new Chamber[0]);
+            }else if(machineClass == Motor.class){
+                segmentTypes[i] = SEGMENT_TYPE.MOTOR;
+                motorSegments[i] = segment.toArray(new Motor[0]);
+            }else if(machineClass == Compressor.class){
+                segmentTypes[i] = SEGMENT_TYPE.COMPRESSOR;
+                compressorSegments[i] = segment.toArray(new Compressor[0]);
+            }else if(machineClass == HeatExchanger.class){
+                segmentTypes[i] = SEGMENT_TYPE.HEAT_EXCHANGER;
+                heatExchangerSegments[i] = segment.toArray(new HeatExchanger[0]);
+            }else if(machineClass == Expander.class){
+                segmentTypes[i] = SEGMENT_TYPE.EXPANDER;
+                expanderSegments[i] = segment.toArray(new Expander[0]);
+            }else{
+                segmentTypes[i] = SEGMENT_TYPE.OTHER;
+                otherSegments[i] = segment.toArray(new Machine[0]);
+            }
+        }
+    }
+
+    public void runTicks(long ticks){
+        for(long tick=0;tick<ticks;tick++){
+            step();
+        }
+    }
+
+    public void step(){
+        for(int i=0;i<segmentTypes.length;i++){
+            switch(segmentTypes[i]){
+                case CHAMBER:
+                    stepChambers(chamberSegments[i]);
+                    break;
+                case MOTOR:
+                    stepMotors(motorSegments[i]);
+                    break;
+                case COMPRESSOR:
+                    stepCompressors(compressorSegments[i]);
+                    break;
+                case HEAT_EXCHANGER:
+                    stepHeatExchangers(heatExchangerSegments[i]);
+                    break;
+                case EXPANDER:
+                    stepExpanders(expanderSegments[i]);
+                    break;
+                default:
+                    stepOthers(otherSegments[i]);
+            }
+        }
+    }
+
+    private static void stepChambers(Chamber[] chambers){
+        for(int i=0;i<chambers.length;i++){
+            chambers[i].stepMachine();
+        }
+    }
+
+    private static void stepMotors(Motor[] motors){
+        for(int i=0;i<motors.length;i++){
+            motors[i].stepMachine();
+        }
+    }
+
+    private static void stepCompressors(Compressor[] compressors){
+        for(int i=0;i<compressors.length;i++){
+            compressors[i].stepMachine();
+        }
+    }
+
+    private static void stepHeatExchangers(HeatExchanger[] heatExchangers){
+        for(int i=0;i<heatExchangers.length;i++){
+            heatExchangers[i].stepMachine();
+        }
+    }
+
+    private static void stepExpanders(Expander[] expanders){
+        for(int i=0;i<expanders.length;i++){
+            expanders[i].stepMachine();
+        }
+    }
+
+    private static void stepOthers(Machine[] machines){
+        for(int i=0;i<machines.length;i++){
+            machines[i].stepMachine();
+        }
+    }
+
+    public int getSegmentCount() {
+        return segmentTypes.length;
+    }
+}
@@ -0,0 +1,82 @@
+import java.util.Arrays;
+import java.util.List;
+
+//Decides when a sweep run is hopeless and can be stopped early. Each run gets its own rule objects, so a rule may remember
+//what it saw at earlier checks. Rules look at the machines' state getters, so they work on any plant, not only the demo one.
+public interface StopRule {
+    double DEFAULT_STUCK_TIME = 5;
+
+    //Returns why the run should stop, or null to let it carry on. Called after every check interval of simulated time.
+    String check(Simulator simulator);
+
+    //A motor that has cut out on wire temperature.
+    static StopRule motorOverheated(){
+        return simulator -> {
+            List<Machine> machines = simulator.getMachines();
+            for(int i=0;i<machines.size();i++){
+                if(machines.get(i) instanceof Motor){
+                    Motor motor = (Motor)machines.get(i);
+                    if(motor.getState() == Motor.STATE.STOPPED || motor.getWireTemperature() > motor.getWireTemperatureRating()){
+                        return "motor overheated";
+                    }
+                }
+            }
+            return null;
+        };
+    }
+
+    //A heat exchanger whose contents are above what its pipe can hold.
+    static StopRule pipeOverPressure(){
+        return simulator -> {
+            List<Machine> machines = simulator.getMachines();
+            for(int i=0;i<machines.size();i++){
+                if(machines.get(i) instanceof HeatExchanger){
+                    HeatExchanger heatExchanger = (HeatExchanger)machines.get(i);
+                    if(heatExchanger.getPressure() > heatExchanger.getPipe().getMaxPressure()){
+                        return "pipe over pressure";
+                    }
+                }
+            }
+            return null;
+        };
+    }
+
+    static StopRule compressorStuck(){
+        return compressorStuck(DEFAULT_STUCK_TIME);
+    }
+
+    //A compressor that has neither pushed out a stroke nor moved its piston for at least stuckTime, whatever state it sits in:
+    //one that cannot pull gas, one that cannot push it on, and one whose motor cannot turn it all count.
+    static StopRule compressorStuck(double stuckTime){
+        return new StopRule() {
+            private long[] strokeCounts;
+            private double[] volumes;
+            private double[] lastProgressTimes;
+
+            @Override
+            public String check(Simulator simulator){
+                List<Machine> machines = simulator.getMachines();
+                double time = simulator.getSimulatedTime();
+                if(strokeCounts == null){
+                    strokeCounts = new long[machines.size()];
+                    volumes = new double[machines.size()];
+                    lastProgressTimes = new double[machines.size()];
+                    Arrays.fill(strokeCounts, -1);
+                }
+                for(int i=0;i<machines.size();i++){
+                    if(machines.get(i) instanceof Compressor){
+                        Compressor compressor = (Compressor)machines.get(i);
+                        if(compressor.getStrokeCount() != strokeCounts[i] || compressor.getVolume() != volumes[i]){
+                            strokeCounts[i] = compressor.getStrokeCount();
+                            volumes[i] = compressor.getVolume();
+                            lastProgressTimes[i] = time;
+                        }else if(time - lastProgressTimes[i] >= stuckTime){
+                            return "compressor stuck in " + compressor.getState();
+                        }
+                    }
+                }
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,110 @@
+//Jumps a motor driven compression stroke ahead instead of stepping it tick by tick.
+//While the stroke runs, the motor sits at the steady speed for the piston load, which changes far slower than the motor settles,
+//so the stroke reduces to two equations in piston displacement and wire temperature. These are integrated with RK4 in steps of many ticks.
+//A jump always stops short of the tick where the stroke reaches max compression, and that tick is then stepped normally.
+public class StrokeFastForward {
+    private static final int STEP_TICKS = 256;
+    private static final int MIN_STEP_TICKS = 16;
+    private static final int MARGIN_TICKS = 16;
+    private static final double STEADY_TOLERANCE = 0.000001;
+
+    private Motor motor;
+    private Compressor compressor;
+    private long remainingTicks;
+
+    private double displacementRate;
+    private double wireTemperatureRate;
+
+    public StrokeFastForward(Motor motor, Compressor compressor) {
+        this.motor = motor;
+        this.compressor = compressor;
+    }
+
+    //A compressor can be fast forwarded when the only thing on its shaft is the motor driving it.
+    public static boolean canFastForward(Compressor compressor){
+        RotationalForce inputValue = compressor.getInputValue();
+        if(inputValue == null || !(inputValue.getInputMachine() instanceof Motor)) return false;
+        Motor motor = (Motor)inputValue.getInputMachine();
+        return motor.getOutputValue() == inputValue && inputValue.getOutputMachine() == compressor;
+    }
+
+    public boolean canJump(){
+        return compressor.getState() == Compressor.STATE.RUNNING && motor.isSteady(STEADY_TOLERANCE);
+    }
+
+    //Jumps the stroke ahead by up to maxTicks and returns the number of ticks jumped, or 0 when the stroke has to be stepped.
+    public long jump(long maxTicks){
+        if(maxTicks < MIN_STEP_TICKS || !canJump()) return 0;
+
+        double time = Simulator.TIME_CONST;
+        double leverArm = compressor.getInputValue().getLeverArm();
+        double maxDisplacement = compressor.calculateMaxCompressionDisplacement(motor.calculateMaxTorque());
+        double maxLoadTorque = compressor.calculateLoadTorque(compressor.calculatePressure(maxDisplacement));
+        double margin = MARGIN_TICKS * time * leverArm * motor.calculateSteadyRads(maxLoadTorque, time);
+        double wireTemperatureRating = motor.getWireTemperatureRating();
+
+        double displacement = compressor.getPistonDisplacement();
+        double wireTemperature = motor.getWireTemperature();
+        long ticks = 0;
+        long stepTicks = STEP_TICKS;
+        while(ticks < maxTicks){
+            long n = Math.min(stepTicks, maxTicks - ticks);
+            double h = n * time;
+
+            calculateRates(displacement, wireTemperature, leverArm);
+            double k1x = displacementRate, k1t = wireTemperatureRate;
+            calculateRates(displacement + 0.5 * h * k1x, wireTemperature + 0.5 * h * k1t, leverArm);
+            double k2x = displacementRate, k2t = wireTemperatureRate;
+            calculateRates(displacement + 0.5 * h * k2x, wireTemperature + 0.5 * h * k2t, leverArm);
+            double k3x = displacementRate, k3t = wireTemperatureRate;
+            calculateRates(displacement + h * k3x, wireTemperature + h * k3t, leverArm);
+            double k4x = displacementRate, k4t = wireTemperatureRate;
+
+            double nextDisplacement = displacement + h * (k1x + 2 * k2x + 2 * k3x + k4x) / 6;
+            double nextWireTemperature = wireTemperature + h * (k1t + 2 * k2t + 2 * k3t + k4t) / 6;
+            if(nextDisplacement > maxDisplacement - margin || nextWireTemperature > wireTemperatureRating){
+                if(n <= MIN_STEP_TICKS) break;
+                stepTicks = n / 2;
+                continue;
+            }
+            displacement = nextDisplacement;
+            wireTemperature = nextWireTemperature;
+            ticks += n;
+        }
+        if(ticks == 0) return 0;
+
+        double rads = motor.calculateSteadyRads(compressor.calculateLoadTorque(compressor.calculatePressure(displacement)), time);
+        double angle = (displacement - compressor.getPistonDisplacement()) / leverArm;
+        motor.setSteadyState(rads, wireTemperature, angle);
+        compressor.setStrokeState(displacement, rads * leverArm, time);
+        remainingTicks = ticks;
+        return ticks;
+    }
+
+    public void calculateRates(double displacement, double wireTemperature, double leverArm){
+        double loadTorque = compressor.calculateLoadTorque(compressor.calculatePressure(displacement));
+        double rads = motor.calculateSteadyRads(loadTorque, Simulator.TIME_CONST);
+        displacementRate = rads * leverArm;
+        wireTemperatureRate = motor.calculateWireTemperatureRate(rads, wireTemperature);
+    }
+
+    public boolean isJumping(){
+        return remainingTicks > 0;
+    }
+
+    public void countTicks(long ticks){
+        remainingTicks -= ticks;
+    }
+
+    public long getRemainingTicks() {
+        return remainingTicks;
+    }
+
+    public Motor getMotor() {
+        return motor;
+    }
+
+    public Compressor getCompressor() {
+        return compressor;
+    }
+}
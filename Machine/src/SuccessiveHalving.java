@@ -0,0 +1,79 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+//Spends a sweep's simulation time on the configurations that look best so far.
+//Every run starts with minTime of simulated time. At the end of each rung the surviving runs are ranked by a metric,
+//the best 1/eta of them carry on and the rest are pruned, and the survivors' time grows eta times, until the sweep's run time is reached.
+//Runs keep their simulators between rungs, so a promoted run carries on where it stopped instead of starting again.
+//Stop rules are checked throughout, and a run they stop is never promoted.
+public class SuccessiveHalving {
+    public static final int DEFAULT_ETA = 3;
+
+    private ParameterSweep sweep;
+    private double minTime;
+    private int eta = DEFAULT_ETA;
+    private int metric;
+    private List<Integer> rungSizes = new ArrayList<>();
+
+    public SuccessiveHalving(ParameterSweep sweep, double minTime, String metricName) {
+        if(!(minTime > 0)) throw new IllegalArgumentException("The first rung needs some simulated time");
+        this.sweep = sweep;
+        this.minTime = minTime;
+        this.metric = sweep.getMetricNames().indexOf(metricName);
+        if(metric < 0) throw new IllegalArgumentException("No metric " + metricName);
+    }
+
+    public SweepResults run(List<SweepRun> runs){
+        ForkJoinPool pool = new ForkJoinPool(sweep.getParallelism());
+        long start = System.nanoTime();
+        try{
+            List<SweepRun> active = new ArrayList<>(runs);
+            double rungTime = minTime;
+            while(!active.isEmpty()){
+                double endTime = Math.min(rungTime, sweep.getRunTime());
+                rungSizes.add(active.size());
+                ParameterSweep.forEach(pool, active, run -> sweep.runTo(run, endTime));
+                active.removeIf(run -> {
+                    if(run.isActive()) return false;
+                    run.release();
+                    return true;
+                });
+                if(endTime >= sweep.getRunTime()) break;
+
+                active.sort(Comparator.comparingDouble((SweepRun run) -> {
+                    double value = run.getMetrics()[metric];
+                    return Double.isNaN(value) ? Double.NEGATIVE_INFINITY : value;
+                }).reversed());
+                int keep = Math.max(1, (active.size() + eta - 1) / eta);
+                for(SweepRun run : active.subList(keep, active.size())){
+                    run.stop("pruned at " + endTime + " s");
+                    run.release();
+                }
+                active = new ArrayList<>(active.subList(0, keep));
+                rungTime *= eta;
+            }
+            for(SweepRun run : active){
+                run.release();
+            }
+        }finally{
+            pool.shutdown();
+        }
+        return new SweepResults(sweep.getParameterNames(), sweep.getMetricNames(), runs, System.nanoTime() - start);
+    }
+
+    //How many runs started each rung.
+    public List<Integer> getRungSizes() {
+        return rungSizes;
+    }
+
+    public int getEta() {
+        return eta;
+    }
+
+    public void setEta(int eta) {
+        if(eta < 2) throw new IllegalArgumentException("Eta must be at least 2");
+        this.eta = eta;
+    }
+}
@@ -0,0 +1,64 @@
+//A plant field to vary in a sweep, named the way PlantLoader overrides are, as in pipe.length or carBattery.voltage.
+//It takes either a list of values, written pipe.length=50,100,200, or a range, written pipe.length=50:200 or pipe.length=50:200:4
+//where the last number is how many evenly spaced values a grid takes from the range.
+public class SweepParameter {
+    public static final int DEFAULT_GRID_STEPS = 5;
+
+    private String name;
+    private double[] values;
+    private double min;
+    private double max;
+    private int steps = DEFAULT_GRID_STEPS;
+
+    public SweepParameter(String name, double... values) {
+        if(values.length == 0) throw new IllegalArgumentException("Parameter " + name + " has no values");
+        this.name = name;
+        this.values = values;
+    }
+
+    public SweepParameter(String name, double min, double max, int steps) {
+        if(steps < 1) throw new IllegalArgumentException("Parameter " + name + " needs at least one step");
+        this.name = name;
+        this.min = min;
+        this.max = max;
+        this.steps = steps;
+    }
+
+    public static SweepParameter parse(String spec){
+        int split = spec.indexOf('=');
+        if(split <= 0) throw new IllegalArgumentException("Parameter " + spec + " is not name=values");
+        String name = spec.substring(0, split);
+        String value = spec.substring(split + 1);
+        if(value.contains(":")){
+            String[] range = value.split(":");
+            if(range.length < 2 || range.length > 3) throw new IllegalArgumentException("Parameter " + spec + " is not name=min:max or name=min:max:steps");
+            int steps = range.length == 3 ? Integer.parseInt(range[2]) : DEFAULT_GRID_STEPS;
+            return new SweepParameter(name, Double.parseDouble(range[0]), Double.parseDouble(range[1]), steps);
+        }
+        String[] list = value.split(",");
+        double[] values = new double[list.length];
+        for(int i=0;i<list.length;i++){
+            values[i] = Double.parseDouble(list[i]);
+        }
+        return new SweepParameter(name, values);
+    }
+
+    public double[] getGridValues(){
+        if(values != null) return values;
+        double[] gridValues = new double[steps];
+        for(int i=0;i<steps;i++){
+            gridValues[i] = steps == 1 ? min : min + (max - min) * i / (steps - 1);
+        }
+        return gridValues;
+    }
+
+    //Maps a fraction in [0, 1) onto the parameter, picking from the list or interpolating across the range.
+    public double getValue(double fraction){
+        if(values != null) return values[Math.min(values.length - 1, (int)(fraction * values.length))];
+        return min + (max - min) * fraction;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
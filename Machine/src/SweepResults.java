@@ -0,0 +1,138 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+//The table a sweep produces: one row per configuration, with its parameter values, then its metrics or the reason it failed.
+public class SweepResults {
+    private List<String> parameterNames;
+    private List<String> metricNames;
+    private List<SweepRun> runs;
+    private long elapsedNanos;
+
+    public SweepResults(List<String> parameterNames, List<String> metricNames, List<SweepRun> runs, long elapsedNanos) {
+        this.parameterNames = parameterNames;
+        this.metricNames = metricNames;
+        this.runs = runs;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    //Runs that were measured, best first. Runs that got further in simulated time come before runs stopped or pruned earlier,
+    //since their metrics are not comparable, and runs measured at the same time are ranked by the metric. NaN values sort last.
+    public List<SweepRun> getRanked(String metricName){
+        int metric = getMetricIndex(metricName);
+        List<SweepRun> ranked = new ArrayList<>();
+        for(SweepRun run : runs){
+            if(!run.isFailed() && run.getMetrics() != null) ranked.add(run);
+        }
+        ranked.sort(Comparator.comparingDouble(SweepRun::getMeasuredTime).thenComparingDouble((SweepRun run) -> {
+            double value = run.getMetrics()[metric];
+            return Double.isNaN(value) ? Double.NEGATIVE_INFINITY : value;
+        }).reversed());
+        return ranked;
+    }
+
+    public int getMetricIndex(String metricName){
+        int metric = metricNames.indexOf(metricName);
+        if(metric < 0) throw new IllegalArgumentException("No metric " + metricName);
+        return metric;
+    }
+
+    public int getFailedCount(){
+        int failed = 0;
+        for(SweepRun run : runs){
+            if(run.isFailed()) failed++;
+        }
+        return failed;
+    }
+
+    public int getStoppedCount(){
+        int stopped = 0;
+        for(SweepRun run : runs){
+            if(run.isStopped()) stopped++;
+        }
+        return stopped;
+    }
+
+    public void print(PrintStream out, String sortMetric, int top){
+        long simulatedNanos = 0;
+        for(SweepRun run : runs){
+            simulatedNanos += run.getElapsedNanos();
+        }
+        double seconds = elapsedNanos / 1e9;
+        out.println("Ran " + runs.size() + " configurations in " + seconds + " s (" + simulatedNanos / 1e9 + " s of simulation, " + getFailedCount() + " failed, " + getStoppedCount() + " stopped)");
+
+        StringBuilder header = new StringBuilder(String.format("%6s", "run"));
+        for(String name : parameterNames) header.append(String.format(" %22s", name));
+        for(String name : metricNames) header.append(String.format(" %20s", name));
+        header.append("  status");
+        out.println(header);
+        List<SweepRun> ranked = getRanked(sortMetric);
+        for(int i=0;i<Math.min(top, ranked.size());i++){
+            SweepRun run = ranked.get(i);
+            StringBuilder row = new StringBuilder(String.format("%6d", run.getIndex()));
+            for(double value : run.getValues()) row.append(String.format(" %22.6g", value));
+            for(double value : run.getMetrics()) row.append(String.format(" %20.6g", value));
+            row.append("  ").append(run.getStatus());
+            out.println(row);
+        }
+        for(SweepRun run : runs){
+            if(run.isFailed()){
+                out.println("Run " + run.getIndex() + " failed: " + run.getError());
+                break;
+            }
+        }
+    }
+
+    //One line per configuration in run order, with the simulated time its metrics were measured at.
+    //Failed runs leave the metrics empty and give the error in the last column. Stopped runs give the reason in the status column.
+    public void writeCsv(Path path) throws IOException {
+        try(PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))){
+            StringBuilder header = new StringBuilder("run");
+            for(String name : parameterNames) header.append(',').append(name);
+            for(String name : metricNames) header.append(',').append(name);
+            header.append(",measuredTime,simulationSeconds,status,error");
+            writer.println(header);
+            for(SweepRun run : runs){
+                StringBuilder row = new StringBuilder().append(run.getIndex());
+                for(double value : run.getValues()) row.append(',').append(value);
+                for(int i=0;i<metricNames.size();i++){
+                    row.append(',');
+                    if(run.getMetrics() != null) row.append(run.getMetrics()[i]);
+                }
+                row.append(',');
+                if(run.getMetrics() != null) row.append(run.getMeasuredTime());
+                row.append(',').append(run.getElapsedNanos() / 1e9);
+                row.append(',').append(quote(run.getStatus()));
+                row.append(',');
+                if(run.isFailed()) row.append(quote(run.getError()));
+                writer.println(row);
+            }
+        }
+    }
+
+    private static String quote(String text){
+        return '"' + text.replace('"', '\'').replace('\n', ' ').replace('\r', ' ') + '"';
+    }
+
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    public List<String> getMetricNames() {
+        return metricNames;
+    }
+
+    public List<SweepRun> getRuns() {
+        return runs;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,127 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+//One configuration of a sweep: the parameter values, the simulator built from them while it runs, and the metrics last measured.
+//A configuration the plant loader rejects, or whose simulation throws, keeps the error instead of metrics.
+//A run can also be stopped by one of its StopRules, or pruned by a scheduler. Either way it keeps the metrics measured when it ended.
+public class SweepRun {
+    private int index;
+    private double[] values;
+    private Simulator simulator;
+    private List<StopRule> stopRules = new ArrayList<>();
+    private double[] metrics;
+    private double measuredTime;
+    private String error;
+    private String stopReason;
+    private long elapsedNanos;
+
+    public SweepRun(int index, double[] values) {
+        this.index = index;
+        this.values = values;
+    }
+
+    public void addStopRules(List<Supplier<StopRule>> stopRuleFactories){
+        for(Supplier<StopRule> stopRuleFactory : stopRuleFactories){
+            stopRules.add(stopRuleFactory.get());
+        }
+    }
+
+    //Runs the simulator on until the given simulated time, checking the stop rules every checkInterval.
+    //Returns false when a rule stopped the run. Without rules the time is run in one go.
+    public boolean advance(double endTime, double checkInterval){
+        long endTick = (long)(endTime / Simulator.TIME_CONST);
+        long checkTicks = stopRules.isEmpty() ? Long.MAX_VALUE : Math.max(1, (long)(checkInterval / Simulator.TIME_CONST));
+        while(simulator.getTickCount() < endTick){
+            long start = System.nanoTime();
+            simulator.runTicks(Math.min(checkTicks, endTick - simulator.getTickCount()));
+            elapsedNanos += System.nanoTime() - start;
+            for(StopRule stopRule : stopRules){
+                String reason = stopRule.check(simulator);
+                if(reason != null){
+                    stop(reason + " at " + simulator.getSimulatedTime() + " s");
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public void measure(List<ParameterSweep.Metric> metricList){
+        metrics = new double[metricList.size()];
+        for(int i=0;i<metrics.length;i++){
+            metrics[i] = metricList.get(i).measure(simulator);
+        }
+        measuredTime = simulator.getSimulatedTime();
+    }
+
+    public void fail(String error){
+        this.error = error;
+        simulator = null;
+        stopRules = null;
+    }
+
+    //Ends the run early. The simulator is kept until the metrics have been measured, and then let go with release().
+    public void stop(String reason){
+        stopReason = reason;
+    }
+
+    public void release(){
+        simulator = null;
+        stopRules = null;
+    }
+
+    public boolean isFailed(){
+        return error != null;
+    }
+
+    public boolean isStopped(){
+        return stopReason != null;
+    }
+
+    public boolean isActive(){
+        return error == null && stopReason == null;
+    }
+
+    public String getStatus(){
+        if(error != null) return "failed";
+        if(stopReason != null) return "stopped: " + stopReason;
+        return "done";
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public Simulator getSimulator() {
+        return simulator;
+    }
+
+    public void setSimulator(Simulator simulator) {
+        this.simulator = simulator;
+    }
+
+    public double[] getMetrics() {
+        return metrics;
+    }
+
+    public double getMeasuredTime() {
+        return measuredTime;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public String getStopReason() {
+        return stopReason;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
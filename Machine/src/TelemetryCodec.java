@@ -0,0 +1,137 @@
+//Encodes the columns of a telemetry block into bits and back.
+//Ticks are stored as the change in their spacing, which is zero for a run with fixed decimation and costs one bit a sample.
+//Values use the XOR scheme from Facebook's Gorilla: each value is XORed with the one before, and only the bits between the leading
+//and trailing zeros are kept, reusing the previous window when they fit in it. Values that do not change cost one bit.
+//States are enum ordinals that hold for long stretches, so they are stored as runs of ordinal and length.
+public class TelemetryCodec {
+
+    public static void encodeTicks(long[] ticks, int count, BitWriter writer){
+        if(count == 0) return;
+        writer.writeBits(ticks[0], 64);
+        long delta = 0;
+        for(int i=1;i<count;i++){
+            long nextDelta = ticks[i] - ticks[i - 1];
+            long deltaOfDelta = nextDelta - delta;
+            delta = nextDelta;
+            if(deltaOfDelta == 0){
+                writer.writeBits(0b0, 1);
+            }else if(deltaOfDelta >= -63 && deltaOfDelta <= 64){
+                writer.writeBits(0b10, 2);
+                writer.writeBits(deltaOfDelta, 7);
+            }else if(deltaOfDelta >= -255 && deltaOfDelta <= 256){
+                writer.writeBits(0b110, 3);
+                writer.writeBits(deltaOfDelta, 9);
+            }else if(deltaOfDelta >= -2047 && deltaOfDelta <= 2048){
+                writer.writeBits(0b1110, 4);
+                writer.writeBits(deltaOfDelta, 12);
+            }else{
+                writer.writeBits(0b1111, 4);
+                writer.writeBits(deltaOfDelta, 64);
+            }
+        }
+    }
+
+    public static void decodeTicks(BitReader reader, long[] ticks, int count){
+        if(count == 0) return;
+        ticks[0] = reader.readBits(64);
+        long delta = 0;
+        for(int i=1;i<count;i++){
+            long deltaOfDelta;
+            if(!reader.readBit()){
+                deltaOfDelta = 0;
+            }else if(!reader.readBit()){
+                deltaOfDelta = signExtend(reader.readBits(7), 7);
+            }else if(!reader.readBit()){
+                deltaOfDelta = signExtend(reader.readBits(9), 9);
+            }else if(!reader.readBit()){
+                deltaOfDelta = signExtend(reader.readBits(12), 12);
+            }else{
+                deltaOfDelta = reader.readBits(64);
+            }
+            delta += deltaOfDelta;
+            ticks[i] = ticks[i - 1] + delta;
+        }
+    }
+
+    //The ranges above are one wider on the positive side, so values past the top of the signed range are the positive end.
+    public static long signExtend(long value, int bits){
+        long half = 1L << (bits - 1);
+        return value > half ? value - (1L << bits) : value;
+    }
+
+    public static void encodeValues(double[] values, int count, BitWriter writer){
+        if(count == 0) return;
+        long previous = Double.doubleToRawLongBits(values[0]);
+        writer.writeBits(previous, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for(int i=1;i<count;i++){
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previous;
+            previous = bits;
+            if(xor == 0){
+                writer.writeBits(0b0, 1);
+                continue;
+            }
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if(previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing){
+                writer.writeBits(0b10, 2);
+                writer.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            }else{
+                int length = 64 - leading - trailing;
+                writer.writeBits(0b11, 2);
+                writer.writeBits(leading, 5);
+                writer.writeBits(length & 0x3F, 6);
+                writer.writeBits(xor >>> trailing, length);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+    }
+
+    public static void decodeValues(BitReader reader, double[] values, int count){
+        if(count == 0) return;
+        long previous = reader.readBits(64);
+        values[0] = Double.longBitsToDouble(previous);
+        int leading = 0;
+        int trailing = 0;
+        for(int i=1;i<count;i++){
+            if(reader.readBit()){
+                if(reader.readBit()){
+                    leading = (int)reader.readBits(5);
+                    int length = (int)reader.readBits(6);
+                    if(length == 0) length = 64;
+                    trailing = 64 - leading - length;
+                }
+                previous ^= reader.readBits(64 - leading - trailing) << trailing;
+            }
+            values[i] = Double.longBitsToDouble(previous);
+        }
+    }
+
+    public static void encodeStates(double[] states, int count, BitWriter writer){
+        int i = 0;
+        while(i < count){
+            double state = states[i];
+            int runLength = 1;
+            while(i + runLength < count && states[i + runLength] == state){
+                runLength++;
+            }
+            writer.writeVarLong((long)state);
+            writer.writeVarLong(runLength);
+            i += runLength;
+        }
+    }
+
+    public static void decodeStates(BitReader reader, double[] states, int count){
+        int i = 0;
+        while(i < count){
+            double state = reader.readVarLong();
+            int runLength = (int)reader.readVarLong();
+            for(int j=0;j<runLength;j++){
+                states[i++] = state;
+            }
+        }
+    }
+}
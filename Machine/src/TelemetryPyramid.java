@@ -0,0 +1,250 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+//Minimum, maximum and sum of every channel over each block of a telemetry file, and over runs of 2, 4, 8... blocks above that.
+//Level k holds one node for every 2^k complete blocks, so any run of whole blocks is covered by at most two nodes per level.
+//The recorder adds samples as it writes them. Levels above the first are built as blocks complete, and are rebuilt from the first level when loaded.
+//Arrays grow by doubling, so adding a sample does not allocate.
+public class TelemetryPyramid {
+    public static final int MAGIC = 0x4D545059;
+    public static final int VERSION = 1;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private int channelCount;
+    private int blockSamples;
+    private int blockCount;
+    private long[] firstTicks = new long[INITIAL_CAPACITY];
+    //Indexed by level, then node index times the channel count plus the channel.
+    private double[][] minimums = new double[1][];
+    private double[][] maximums = new double[1][];
+    private double[][] sums = new double[1][];
+    private int[] levelSizes = new int[1];
+
+    private double[] blockMinimums;
+    private double[] blockMaximums;
+    private double[] blockSums;
+    private int blockSample;
+    private long blockFirstTick;
+
+    public TelemetryPyramid(int channelCount, int blockSamples) {
+        this.channelCount = channelCount;
+        this.blockSamples = blockSamples;
+        minimums[0] = new double[INITIAL_CAPACITY * channelCount];
+        maximums[0] = new double[INITIAL_CAPACITY * channelCount];
+        sums[0] = new double[INITIAL_CAPACITY * channelCount];
+        blockMinimums = new double[channelCount];
+        blockMaximums = new double[channelCount];
+        blockSums = new double[channelCount];
+        resetBlock();
+    }
+
+    //Builds the pyramid of an existing telemetry file.
+    public static TelemetryPyramid build(TelemetryReader reader) throws IOException {
+        int channelCount = reader.getChannelNames().size();
+        TelemetryPyramid pyramid = new TelemetryPyramid(channelCount, reader.getBlockSamples());
+        long[] ticks = new long[reader.getBlockSamples()];
+        double[] values = new double[reader.getBlockSamples()];
+        for(long block=0;block<reader.getBlockCount();block++){
+            int count = reader.readTicks(block, ticks);
+            if(count < reader.getBlockSamples()) break;
+            pyramid.blockFirstTick = ticks[0];
+            for(int channel=0;channel<channelCount;channel++){
+                reader.readChannel(block, channel, values);
+                for(int i=0;i<count;i++){
+                    pyramid.addValue(channel, values[i]);
+                }
+            }
+            pyramid.blockSample = count;
+            pyramid.completeBlock();
+        }
+        return pyramid;
+    }
+
+    public void addValue(int channel, double value){
+        if(value < blockMinimums[channel]) blockMinimums[channel] = value;
+        if(value > blockMaximums[channel]) blockMaximums[channel] = value;
+        blockSums[channel] += value;
+    }
+
+    //Called after every channel of a sample has been added.
+    public void endSample(long tick){
+        if(blockSample == 0) blockFirstTick = tick;
+        blockSample++;
+        if(blockSample == blockSamples){
+            completeBlock();
+        }
+    }
+
+    public void completeBlock(){
+        if(blockCount == firstTicks.length){
+            firstTicks = Arrays.copyOf(firstTicks, firstTicks.length * 2);
+        }
+        firstTicks[blockCount] = blockFirstTick;
+        blockCount++;
+        addNode(0, blockMinimums, blockMaximums, blockSums);
+        resetBlock();
+
+        //A node on the next level up is finished when its right child is.
+        int level = 0;
+        while(levelSizes[level] % 2 == 0){
+            int right = (levelSizes[level] - 1) * channelCount;
+            int left = right - channelCount;
+            if(level + 1 == levelSizes.length) addLevel();
+            int node = levelSizes[level + 1];
+            ensureCapacity(level + 1, node + 1);
+            int offset = node * channelCount;
+            for(int channel=0;channel<channelCount;channel++){
+                minimums[level + 1][offset + channel] = Math.min(minimums[level][left + channel], minimums[level][right + channel]);
+                maximums[level + 1][offset + channel] = Math.max(maximums[level][left + channel], maximums[level][right + channel]);
+                sums[level + 1][offset + channel] = sums[level][left + channel] + sums[level][right + channel];
+            }
+            levelSizes[level + 1]++;
+            level++;
+        }
+    }
+
+    public void addNode(int level, double[] nodeMinimums, double[] nodeMaximums, double[] nodeSums){
+        int node = levelSizes[level];
+        ensureCapacity(level, node + 1);
+        System.arraycopy(nodeMinimums, 0, minimums[level], node * channelCount, channelCount);
+        System.arraycopy(nodeMaximums, 0, maximums[level], node * channelCount, channelCount);
+        System.arraycopy(nodeSums, 0, sums[level], node * channelCount, channelCount);
+        levelSizes[level]++;
+    }
+
+    public void addLevel(){
+        int levels = levelSizes.length + 1;
+        minimums = Arrays.copyOf(minimums, levels);
+        maximums = Arrays.copyOf(maximums, levels);
+        sums = Arrays.copyOf(sums, levels);
+        levelSizes = Arrays.copyOf(levelSizes, levels);
+        int capacity = Math.max(INITIAL_CAPACITY, minimums[levels - 2].length / channelCount / 2) * channelCount;
+        minimums[levels - 1] = new double[capacity];
+        maximums[levels - 1] = new double[capacity];
+        sums[levels - 1] = new double[capacity];
+    }
+
+    public void ensureCapacity(int level, int nodes){
+        if(nodes * channelCount > minimums[level].length){
+            int capacity = minimums[level].length * 2;
+            minimums[level] = Arrays.copyOf(minimums[level], capacity);
+            maximums[level] = Arrays.copyOf(maximums[level], capacity);
+            sums[level] = Arrays.copyOf(sums[level], capacity);
+        }
+    }
+
+    public void resetBlock(){
+        Arrays.fill(blockMinimums, Double.POSITIVE_INFINITY);
+        Arrays.fill(blockMaximums, Double.NEGATIVE_INFINITY);
+        Arrays.fill(blockSums, 0);
+        blockSample = 0;
+    }
+
+    //Adds the whole blocks from fromBlock up to but not including toBlock, using at most two nodes a level.
+    public void summarizeBlocks(int channel, int fromBlock, int toBlock, TelemetrySummary summary){
+        int from = fromBlock;
+        int to = toBlock;
+        for(int level=0;level<levelSizes.length && from < to;level++){
+            long nodeSamples = (long)blockSamples << level;
+            if((from & 1) == 1){
+                addNodeTo(level, from, channel, nodeSamples, summary);
+                from++;
+            }
+            if((to & 1) == 1){
+                to--;
+                addNodeTo(level, to, channel, nodeSamples, summary);
+            }
+            from >>= 1;
+            to >>= 1;
+        }
+    }
+
+    public void addNodeTo(int level, int node, int channel, long nodeSamples, TelemetrySummary summary){
+        int index = node * channelCount + channel;
+        summary.add(minimums[level][index], maximums[level][index], sums[level][index], nodeSamples);
+    }
+
+    //Index of the last complete block starting at or before the tick, or -1 when there is none.
+    public int findBlock(long tick){
+        int low = 0;
+        int high = blockCount;
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(firstTicks[middle] <= tick){
+                low = middle + 1;
+            }else{
+                high = middle;
+            }
+        }
+        return low - 1;
+    }
+
+    //Only the first level is saved. The levels above it are rebuilt on load.
+    public void save(Path path) throws IOException {
+        try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile()), BUFFER_SIZE))){
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(channelCount);
+            output.writeInt(blockSamples);
+            output.writeInt(blockCount);
+            for(int block=0;block<blockCount;block++){
+                output.writeLong(firstTicks[block]);
+                for(int channel=0;channel<channelCount;channel++){
+                    int index = block * channelCount + channel;
+                    output.writeDouble(minimums[0][index]);
+                    output.writeDouble(maximums[0][index]);
+                    output.writeDouble(sums[0][index]);
+                }
+            }
+        }
+    }
+
+    public static TelemetryPyramid load(Path path) throws IOException {
+        try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(path.toFile()), BUFFER_SIZE))){
+            if(input.readInt() != MAGIC) throw new IOException("Not a telemetry pyramid file");
+            int version = input.readInt();
+            if(version != VERSION) throw new IOException("Unsupported telemetry pyramid version " + version);
+            int channelCount = input.readInt();
+            TelemetryPyramid pyramid = new TelemetryPyramid(channelCount, input.readInt());
+            int blockCount = input.readInt();
+            for(int block=0;block<blockCount;block++){
+                pyramid.blockFirstTick = input.readLong();
+                for(int channel=0;channel<channelCount;channel++){
+                    pyramid.blockMinimums[channel] = input.readDouble();
+                    pyramid.blockMaximums[channel] = input.readDouble();
+                    pyramid.blockSums[channel] = input.readDouble();
+                }
+                pyramid.completeBlock();
+            }
+            return pyramid;
+        }
+    }
+
+    public static Path getPyramidPath(Path telemetryPath){
+        return telemetryPath.resolveSibling(telemetryPath.getFileName() + ".pyramid");
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    public int getBlockSamples() {
+        return blockSamples;
+    }
+
+    public int getLevelCount() {
+        return levelSizes.length;
+    }
+
+    public int getChannelCount() {
+        return channelCount;
+    }
+}
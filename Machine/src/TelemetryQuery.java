@@ -0,0 +1,72 @@
+import java.io.IOException;
+
+//Answers min, max and mean queries over tick windows of a telemetry file.
+//Whole blocks inside the window come from the pyramid in O(log n) nodes, and only the partly covered blocks at either end are read from the file.
+public class TelemetryQuery {
+    private TelemetryReader reader;
+    private TelemetryPyramid pyramid;
+    private long[] ticks;
+    private double[] values;
+
+    public TelemetryQuery(TelemetryReader reader, TelemetryPyramid pyramid) {
+        if(pyramid.getBlockSamples() != reader.getBlockSamples() || pyramid.getChannelCount() != reader.getChannelNames().size()){
+            throw new IllegalArgumentException("Pyramid does not match the telemetry file");
+        }
+        this.reader = reader;
+        this.pyramid = pyramid;
+        ticks = new long[reader.getBlockSamples()];
+        values = new double[reader.getBlockSamples()];
+    }
+
+    public TelemetrySummary summarize(String name, long fromTick, long toTick) throws IOException {
+        TelemetrySummary summary = new TelemetrySummary();
+        summarize(reader.getChannelIndex(name), fromTick, toTick, summary);
+        return summary;
+    }
+
+    //Adds the samples with ticks from fromTick to toTick inclusive to the summary.
+    public void summarize(int channel, long fromTick, long toTick, TelemetrySummary summary) throws IOException {
+        int completeBlocks = pyramid.getBlockCount();
+        long firstBlock = Math.max(pyramid.findBlock(fromTick), 0);
+        long lastBlock = pyramid.findBlock(toTick);
+        if(fromTick > toTick || lastBlock < 0 && completeBlocks > 0) return;
+
+        //Blocks strictly between the first and last start after fromTick and end before toTick.
+        long wholeFrom = Math.min(firstBlock + 1, completeBlocks);
+        long wholeTo = Math.max(wholeFrom, Math.min(lastBlock, completeBlocks));
+        //The last block of the file is only in the pyramid once it is full, so a window ending in the last complete block may run on into it.
+        if(lastBlock == completeBlocks - 1) lastBlock = reader.getBlockCount() - 1;
+        for(long block=firstBlock;block<wholeFrom && block<=lastBlock;block++){
+            scanBlock(block, channel, fromTick, toTick, summary);
+        }
+        pyramid.summarizeBlocks(channel, (int)wholeFrom, (int)wholeTo, summary);
+        for(long block=wholeTo;block<=lastBlock;block++){
+            scanBlock(block, channel, fromTick, toTick, summary);
+        }
+    }
+
+    //Summaries of a window split into equal parts, for plotting a long history one pixel column at a time.
+    public TelemetrySummary[] summarize(String name, long fromTick, long toTick, int parts) throws IOException {
+        int channel = reader.getChannelIndex(name);
+        TelemetrySummary[] summaries = new TelemetrySummary[parts];
+        double partTicks = (double)(toTick - fromTick + 1) / parts;
+        for(int i=0;i<parts;i++){
+            summaries[i] = new TelemetrySummary();
+            long partFrom = fromTick + (long)Math.ceil(i * partTicks);
+            long partTo = fromTick + (long)Math.ceil((i + 1) * partTicks) - 1;
+            summarize(channel, partFrom, partTo, summaries[i]);
+        }
+        return summaries;
+    }
+
+    public void scanBlock(long block, int channel, long fromTick, long toTick, TelemetrySummary summary) throws IOException {
+        int count = reader.readTicks(block, ticks);
+        if(count == 0 || ticks[0] > toTick || ticks[count - 1] < fromTick) return;
+        reader.readChannel(block, channel, values);
+        for(int i=0;i<count;i++){
+            if(ticks[i] >= fromTick && ticks[i] <= toTick){
+                summary.add(values[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+//Reads back a file written by TelemetryRecorder one block column at a time.
+public class TelemetryReader implements AutoCloseable {
+    private FileChannel fileChannel;
+    private List<String> channelNames = new ArrayList<>();
+    private List<TelemetryRecorder.CHANNEL_TYPE> channelTypes = new ArrayList<>();
+    private int blockSamples;
+    private int headerSize;
+    private long decimation;
+    private long sampleCount;
+    private double timeStep;
+    private ByteBuffer columnBuffer;
+
+    public TelemetryReader(Path path) throws IOException {
+        fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(TelemetryRecorder.FIXED_HEADER_SIZE);
+        fileChannel.read(header, 0);
+        header.flip();
+        if(header.remaining() < TelemetryRecorder.FIXED_HEADER_SIZE || header.getInt() != TelemetryRecorder.MAGIC) throw new IOException("Not a telemetry file");
+        int version = header.getInt();
+        if(version != TelemetryRecorder.VERSION) throw new IOException("Unsupported telemetry version " + version);
+        int channelCount = header.getInt();
+        blockSamples = header.getInt();
+        headerSize = header.getInt();
+        decimation = header.getLong();
+        sampleCount = header.getLong();
+        timeStep = header.getDouble();
+
+        ByteBuffer names = ByteBuffer.allocate(headerSize - TelemetryRecorder.FIXED_HEADER_SIZE);
+        fileChannel.read(names, TelemetryRecorder.FIXED_HEADER_SIZE);
+        names.flip();
+        for(int i=0;i<channelCount;i++){
+            channelTypes.add(TelemetryRecorder.CHANNEL_TYPE.values()[names.get()]);
+            byte[] name = new byte[names.getShort()];
+            names.get(name);
+            channelNames.add(new String(name, StandardCharsets.UTF_8));
+        }
+        columnBuffer = ByteBuffer.allocate(blockSamples * 8);
+    }
+
+    public long getBlockCount(){
+        return (sampleCount + blockSamples - 1) / blockSamples;
+    }
+
+    //Size of the header and the recorded samples, leaving out the unused end of the last block and of any uncut region.
+    public long getDataSize(){
+        return headerSize + sampleCount * 8 * (2 + channelNames.size());
+    }
+
+    public int getBlockSampleCount(long block){
+        return (int)Math.min(blockSamples, sampleCount - block * blockSamples);
+    }
+
+    //Reads the ticks of the samples in a block and returns how many there are.
+    public int readTicks(long block, long[] ticks) throws IOException {
+        int count = readColumn(block, 0);
+        for(int i=0;i<count;i++){
+            ticks[i] = columnBuffer.getLong(i * 8);
+        }
+        return count;
+    }
+
+    public int readTimes(long block, double[] times) throws IOException {
+        int count = readColumn(block, 1);
+        for(int i=0;i<count;i++){
+            times[i] = columnBuffer.getDouble(i * 8);
+        }
+        return count;
+    }
+
+    public int readChannel(long block, int channel, double[] values) throws IOException {
+        int count = readColumn(block, 2 + channel);
+        for(int i=0;i<count;i++){
+            values[i] = columnBuffer.getDouble(i * 8);
+        }
+        return count;
+    }
+
+    //Reads a whole channel, for traces small enough to hold in memory.
+    public double[] readChannel(String name) throws IOException {
+        int channel = getChannelIndex(name);
+        if(sampleCount > Integer.MAX_VALUE) throw new IOException("Channel " + name + " is too long to read at once");
+        double[] values = new double[(int)sampleCount];
+        double[] blockValues = new double[blockSamples];
+        for(long block=0;block<getBlockCount();block++){
+            int count = readChannel(block, channel, blockValues);
+            System.arraycopy(blockValues, 0, values, (int)(block * blockSamples), count);
+        }
+        return values;
+    }
+
+    public int readColumn(long block, int column) throws IOException {
+        int count = getBlockSampleCount(block);
+        long position = headerSize + block * (long)blockSamples * 8 * (2 + channelNames.size()) + (long)column * blockSamples * 8;
+        columnBuffer.clear().limit(count * 8);
+        while(columnBuffer.hasRemaining()){
+            if(fileChannel.read(columnBuffer, position + columnBuffer.position()) < 0) throw new IOException("Telemetry file ends inside block " + block);
+        }
+        return count;
+    }
+
+    public int getChannelIndex(String name){
+        int channel = channelNames.indexOf(name);
+        if(channel < 0) throw new IllegalArgumentException("No channel " + name);
+        return channel;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+
+    public List<String> getChannelNames() {
+        return channelNames;
+    }
+
+    public List<TelemetryRecorder.CHANNEL_TYPE> getChannelTypes() {
+        return channelTypes;
+    }
+
+    public int getBlockSamples() {
+        return blockSamples;
+    }
+
+    public long getDecimation() {
+        return decimation;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    public double getTimeStep() {
+        return timeStep;
+    }
+}
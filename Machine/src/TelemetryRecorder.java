@@ -0,0 +1,284 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+//Records machine values into a memory-mapped file while the simulation runs.
+//The file is a fixed header followed by blocks of BLOCK_SAMPLES samples. Each block is stored column by column:
+//the tick of every sample, then the simulated time, then each channel in the order it was added, all 8 bytes wide.
+//Samples are written straight into the mapped region with absolute puts, so recording neither boxes nor allocates.
+//Regions hold as many whole blocks as fit in MAX_REGION_SIZE, and at least one, so wide plants can still be mapped.
+//The sample count in the header is brought up to date after every block, so a run that dies still leaves a readable file,
+//and readers take the number of samples from the header rather than from the file size.
+//On close the file is cut back to the blocks that were used, dropping the unused end of the last region.
+//State channels hold the ordinal of an enum, and are marked in the header so archives can store them as runs.
+//A TelemetryPyramid of the blocks is built as samples are recorded and saved next to the file on close.
+public class TelemetryRecorder {
+    public enum CHANNEL_TYPE{
+        VALUE,
+        STATE
+    }
+
+    public static final int MAGIC = 0x4D54454C;
+    public static final int VERSION = 2;
+    public static final int BLOCK_SAMPLES = 4096;
+    public static final int FIXED_HEADER_SIZE = 44;
+    private static final long MAX_REGION_SIZE = 64L << 20;
+    private static final int HEADER_ALIGNMENT = 4096;
+    private static final int SAMPLE_COUNT_OFFSET = 28;
+
+    private Path path;
+    private long decimation;
+    private List<String> channelNames = new ArrayList<>();
+    private List<CHANNEL_TYPE> channelTypes = new ArrayList<>();
+    private List<DoubleSupplier> channelList = new ArrayList<>();
+    private DoubleSupplier[] channels;
+    private boolean buildPyramid = true;
+    private TelemetryPyramid pyramid;
+
+    private FileChannel fileChannel;
+    private MappedByteBuffer header;
+    private MappedByteBuffer region;
+    private int headerSize;
+    private long blockSize;
+    private long regionBlocks;
+    private long regionBlock;
+    private int blockOffset;
+    private int blockSample;
+    private long sampleCount;
+
+    public TelemetryRecorder(Path path, long decimation) {
+        if(decimation < 1) throw new IllegalArgumentException("Decimation must be at least 1");
+        this.path = path;
+        this.decimation = decimation;
+    }
+
+    public void addChannel(String name, DoubleSupplier channel){
+        addChannel(name, CHANNEL_TYPE.VALUE, channel);
+    }
+
+    public void addStateChannel(String name, DoubleSupplier channel){
+        addChannel(name, CHANNEL_TYPE.STATE, channel);
+    }
+
+    public void addChannel(String name, CHANNEL_TYPE channelType, DoubleSupplier channel){
+        if(fileChannel != null) throw new IllegalStateException("Channels must be added before the recorder is opened");
+        channelNames.add(name);
+        channelTypes.add(channelType);
+        channelList.add(channel);
+    }
+
+    public void addMotor(String name, Motor motor){
+        addStateChannel(name + ".state", () -> motor.getState().ordinal());
+        addChannel(name + ".rpm", motor::getRpm);
+        addChannel(name + ".current", motor::getCurrent);
+        addChannel(name + ".torque", motor::getTorque);
+        addChannel(name + ".wireTemperature", motor::getWireTemperature);
+    }
+
+    public void addCompressor(String name, Compressor compressor){
+        addStateChannel(name + ".state", () -> compressor.getState().ordinal());
+        addChannel(name + ".pressure", compressor::getPressure);
+        addChannel(name + ".volume", compressor::getVolume);
+        addChannel(name + ".temperature", compressor::getTemperature);
+    }
+
+    public void addChamber(String name, Chamber chamber){
+        addStateChannel(name + ".state", () -> chamber.getState().ordinal());
+        addChannel(name + ".mass", () -> chamber.getContents() == null ? 0 : chamber.getContents().getMass());
+        addChannel(name + ".pressure", () -> chamber.getContents() == null ? 0 : chamber.getContents().getPressure());
+        addChannel(name + ".temperature", () -> chamber.getContents() == null ? 0 : chamber.getContents().getTemperature());
+    }
+
+    public void addHeatExchanger(String name, HeatExchanger heatExchanger){
+        addChannel(name + ".contentTemperature", heatExchanger::getContentTemperature);
+        addChannel(name + ".pressure", heatExchanger::getPressure);
+        addChannel(name + ".coolantTemperature", heatExchanger::getCoolantTemperature);
+    }
+
+    public void addExpander(String name, Expander expander){
+        addStateChannel(name + ".state", () -> expander.getState().ordinal());
+        addChannel(name + ".gasTemperature", expander::getGasTemperature);
+    }
+
+    //Records every machine of the built-in plant under the name of its Simulator field, in the order demo.plant declares them,
+    //so a recording of new Simulator() has the same channels as one of the demo plant loaded from its file.
+    public void addPlant(Simulator simulator){
+        addChamber("chamber", simulator.getChamber());
+        addMotor("motor", simulator.getMotor());
+        addCompressor("compressor", simulator.getCompressor());
+        addChamber("outputChamber", simulator.getOutputChamber());
+        addHeatExchanger("heatExchanger", simulator.getHeatExchanger());
+        addChamber("inputCoolantChamber", simulator.getInputCoolantChamber());
+        addChamber("outputContentChamber", simulator.getOutputContentChamber());
+        addChamber("outputCoolantChamber", simulator.getOutputCoolantChamber());
+        addExpander("expander", simulator.getExpander());
+        addChamber("expanderOutputGasChamber", simulator.getExpanderOutputGasChamber());
+        addChamber("expanderOutputLiquidChamber", simulator.getExpanderOutputLiquidChamber());
+        addChamber("heatExchangerGateChamber", simulator.getHeatExchangerGateChamber());
+    }
+
+    //Records every machine of a loaded plant under its name.
+    public void addPlant(Plant plant){
+        List<Machine> machines = plant.getMachines();
+        for(int i=0;i<machines.size();i++){
+            Machine machine = machines.get(i);
+            String name = plant.getMachineNames().get(i);
+            if(machine instanceof Motor){
+                addMotor(name, (Motor)machine);
+            }else if(machine instanceof Compressor){
+                addCompressor(name, (Compressor)machine);
+            }else if(machine instanceof Chamber){
+                addChamber(name, (Chamber)machine);
+            }else if(machine instanceof HeatExchanger){
+                addHeatExchanger(name, (HeatExchanger)machine);
+            }else if(machine instanceof Expander){
+                addExpander(name, (Expander)machine);
+            }
+        }
+    }
+
+    //Layout of the header: magic, version, channel count, block samples, header size, decimation, sample count, time step,
+    //then each channel type and name as a length prefixed UTF-8 string, padded to HEADER_ALIGNMENT.
+    public void open() throws IOException {
+        channels = channelList.toArray(new DoubleSupplier[0]);
+        byte[][] names = new byte[channels.length][];
+        int namesSize = 0;
+        for(int i=0;i<channels.length;i++){
+            names[i] = channelNames.get(i).getBytes(StandardCharsets.UTF_8);
+            namesSize += 3 + names[i].length;
+        }
+        headerSize = ((FIXED_HEADER_SIZE + namesSize) / HEADER_ALIGNMENT + 1) * HEADER_ALIGNMENT;
+        blockSize = BLOCK_SAMPLES * 8L * (2 + channels.length);
+        if(blockSize > Integer.MAX_VALUE) throw new IllegalArgumentException("Too many channels to map a block: " + channels.length);
+        regionBlocks = Math.max(1, MAX_REGION_SIZE / blockSize);
+
+        fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        header = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, headerSize);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(channels.length);
+        header.putInt(BLOCK_SAMPLES);
+        header.putInt(headerSize);
+        header.putLong(decimation);
+        header.putLong(0);
+        header.putDouble(Simulator.TIME_CONST);
+        for(int i=0;i<channels.length;i++){
+            header.put((byte)channelTypes.get(i).ordinal());
+            header.putShort((short)names[i].length);
+            header.put(names[i]);
+        }
+        regionBlock = 0;
+        mapRegion();
+        pyramid = buildPyramid ? new TelemetryPyramid(channels.length, BLOCK_SAMPLES) : null;
+    }
+
+    //The region being replaced is flushed and let go first, so only one region is held at a time.
+    public void mapRegion() throws IOException {
+        if(region != null){
+            region.force();
+            region = null;
+        }
+        region = fileChannel.map(FileChannel.MapMode.READ_WRITE, headerSize + regionBlock * blockSize, regionBlocks * blockSize);
+        blockOffset = 0;
+        blockSample = 0;
+    }
+
+    public long getNextSampleTick(long tick){
+        return (tick / decimation + 1) * decimation;
+    }
+
+    public boolean isSampleTick(long tick){
+        return tick % decimation == 0;
+    }
+
+    public void record(long tick, double time){
+        int index = blockOffset + blockSample * 8;
+        region.putLong(index, tick);
+        index += BLOCK_SAMPLES * 8;
+        region.putDouble(index, time);
+        for(int i=0;i<channels.length;i++){
+            index += BLOCK_SAMPLES * 8;
+            double value = channels[i].getAsDouble();
+            region.putDouble(index, value);
+            if(pyramid != null) pyramid.addValue(i, value);
+        }
+        if(pyramid != null) pyramid.endSample(tick);
+        sampleCount++;
+        blockSample++;
+        if(blockSample == BLOCK_SAMPLES){
+            header.putLong(SAMPLE_COUNT_OFFSET, sampleCount);
+            blockSample = 0;
+            blockOffset += blockSize;
+            if(blockOffset == region.capacity()){
+                regionBlock += regionBlocks;
+                try{
+                    mapRegion();
+                }catch(IOException e){
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    //Writes the final sample count, flushes the mapped regions and cuts the file back to the header and the blocks in use.
+    //Windows refuses to truncate a file while a mapping is still alive, and the buffers are only unmapped when they are collected,
+    //so there the file keeps the size of the last region and the header's sample count says where the samples end.
+    public void close() throws IOException {
+        if(fileChannel == null) return;
+        header.putLong(SAMPLE_COUNT_OFFSET, sampleCount);
+        region.force();
+        header.force();
+        header = null;
+        region = null;
+        long usedBlocks = (sampleCount + BLOCK_SAMPLES - 1) / BLOCK_SAMPLES;
+        try{
+            fileChannel.truncate(headerSize + usedBlocks * blockSize);
+        }catch(IOException e){
+            if(!System.getProperty("os.name").startsWith("Windows")) throw e;
+        }
+        fileChannel.close();
+        fileChannel = null;
+        if(pyramid != null){
+            pyramid.save(TelemetryPyramid.getPyramidPath(path));
+        }
+    }
+
+    public boolean isBuildPyramid() {
+        return buildPyramid;
+    }
+
+    public void setBuildPyramid(boolean buildPyramid) {
+        this.buildPyramid = buildPyramid;
+    }
+
+    public TelemetryPyramid getPyramid() {
+        return pyramid;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    public long getDecimation() {
+        return decimation;
+    }
+
+    public List<String> getChannelNames() {
+        return channelNames;
+    }
+
+    public List<CHANNEL_TYPE> getChannelTypes() {
+        return channelTypes;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+}
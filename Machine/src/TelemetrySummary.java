@@ -0,0 +1,53 @@
+//Minimum, maximum, mean and count of the samples of a channel over a window.
+public class TelemetrySummary {
+    private double minimum = Double.POSITIVE_INFINITY;
+    private double maximum = Double.NEGATIVE_INFINITY;
+    private double sum;
+    private long count;
+
+    public void add(double value){
+        minimum = Math.min(minimum, value);
+        maximum = Math.max(maximum, value);
+        sum += value;
+        count++;
+    }
+
+    public void add(double minimum, double maximum, double sum, long count){
+        this.minimum = Math.min(this.minimum, minimum);
+        this.maximum = Math.max(this.maximum, maximum);
+        this.sum += sum;
+        this.count += count;
+    }
+
+    public void reset(){
+        minimum = Double.POSITIVE_INFINITY;
+        maximum = Double.NEGATIVE_INFINITY;
+        sum = 0;
+        count = 0;
+    }
+
+    public double getMinimum() {
+        return minimum;
+    }
+
+    public double getMaximum() {
+        return maximum;
+    }
+
+    public double getMean() {
+        return count > 0 ? sum / count : Double.NaN;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "Min " + minimum + "     Max " + maximum + "     Mean " + getMean() + "     Count " + count;
+    }
+}
@@ -0,0 +1,24 @@
+//The samples of one channel inside a tick window, as read from a compressed archive.
+public class TelemetryWindow {
+    private long[] ticks;
+    private double[] values;
+    private int count;
+
+    public TelemetryWindow(long[] ticks, double[] values, int count) {
+        this.ticks = ticks;
+        this.values = values;
+        this.count = count;
+    }
+
+    public long[] getTicks() {
+        return ticks;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,464 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+//Steps many variants of a motor driving a compressor together, for sweeps over motor and compressor parameters.
+//Each train is a lane across primitive arrays, one array per value, instead of a Motor, a RotationalForce and a Compressor object,
+//so a step is a loop down each array with no object loads or virtual calls between lanes.
+//Lanes are independent, so they are stepped in blocks small enough to stay in cache for a whole run of ticks.
+//The motor's state transitions are checked in a pass of their own, so its physics runs as one loop without conditions.
+//The compressor branches on its state, which predicts well since a stroke spends all but two steps RUNNING.
+//The per-step work the objects repeat is taken out of the loops: the motor's divisions become products with factors worked out
+//when a train is added, and the compressor's Math.pow becomes an update of the compression ratio from the last step's volume.
+//That changes the rounding, so lanes follow their objects to within CHECK_TOLERANCE rather than bit for bit.
+//A train works like the objects it was copied from on the fixed time step with the explicit motor integrator, and a compressor
+//that always finds gas at the intake pressure and temperature and always has room to push, as with a large supply and store.
+public class TrainEnsemble {
+    private static final int BLOCK_LANES = 256;
+    private static final byte MOTOR_RUNNING = (byte)Motor.STATE.RUNNING.ordinal();
+    private static final byte MOTOR_STOPPED = (byte)Motor.STATE.STOPPED.ordinal();
+    private static final byte COMPRESSOR_READY = (byte)Compressor.STATE.READY.ordinal();
+    private static final byte COMPRESSOR_RUNNING = (byte)Compressor.STATE.RUNNING.ordinal();
+    private static final byte COMPRESSOR_DONE = (byte)Compressor.STATE.DONE.ordinal();
+    //Relative change of volume in a step below which the compression ratio is updated from a series instead of Math.pow.
+    //The first term left out of the series is below a part in 1e16 there.
+    private static final double MAX_SERIES_STEP = 1e-4;
+    private static final double SERIES_1 = Compressor.GAMMA;
+    private static final double SERIES_2 = (Compressor.GAMMA - 1) / 2;
+    private static final double SERIES_3 = (Compressor.GAMMA - 2) / 3;
+    //Largest relative difference --check accepts between a lane and its objects.
+    private static final double CHECK_TOLERANCE = 1e-9;
+    //Part of a timed run stepped before the clocks start, so both forms are measured compiled.
+    private static final double WARMUP_FRACTION = 0.1;
+
+    private int size;
+
+    //Motor constants. Each step factor is a quotient the objects work out every step, with TIME_CONST folded in.
+    private double[] conductances;
+    private double[] maxVoltages;
+    private double[] motorConstants;
+    private double[] rotorSteps;
+    private double[] maxRads;
+    private double[] heatingSteps;
+    private double[] coolingSteps;
+    private double[] ambientTemperatures;
+
+    //Motor state.
+    private byte[] motorStates;
+    private double[] inpVoltages;
+    private double[] backEmfs;
+    private double[] currents;
+    private double[] torques;
+    private double[] rads;
+    private double[] radAngles;
+    private double[] wireTemperatures;
+
+    //The shaft's torque from the compressor, seen by the motor on the next step.
+    private double[] shaftTorques;
+
+    //Compressor constants.
+    private double[] leverArms;
+    private double[] pistonAreas;
+    private double[] initialVolumes;
+    private double[] externalPressures;
+    private double[] maxLoadTorques;
+    private double[] intakePressures;
+    private double[] intakeTemperatures;
+
+    //Compressor state.
+    private byte[] compressorStates;
+    private double[] initialPressures;
+    private double[] initialTemperatures;
+    private double[] pistonVelocities;
+    private double[] pistonDisplacements;
+    private double[] volumes;
+    private double[] pressures;
+    private double[] temperatures;
+    private double[] forcesFromPressure;
+    //(initialVolume / volume) ^ GAMMA, and the intake temperature over the initial volume, for the stroke under way.
+    private double[] compressionRatios;
+    private double[] temperatureScales;
+    private long[] strokes;
+
+    private long tickCount;
+
+    public TrainEnsemble(int capacity) {
+        conductances = new double[capacity];
+        maxVoltages = new double[capacity];
+        motorConstants = new double[capacity];
+        rotorSteps = new double[capacity];
+        maxRads = new double[capacity];
+        heatingSteps = new double[capacity];
+        coolingSteps = new double[capacity];
+        ambientTemperatures = new double[capacity];
+        motorStates = new byte[capacity];
+        inpVoltages = new double[capacity];
+        backEmfs = new double[capacity];
+        currents = new double[capacity];
+        torques = new double[capacity];
+        rads = new double[capacity];
+        radAngles = new double[capacity];
+        wireTemperatures = new double[capacity];
+        shaftTorques = new double[capacity];
+        leverArms = new double[capacity];
+        pistonAreas = new double[capacity];
+        initialVolumes = new double[capacity];
+        externalPressures = new double[capacity];
+        maxLoadTorques = new double[capacity];
+        intakePressures = new double[capacity];
+        intakeTemperatures = new double[capacity];
+        compressorStates = new byte[capacity];
+        initialPressures = new double[capacity];
+        initialTemperatures = new double[capacity];
+        pistonVelocities = new double[capacity];
+        pistonDisplacements = new double[capacity];
+        volumes = new double[capacity];
+        pressures = new double[capacity];
+        temperatures = new double[capacity];
+        forcesFromPressure = new double[capacity];
+        compressionRatios = new double[capacity];
+        temperatureScales = new double[capacity];
+        strokes = new long[capacity];
+    }
+
+    //Copies a motor and the compressor on its shaft into the next lane, state included, and returns the lane.
+    public int addTrain(Motor motor, Compressor compressor, double intakePressure, double intakeTemperature){
+        if(size == motorStates.length) throw new IllegalStateException("The ensemble is full at " + size + " trains");
+        if(motor.getIntegrator() != Motor.INTEGRATOR.EXPLICIT || motor.isThermalSubCycling()){
+            throw new IllegalArgumentException("Trains are stepped with the explicit motor integrator only");
+        }
+        RotationalForce shaft = compressor.getInputValue();
+        int lane = size++;
+        double resistance = motor.getResistance();
+        double wireSurfaceArea = (motor.getWireRadius() * 2 * Simulator.PI) * motor.getWireLength();
+        double wireHeatCapacity = motor.getWireMass() * motor.getCoil().getWire().getMaterial().getMaterialType().getSpecificHeat();
+        conductances[lane] = 1 / resistance;
+        maxVoltages[lane] = motor.getMaxVoltage();
+        motorConstants[lane] = motor.getMagneticField() * motor.getCoilArea() * motor.getTurns();
+        rotorSteps[lane] = Simulator.TIME_CONST / motor.getRotorMoment();
+        maxRads[lane] = motor.getMaxRads();
+        heatingSteps[lane] = resistance * Simulator.TIME_CONST / wireHeatCapacity;
+        coolingSteps[lane] = Simulator.SOLID_AIR_THERMAL_CONDUCTIVITY * wireSurfaceArea * Simulator.TIME_CONST / wireHeatCapacity;
+        ambientTemperatures[lane] = motor.getAmbientTemperature();
+        motorStates[lane] = (byte)motor.getState().ordinal();
+        inpVoltages[lane] = motor.getInpVoltage();
+        backEmfs[lane] = motor.getBackEmf();
+        currents[lane] = motor.getCurrent();
+        torques[lane] = motor.getTorque();
+        rads[lane] = motor.getRads();
+        radAngles[lane] = motor.getRadAngle();
+        wireTemperatures[lane] = motor.getWireTemperature();
+        shaftTorques[lane] = shaft.getTorque();
+        leverArms[lane] = shaft.getLeverArm();
+        pistonAreas[lane] = compressor.getPistonArea();
+        initialVolumes[lane] = compressor.getInitialVolume();
+        externalPressures[lane] = compressor.getExternalPressure();
+        maxLoadTorques[lane] = motor.calculateMaxTorque() * Compressor.MAX_LOAD_TORQUE_RATIO;
+        intakePressures[lane] = intakePressure;
+        intakeTemperatures[lane] = intakeTemperature;
+        compressorStates[lane] = (byte)compressor.getState().ordinal();
+        initialPressures[lane] = compressor.getInitialPressure();
+        initialTemperatures[lane] = compressor.getInitialTemperature();
+        pistonVelocities[lane] = compressor.getPistonVelocity();
+        pistonDisplacements[lane] = compressor.getPistonDisplacement();
+        volumes[lane] = compressor.getVolume();
+        pressures[lane] = compressor.getPressure();
+        temperatures[lane] = compressor.getTemperature();
+        forcesFromPressure[lane] = compressor.getForceFromPressure();
+        compressionRatios[lane] = Math.pow(compressor.getInitialVolume() / compressor.getVolume(), Compressor.GAMMA);
+        temperatureScales[lane] = compressor.getInitialTemperature() / compressor.getInitialVolume();
+        return lane;
+    }
+
+    public void runSimulation(double time){
+        runTicks((long)(time / Simulator.TIME_CONST));
+    }
+
+    //Runs every lane the given number of TIME_CONST steps, a block of lanes at a time.
+    public void runTicks(long ticks){
+        for(int start=0;start<size;start+=BLOCK_LANES){
+            int end = Math.min(size, start + BLOCK_LANES);
+            for(long tick=0;tick<ticks;tick++){
+                stepMotors(start, end);
+                stepCompressors(start, end);
+            }
+        }
+        tickCount += ticks;
+    }
+
+    //Motor.stepMachine and the explicit calculateMotor for each lane, with the step factors in place of the divisions.
+    //The state transitions are taken in a pass of their own, which leaves the physics loop with no branches in it.
+    //The speed limit is a comparison rather than Math.min, whose handling of NaN and -0 costs a branch without AVX.
+    //Steps are TIME_CONST, so friction keeps ROTOR_FRICTION of the speed each step.
+    private void stepMotors(int start, int end){
+        for(int i=start;i<end;i++){
+            byte state = motorStates[i];
+            if(state == MOTOR_RUNNING && wireTemperatures[i] > Motor.WIRE_TEMPERATURE_RATING){
+                motorStates[i] = MOTOR_STOPPED;
+                inpVoltages[i] = 0;
+            }else if(state == MOTOR_STOPPED && wireTemperatures[i] <= Motor.RESTART_TEMPERATURE){
+                motorStates[i] = MOTOR_RUNNING;
+                inpVoltages[i] = maxVoltages[i];
+            }
+        }
+
+        double time = Simulator.TIME_CONST;
+        for(int i=start;i<end;i++){
+            double current = (inpVoltages[i] - backEmfs[i]) * conductances[i];
+            double wireTemperature = wireTemperatures[i];
+            wireTemperatures[i] = wireTemperature + (current * current * heatingSteps[i] - (wireTemperature - ambientTemperatures[i]) * coolingSteps[i]);
+
+            double torque = motorConstants[i] * current;
+            double freeSpeed = rads[i] + (torque - shaftTorques[i]) * rotorSteps[i];
+            double maxSpeed = maxRads[i];
+            double speed = (freeSpeed < maxSpeed ? freeSpeed : maxSpeed) * Motor.ROTOR_FRICTION;
+            currents[i] = current;
+            torques[i] = torque;
+            rads[i] = speed;
+            radAngles[i] += speed * time;
+            backEmfs[i] = motorConstants[i] * speed;
+        }
+    }
+
+    //Compressor.stepMachine for each lane, pulling from an endless supply and pushing to an endless store.
+    //The pressure is initialPressure * (initialVolume / volume) ^ GAMMA, as in the objects, but the ratio is carried from step to step:
+    //each step multiplies it by (1 + x) ^ GAMMA, with x the step's change of volume over the new volume, from the first terms of its series.
+    //A step that changes the volume by more than MAX_SERIES_STEP, as only a very fast piston in a small cylinder makes, falls back to Math.pow.
+    //The ratio starts again at 1 with every stroke, so rounding does not build up from one stroke to the next.
+    private void stepCompressors(int start, int end){
+        double time = Simulator.TIME_CONST;
+        for(int i=start;i<end;i++){
+            byte state = compressorStates[i];
+            if(state == COMPRESSOR_RUNNING){
+                double leverArm = leverArms[i];
+                double pistonArea = pistonAreas[i];
+                double pistonVelocity = rads[i] * leverArm;
+                double pistonDisplacement = pistonDisplacements[i] + pistonVelocity * time;
+                double initialVolume = initialVolumes[i];
+                double volume = initialVolume - (pistonDisplacement * pistonArea);
+                double forceFromPressure = (pressures[i] * Compressor.ATM_TO_PASCAL) * pistonArea - (externalPressures[i] * Compressor.ATM_TO_PASCAL) * pistonArea;
+                double x = (volumes[i] - volume) / volume;
+                double compressionRatio;
+                if(Math.abs(x) < MAX_SERIES_STEP){
+                    compressionRatio = compressionRatios[i] * (1 + SERIES_1 * x * (1 + SERIES_2 * x * (1 + SERIES_3 * x)));
+                }else{
+                    compressionRatio = Math.pow((initialVolume / volume), Compressor.GAMMA);
+                }
+                double pressure = initialPressures[i] * compressionRatio;
+                compressionRatios[i] = compressionRatio;
+                pistonVelocities[i] = pistonVelocity;
+                pistonDisplacements[i] = pistonDisplacement;
+                volumes[i] = volume;
+                shaftTorques[i] = forceFromPressure * leverArm;
+                forcesFromPressure[i] = forceFromPressure;
+                pressures[i] = pressure;
+                temperatures[i] = compressionRatio * volume * temperatureScales[i];
+                if(forceFromPressure * leverArm >= maxLoadTorques[i]) compressorStates[i] = COMPRESSOR_DONE;
+            }else if(state == COMPRESSOR_READY){
+                initialPressures[i] = intakePressures[i];
+                initialTemperatures[i] = intakeTemperatures[i];
+                temperatureScales[i] = intakeTemperatures[i] / initialVolumes[i];
+                compressorStates[i] = COMPRESSOR_RUNNING;
+            }else if(state == COMPRESSOR_DONE){
+                pistonDisplacements[i] = 0;
+                forcesFromPressure[i] = 0;
+                shaftTorques[i] = 0;
+                pressures[i] = externalPressures[i];
+                volumes[i] = initialVolumes[i];
+                temperatures[i] = initialTemperatures[i];
+                pistonVelocities[i] = 0;
+                compressionRatios[i] = 1;
+                strokes[i]++;
+                compressorStates[i] = COMPRESSOR_READY;
+            }
+        }
+    }
+
+    //Steps a motor and compressor as objects the way a lane is stepped, so the two can be compared and timed against each other.
+    //Returns true when the step finished a stroke.
+    public static boolean stepTrain(Motor motor, Compressor compressor, double intakePressure, double intakeTemperature){
+        motor.stepMachine();
+        switch(compressor.getState()){
+            case READY:
+                compressor.setInitialPressure(intakePressure);
+                compressor.setInitialTemperature(intakeTemperature);
+                compressor.setState(Compressor.STATE.RUNNING);
+                return false;
+            case DONE:
+                compressor.resetCompressor();
+                return true;
+            default:
+                compressor.stepMachine();
+                return false;
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public Motor.STATE getMotorState(int lane){
+        return Motor.STATE.values()[motorStates[lane]];
+    }
+
+    public Compressor.STATE getCompressorState(int lane){
+        return Compressor.STATE.values()[compressorStates[lane]];
+    }
+
+    public double getRads(int lane){
+        return rads[lane];
+    }
+
+    public double getCurrent(int lane){
+        return currents[lane];
+    }
+
+    public double getWireTemperature(int lane){
+        return wireTemperatures[lane];
+    }
+
+    public double getPressure(int lane){
+        return pressures[lane];
+    }
+
+    public double getTemperature(int lane){
+        return temperatures[lane];
+    }
+
+    public double getPistonDisplacement(int lane){
+        return pistonDisplacements[lane];
+    }
+
+    //Strokes pushed to the store since the train was added.
+    public long getStrokes(int lane){
+        return strokes[lane];
+    }
+
+    //Usage: TrainEnsemble plantFile runTime [--trains=n] [--vary=name=distribution...] [--seed=n] [--check]
+    //Builds n variants of the plant's motor and compressor, drawing the --vary fields the way MonteCarlo does, and times the ensemble
+    //against stepping the same trains as objects. The first WARMUP_FRACTION of the run is stepped by both before the clocks start.
+    //With --check it compares every lane with its objects afterwards, to within CHECK_TOLERANCE, with the same states and strokes.
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2){
+            System.out.println("Usage: TrainEnsemble plantFile runTime [--trains=n] [--vary=name=distribution...] [--seed=n] [--check]");
+            return;
+        }
+        Path plantPath = Path.of(args[0]);
+        String plantText = Files.readString(plantPath, StandardCharsets.UTF_8);
+        double runTime = Double.parseDouble(args[1]);
+        int trainCount = MonteCarlo.DEFAULT_RUNS;
+        long seed = 1;
+        boolean check = false;
+        List<UncertainParameter> parameters = new ArrayList<>();
+        for(int i=2;i<args.length;i++){
+            String arg = args[i];
+            if(arg.startsWith("--trains=")){
+                trainCount = Integer.parseInt(arg.substring("--trains=".length()));
+            }else if(arg.startsWith("--vary=")){
+                parameters.add(UncertainParameter.parse(arg.substring("--vary=".length())));
+            }else if(arg.startsWith("--seed=")){
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            }else if(arg.equals("--check")){
+                check = true;
+            }else{
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        //Every train is built twice from the same draws, once to copy into the ensemble and once to step as objects.
+        TrainEnsemble ensemble = new TrainEnsemble(trainCount);
+        Simulator[] simulators = new Simulator[trainCount];
+        double[] intake = new double[2];
+        SplittableRandom root = new SplittableRandom(seed);
+        for(int n=0;n<trainCount;n++){
+            SplittableRandom random = root.split();
+            Map<String, String> overrides = new HashMap<>();
+            for(UncertainParameter parameter : parameters){
+                overrides.put(parameter.getName(), parameter.toOverride(parameter.sample(random)));
+            }
+            Simulator copied = new Simulator(PlantLoader.load(new StringReader(plantText), plantPath.toString(), overrides));
+            simulators[n] = new Simulator(PlantLoader.load(new StringReader(plantText), plantPath.toString(), overrides));
+            if(copied.getMotor() == null || copied.getCompressor() == null) throw new IOException("Plant " + plantPath + " has no motor driving a compressor");
+            getIntake(copied.getCompressor(), intake);
+            ensemble.addTrain(copied.getMotor(), copied.getCompressor(), intake[0], intake[1]);
+        }
+
+        long ticks = (long)(runTime / Simulator.TIME_CONST);
+        long warmupTicks = (long)(ticks * WARMUP_FRACTION);
+        long[] objectStrokes = new long[trainCount];
+        ensemble.runTicks(warmupTicks);
+        stepObjects(simulators, warmupTicks, objectStrokes);
+
+        long start = System.nanoTime();
+        ensemble.runTicks(ticks - warmupTicks);
+        long ensembleNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        stepObjects(simulators, ticks - warmupTicks, objectStrokes);
+        long objectNanos = System.nanoTime() - start;
+
+        double trainTicks = (double)trainCount * (ticks - warmupTicks);
+        System.out.println(trainCount + " trains for " + runTime + " s (" + ticks + " ticks, " + warmupTicks + " of them untimed)");
+        System.out.println(String.format("Ensemble %10.3f s %10.2f ns per train tick", ensembleNanos / 1e9, ensembleNanos / trainTicks));
+        System.out.println(String.format("Objects  %10.3f s %10.2f ns per train tick", objectNanos / 1e9, objectNanos / trainTicks));
+        System.out.println(String.format("Speedup  %10.2fx", (double)objectNanos / ensembleNanos));
+
+        if(check){
+            int mismatches = 0;
+            double largestDifference = 0;
+            for(int n=0;n<trainCount;n++){
+                Motor motor = simulators[n].getMotor();
+                Compressor compressor = simulators[n].getCompressor();
+                double difference = Math.max(Math.max(getDifference(ensemble.getRads(n), motor.getRads()), getDifference(ensemble.getWireTemperature(n), motor.getWireTemperature())),
+                        Math.max(getDifference(ensemble.getPressure(n), compressor.getPressure()), getDifference(ensemble.getTemperature(n), compressor.getTemperature())));
+                largestDifference = Math.max(largestDifference, difference);
+                if(!(difference <= CHECK_TOLERANCE)
+                        || ensemble.getStrokes(n) != objectStrokes[n] || ensemble.getMotorState(n) != motor.getState() || ensemble.getCompressorState(n) != compressor.getState()){
+                    if(mismatches == 0){
+                        System.out.println("Train " + n + " differs: rads " + ensemble.getRads(n) + " / " + motor.getRads() + ", wire temperature " + ensemble.getWireTemperature(n) + " / " + motor.getWireTemperature()
+                                + ", pressure " + ensemble.getPressure(n) + " / " + compressor.getPressure() + ", strokes " + ensemble.getStrokes(n) + " / " + objectStrokes[n]);
+                    }
+                    mismatches++;
+                }
+            }
+            System.out.println("Largest relative difference " + largestDifference);
+            System.out.println(mismatches == 0 ? "All " + trainCount + " trains match their objects" : mismatches + " trains differ from their objects");
+        }
+    }
+
+    //Steps each train's objects the given number of ticks, counting the strokes they finish.
+    private static void stepObjects(Simulator[] simulators, long ticks, long[] strokes){
+        double[] intake = new double[2];
+        for(int n=0;n<simulators.length;n++){
+            Motor motor = simulators[n].getMotor();
+            Compressor compressor = simulators[n].getCompressor();
+            getIntake(compressor, intake);
+            for(long tick=0;tick<ticks;tick++){
+                if(stepTrain(motor, compressor, intake[0], intake[1])) strokes[n]++;
+            }
+        }
+    }
+
+    //Difference of a lane's value from its objects', relative to the objects' value.
+    private static double getDifference(double value, double objectValue){
+        if(value == objectValue) return 0;
+        return Math.abs(value - objectValue) / Math.abs(objectValue);
+    }
+
+    //The pressure and temperature of the gas in the compressor's input chamber, or the outside air when it has none.
+    private static void getIntake(Compressor compressor, double[] intake){
+        Material contents = compressor.getChamber() == null ? null : compressor.getChamber().getContents();
+        intake[0] = contents == null ? compressor.getExternalPressure() : contents.getPressure();
+        intake[1] = contents == null ? Simulator.AMBIENT_TEMP : contents.getTemperature();
+    }
+}
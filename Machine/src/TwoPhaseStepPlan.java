@@ -0,0 +1,91 @@
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//Steps a plant in two phases. In the step phase every machine reads the chamber contents and shaft values from the start of the tick,
+//while chamber transfers and shaft values are staged. The commit phase then applies them in a fixed order.
+//No machine sees another machine's writes from the same tick, so the results do not depend on list order and the step phase can run in parallel.
+public class TwoPhaseStepPlan {
+    private static final int MACHINES_PER_TASK = 64;
+
+    private StepPlan stepPlan;
+    private Machine[] machines;
+    private Chamber[] chambers;
+    private RotationalForce[] rotationalForces;
+    private ForkJoinPool pool;
+
+    public TwoPhaseStepPlan(PlantGraph plantGraph, ForkJoinPool pool) {
+        this.pool = pool;
+
+        List<Machine> machineList = plantGraph.getMachines();
+        stepPlan = new StepPlan(machineList);
+        machines = machineList.toArray(new Machine[0]);
+        chambers = plantGraph.getChambers().toArray(new Chamber[0]);
+        rotationalForces = plantGraph.getRotationalForces().toArray(new RotationalForce[0]);
+
+        for(Chamber chamber : chambers){
+            chamber.setConsumerCount(plantGraph.getConsumerCount(chamber));
+            chamber.setProducerCount(plantGraph.getProducerCount(chamber));
+        }
+    }
+
+    public void setBuffered(boolean buffered){
+        for(Chamber chamber : chambers){
+            chamber.setBuffered(buffered);
+        }
+        for(RotationalForce rotationalForce : rotationalForces){
+            rotationalForce.setBuffered(buffered);
+        }
+    }
+
+    public void runTicks(long ticks){
+        for(long tick=0;tick<ticks;tick++){
+            step();
+        }
+    }
+
+    public void step(){
+        if(pool == null || machines.length <= MACHINES_PER_TASK){
+            stepPlan.step();
+        }else{
+            pool.invoke(new MachineTask(machines, 0, machines.length));
+        }
+        commit();
+    }
+
+    public void commit(){
+        for(int i=0;i<chambers.length;i++){
+            chambers[i].releaseForward();
+        }
+        for(int i=0;i<chambers.length;i++){
+            chambers[i].commitTransfers();
+        }
+        for(int i=0;i<rotationalForces.length;i++){
+            rotationalForces[i].commit();
+        }
+    }
+
+    private static class MachineTask extends RecursiveAction {
+        private Machine[] machines;
+        private int start;
+        private int end;
+
+        public MachineTask(Machine[] machines, int start, int end) {
+            this.machines = machines;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute(){
+            if(end - start <= MACHINES_PER_TASK){
+                for(int i=start;i<end;i++){
+                    machines[i].stepMachine();
+                }
+            }else{
+                int middle = (start + end) >>> 1;
+                invokeAll(new MachineTask(machines, start, middle), new MachineTask(machines, middle, end));
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.SplittableRandom;
+
+//A plant field drawn from a distribution in a Monte Carlo run, named the way PlantLoader overrides are, as in Copper.resistivity.
+//Written name=distribution:arguments, with the distributions
+//  normal:mean:standardDeviation
+//  lognormal:median:sigma            the median times e to the power of a normal draw with that standard deviation
+//  uniform:min:max
+//  triangular:min:mode:max
+//A * before the distribution, as in Copper.resistivity=*normal:1:0.03, draws a factor that scales the plant file's own value,
+//so tolerances can be given without repeating the nominal values.
+public class UncertainParameter {
+    public enum DISTRIBUTION {NORMAL, LOGNORMAL, UNIFORM, TRIANGULAR}
+
+    private String name;
+    private DISTRIBUTION distribution;
+    private double[] arguments;
+    private boolean relative;
+
+    public UncertainParameter(String name, DISTRIBUTION distribution, boolean relative, double... arguments) {
+        int expected = distribution == DISTRIBUTION.TRIANGULAR ? 3 : 2;
+        if(arguments.length != expected) throw new IllegalArgumentException("Parameter " + name + " needs " + expected + " arguments for a " + distribution.name().toLowerCase() + " distribution");
+        if(distribution == DISTRIBUTION.TRIANGULAR && !(arguments[0] <= arguments[1] && arguments[1] <= arguments[2])){
+            throw new IllegalArgumentException("Parameter " + name + " needs min <= mode <= max");
+        }
+        this.name = name;
+        this.distribution = distribution;
+        this.relative = relative;
+        this.arguments = arguments;
+    }
+
+    public static UncertainParameter parse(String spec){
+        int split = spec.indexOf('=');
+        if(split <= 0) throw new IllegalArgumentException("Parameter " + spec + " is not name=distribution:arguments");
+        String name = spec.substring(0, split);
+        String value = spec.substring(split + 1);
+        boolean relative = value.startsWith("*");
+        if(relative) value = value.substring(1);
+        String[] parts = value.split(":");
+        DISTRIBUTION distribution;
+        try{
+            distribution = DISTRIBUTION.valueOf(parts[0].toUpperCase());
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException("Parameter " + spec + " has unknown distribution " + parts[0]);
+        }
+        double[] arguments = new double[parts.length - 1];
+        for(int i=0;i<arguments.length;i++){
+            arguments[i] = Double.parseDouble(parts[i + 1]);
+        }
+        return new UncertainParameter(name, distribution, relative, arguments);
+    }
+
+    public double sample(SplittableRandom random){
+        switch(distribution){
+            case NORMAL: return arguments[0] + arguments[1] * random.nextGaussian();
+            case LOGNORMAL: return arguments[0] * Math.exp(arguments[1] * random.nextGaussian());
+            case UNIFORM: return arguments[0] + (arguments[1] - arguments[0]) * random.nextDouble();
+            default:
+                //Inverse of the triangular distribution's CDF.
+                double min = arguments[0], mode = arguments[1], max = arguments[2];
+                double u = random.nextDouble();
+                double modeFraction = max == min ? 0 : (mode - min) / (max - min);
+                if(u < modeFraction) return min + Math.sqrt(u * (max - min) * (mode - min));
+                return max - Math.sqrt((1 - u) * (max - min) * (max - mode));
+        }
+    }
+
+    //The middle of the distribution: the mean, the median, the midpoint or the mode.
+    public double getCenter(){
+        switch(distribution){
+            case UNIFORM: return (arguments[0] + arguments[1]) / 2;
+            case TRIANGULAR: return arguments[1];
+            default: return arguments[0];
+        }
+    }
+
+    //The PlantLoader override for a sampled value.
+    public String toOverride(double value){
+        return relative ? "*" + value : Double.toString(value);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DISTRIBUTION getDistribution() {
+        return distribution;
+    }
+
+    public double[] getArguments() {
+        return arguments;
+    }
+
+    public boolean isRelative() {
+        return relative;
+    }
+}
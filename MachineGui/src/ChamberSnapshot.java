@@ -0,0 +1,98 @@
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.Objects;
+
+//Draws a chamber. The values shown are copied from the chamber at one instant so they can be drawn on another thread.
+public class ChamberSnapshot implements MachineSnapshot {
+    private final double chamberSideLength;
+    private final boolean hasContents;
+    private final double volume;
+    private final double pressure;
+    private final double temperature;
+    private final Material.MATERIAL_STATE materialState;
+    private final String materialName;
+
+    public ChamberSnapshot(Chamber chamber) {
+        chamberSideLength = chamber.getChamberSideLength();
+        Material contents = chamber.getContents();
+        hasContents = contents != null;
+        volume = MaterialHelper.materialVolume(contents);
+        pressure = hasContents ? contents.getPressure() : 0;
+        temperature = hasContents ? contents.getTemperature() : 0;
+        materialState = hasContents ? contents.getMaterialState() : null;
+        materialName = hasContents ? contents.getMaterialType().getName() : null;
+    }
+
+    @Override
+    public void drawStatic(Graphics g, int xPos, int yPos, int scale){
+        int scaledChamberSide = (int)(chamberSideLength * getDrawScale(scale));
+        g.drawRect(xPos,yPos,scaledChamberSide, scaledChamberSide);
+    }
+
+    @Override
+    public void drawDynamic(Graphics g, int xPos, int yPos, int scale){
+        if(!hasContents) return;
+        scale = getDrawScale(scale);
+        double gasLevel = volume / (chamberSideLength * chamberSideLength);
+        double gasPosition = chamberSideLength - gasLevel;
+        int scaledChamberSide = (int)(chamberSideLength * scale);
+        g.drawLine(xPos, yPos + (int)(gasPosition * scale), xPos + scaledChamberSide, yPos + (int)(gasPosition * scale));
+        double colorScale = 5;
+        g.setColor(GraphicsHelper.getBlueShade(pressure * colorScale));
+        g.fillRect(xPos + 1, yPos + (int)(gasPosition * scale) + 1,scaledChamberSide - 1, scaledChamberSide - (int)(gasPosition * scale) - 1);
+        g.setColor(GraphicsHelper.BLACK);
+        String materialStateString = "";
+        if(materialState == Material.MATERIAL_STATE.GAS) materialStateString = "gas ";
+        if(materialState == Material.MATERIAL_STATE.LIQUID) materialStateString = "liquid ";
+        if(materialState == Material.MATERIAL_STATE.SOLID) materialStateString = "solid ";
+        String pressureString = (materialState == Material.MATERIAL_STATE.GAS)?" at " + (float)pressure + " atm ": "";
+        g.drawString(pressureString + (float)(temperature - 273.13) + " C", xPos, yPos - 15);
+        g.drawString((float)volume + " m3 of " + materialStateString + materialName , xPos, yPos - 30);
+    }
+
+    //Chambers too big to fit are drawn smaller.
+    public int getDrawScale(int scale){
+        if(chamberSideLength > Chamber.MAX_CHAMBER_DRAW_SIZE){
+            scale *= (Chamber.MAX_CHAMBER_DRAW_SIZE/chamberSideLength);
+        }
+        return scale;
+    }
+
+    //An overfull chamber draws its gas line above the outline, so the bounds reach up to it.
+    @Override
+    public Rectangle getBounds(int xPos, int yPos, int scale){
+        int drawScale = getDrawScale(scale);
+        int scaledChamberSide = (int)(chamberSideLength * drawScale);
+        Rectangle bounds = MachineSnapshot.getLabelledBounds(xPos, yPos, scaledChamberSide, scaledChamberSide, xPos, yPos - 15, 2);
+        if(hasContents){
+            int gasY = yPos + (int)((chamberSideLength - volume / (chamberSideLength * chamberSideLength)) * drawScale);
+            bounds.add(new Rectangle(xPos - MARGIN, gasY - MARGIN, scaledChamberSide + MARGIN * 2 + 1, MARGIN * 2 + 1));
+        }
+        return bounds;
+    }
+
+    @Override
+    public boolean looksSame(MachineSnapshot other){
+        if(!(other instanceof ChamberSnapshot)) return false;
+        ChamberSnapshot chamber = (ChamberSnapshot)other;
+        return chamberSideLength == chamber.chamberSideLength && hasContents == chamber.hasContents && volume == chamber.volume
+                && pressure == chamber.pressure && temperature == chamber.temperature && materialState == chamber.materialState
+                && Objects.equals(materialName, chamber.materialName);
+    }
+
+    public boolean hasContents() {
+        return hasContents;
+    }
+
+    public double getVolume() {
+        return volume;
+    }
+
+    public double getPressure() {
+        return pressure;
+    }
+
+    public double getTemperature() {
+        return temperature;
+    }
+}
@@ -0,0 +1,74 @@
+import java.awt.Graphics;
+import java.awt.Rectangle;
+
+//Draws a compressor. The values shown are copied from the compressor at one instant so they can be drawn on another thread.
+public class CompressorSnapshot implements MachineSnapshot {
+    private final double pistonArea;
+    private final double chamberDepth;
+    private final double pistonDisplacement;
+    private final double pressure;
+    private final double temperature;
+    private final double torque;
+    private final double maxTorque;
+
+    public CompressorSnapshot(Compressor compressor) {
+        pistonArea = compressor.getPistonArea();
+        chamberDepth = compressor.getChamberDepth();
+        pistonDisplacement = compressor.getPistonDisplacement();
+        pressure = compressor.getPressure();
+        temperature = compressor.getTemperature();
+        RotationalForce inputValue = compressor.getInputValue();
+        torque = inputValue.getTorque();
+        maxTorque = ((Motor)inputValue.getInputMachine()).calculateMaxTorque();
+    }
+
+    @Override
+    public void drawStatic(Graphics g, int xPos, int yPos, int scale){
+        g.drawRect(xPos,yPos,(int)(getChamberWidth() * scale), (int)(chamberDepth * scale));
+    }
+
+    @Override
+    public void drawDynamic(Graphics g, int xPos, int yPos, int scale){
+        double chamberWidth = getChamberWidth();
+        int scaledChamberWidth = (int)(chamberWidth * scale);
+        int scaledPistonDepth = (int)(chamberDepth * 0.03 * scale);
+        g.drawRect(xPos ,yPos + (int)(pistonDisplacement * scale),scaledChamberWidth, scaledPistonDepth);
+        double colorScale = 5;
+        g.setColor(GraphicsHelper.getBlueShade(pressure * colorScale));
+        g.fillRect(xPos + 1, yPos + (int)(pistonDisplacement * scale) + scaledPistonDepth + 1,(int)(chamberWidth * scale) - 1, ((int)((chamberDepth - pistonDisplacement) * scale) - scaledPistonDepth) - 1);
+        g.setColor(GraphicsHelper.BLACK);
+        g.drawString("Pressure " + (float)pressure + " Atm", xPos, yPos - 30);
+        g.drawString("Temperature " + (float)(temperature - 273.13) + " C", xPos, yPos - 15);
+        g.drawString("Torque: " + (float)torque,xPos, yPos - 45);
+        g.drawString("Max Torque: " + maxTorque,xPos, yPos - 60);
+    }
+
+    @Override
+    public Rectangle getBounds(int xPos, int yPos, int scale){
+        return MachineSnapshot.getLabelledBounds(xPos, yPos, (int)(getChamberWidth() * scale), (int)(chamberDepth * scale), xPos, yPos - 15, 4);
+    }
+
+    @Override
+    public boolean looksSame(MachineSnapshot other){
+        if(!(other instanceof CompressorSnapshot)) return false;
+        CompressorSnapshot compressor = (CompressorSnapshot)other;
+        return pistonArea == compressor.pistonArea && chamberDepth == compressor.chamberDepth && pistonDisplacement == compressor.pistonDisplacement
+                && pressure == compressor.pressure && temperature == compressor.temperature && torque == compressor.torque && maxTorque == compressor.maxTorque;
+    }
+
+    public double getChamberWidth(){
+        return Math.sqrt(pistonArea/Simulator.PI) * 2;
+    }
+
+    public double getPistonDisplacement() {
+        return pistonDisplacement;
+    }
+
+    public double getPressure() {
+        return pressure;
+    }
+
+    public double getTemperature() {
+        return temperature;
+    }
+}
@@ -0,0 +1,94 @@
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.Objects;
+
+//Draws an expander. The values shown are copied from the expander at one instant so they can be drawn on another thread.
+public class ExpanderSnapshot implements MachineSnapshot {
+    private final double containerHeight;
+    private final double containerTemperature;
+    private final boolean hasGas;
+    private final double gasTemperature;
+    private final boolean hasLiquid;
+    private final double liquidVolume;
+    private final double liquidTemperature;
+    private final String liquidName;
+
+    public ExpanderSnapshot(Expander expander) {
+        containerHeight = expander.getContainerHeight();
+        containerTemperature = expander.getContainer().getTemperature();
+        Material gas = expander.getGas();
+        hasGas = gas != null;
+        gasTemperature = hasGas ? gas.getTemperature() : 0;
+        Material liquid = expander.getLiquid();
+        hasLiquid = liquid != null;
+        liquidVolume = MaterialHelper.materialVolume(liquid);
+        liquidTemperature = hasLiquid ? liquid.getTemperature() : 0;
+        liquidName = hasLiquid ? liquid.getMaterialType().getName() : null;
+    }
+
+    @Override
+    public void drawStatic(Graphics g, int xPos, int yPos, int scale){
+        int scaledChamberSide = (int)(containerHeight * getDrawScale(scale));
+        g.drawRect(xPos,yPos,scaledChamberSide, scaledChamberSide);
+    }
+
+    @Override
+    public void drawDynamic(Graphics g, int xPos, int yPos, int scale){
+        scale = getDrawScale(scale);
+        double gasLevel = liquidVolume / (containerHeight * containerHeight);
+        double gasPosition = containerHeight - gasLevel;
+        int scaledChamberSide = (int)(containerHeight * scale);
+        g.drawString("Chamber Temperature: " + (float)(containerTemperature - 273) + " C ", xPos, yPos - 30);
+        if(hasGas){
+            g.drawString("Gas Temperature: " + (float)(gasTemperature - 273) + " C ", xPos, yPos - 45);
+        }
+        if(hasLiquid){
+            g.drawLine(xPos, yPos + (int)(gasPosition * scale), xPos + scaledChamberSide, yPos + (int)(gasPosition * scale));
+            g.setColor(GraphicsHelper.LIQUID_COLOR);
+            g.fillRect(xPos + 1, yPos + (int)(gasPosition * scale) + 1,scaledChamberSide - 1, scaledChamberSide - (int)(gasPosition * scale) - 1);
+            g.setColor(GraphicsHelper.BLACK);
+            g.drawString((float)liquidVolume + " m3 of liquid" + liquidName + " at " + (float)(liquidTemperature - 273.13) + " C", xPos, yPos - 15);
+        }
+    }
+
+    public int getDrawScale(int scale){
+        if(containerHeight > Expander.MAX_EXPANDER_DRAW_SIZE){
+            scale *= (Expander.MAX_EXPANDER_DRAW_SIZE/containerHeight);
+        }
+        return scale;
+    }
+
+    @Override
+    public Rectangle getBounds(int xPos, int yPos, int scale){
+        int drawScale = getDrawScale(scale);
+        int scaledChamberSide = (int)(containerHeight * drawScale);
+        Rectangle bounds = MachineSnapshot.getLabelledBounds(xPos, yPos, scaledChamberSide, scaledChamberSide, xPos, yPos - 15, 3);
+        if(hasLiquid){
+            int liquidY = yPos + (int)((containerHeight - liquidVolume / (containerHeight * containerHeight)) * drawScale);
+            bounds.add(new Rectangle(xPos - MARGIN, liquidY - MARGIN, scaledChamberSide + MARGIN * 2 + 1, MARGIN * 2 + 1));
+        }
+        return bounds;
+    }
+
+    @Override
+    public boolean looksSame(MachineSnapshot other){
+        if(!(other instanceof ExpanderSnapshot)) return false;
+        ExpanderSnapshot expander = (ExpanderSnapshot)other;
+        return containerHeight == expander.containerHeight && containerTemperature == expander.containerTemperature
+                && hasGas == expander.hasGas && gasTemperature == expander.gasTemperature && hasLiquid == expander.hasLiquid
+                && liquidVolume == expander.liquidVolume && liquidTemperature == expander.liquidTemperature
+                && Objects.equals(liquidName, expander.liquidName);
+    }
+
+    public double getContainerTemperature() {
+        return containerTemperature;
+    }
+
+    public double getGasTemperature() {
+        return gasTemperature;
+    }
+
+    public double getLiquidVolume() {
+        return liquidVolume;
+    }
+}
@@ -0,0 +1,204 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class Game extends JFrame implements ActionListener
+{
+    private static final int WIDTH = 1550;
+    private static final int HEIGHT = 830;
+    private static final int MACHINE_SCALE = 400;
+    private static final double TARGET_FPS = 60;
+    private static final double[] SPEEDS = {0.1, 1, 10, SimulationPacer.MAX_SPEED};
+
+    private GamePanel gamePanel = new GamePanel();
+    private JButton startButton = new JButton("Start");
+    private JButton quitButton = new JButton("Quit");
+    private JButton pauseButton = new JButton("Pause");
+    private JComboBox<String> speedBox = new JComboBox<>();
+    private boolean running = false;
+    private boolean paused = false;
+    //Counted by paintComponent on the event thread and read and reset by the game loop.
+    private AtomicInteger frameCount = new AtomicInteger();
+    private SimulationPacer pacer = new SimulationPacer(gamePanel.simulator, TARGET_FPS);
+
+    public Game()
+    {
+        super("Machine Simulation");
+        Container cp = getContentPane();
+        cp.setLayout(new BorderLayout());
+        JPanel p = new JPanel();
+        p.setLayout(new GridLayout(1,2));
+        p.add(startButton);
+        p.add(pauseButton);
+        p.add(quitButton);
+        p.add(speedBox);
+        cp.add(gamePanel, BorderLayout.CENTER);
+        cp.add(p, BorderLayout.SOUTH);
+        setSize(WIDTH, HEIGHT);
+
+        startButton.addActionListener(this);
+        quitButton.addActionListener(this);
+        pauseButton.addActionListener(this);
+        for(double speed : SPEEDS)
+        {
+            speedBox.addItem(SimulationPacer.formatFactor(speed));
+        }
+        speedBox.setSelectedIndex(1);
+        speedBox.addActionListener(this);
+    }
+
+    public static void main(String[] args)
+    {
+        Game glt = new Game();
+        glt.setVisible(true);
+    }
+
+    public void actionPerformed(ActionEvent e)
+    {
+        Object s = e.getSource();
+        if (s == startButton)
+        {
+            running = !running;
+            if (running)
+            {
+                startButton.setText("Stop");
+                runGameLoop();
+            }
+            else
+            {
+                startButton.setText("Start");
+            }
+        }
+        else if (s == pauseButton)
+        {
+            paused = !paused;
+            if (paused)
+            {
+                pauseButton.setText("Unpause");
+            }
+            else
+            {
+                pauseButton.setText("Pause");
+            }
+        }
+        else if (s == quitButton)
+        {
+            System.exit(0);
+        }
+        else if (s == speedBox)
+        {
+            pacer.setRealTimeFactor(SPEEDS[speedBox.getSelectedIndex()]);
+        }
+    }
+
+    //Starts a new thread and runs the game loop in it.
+    public void runGameLoop()
+    {
+        Thread loop = new Thread()
+        {
+            public void run()
+            {
+                gameLoop();
+            }
+        };
+        loop.start();
+    }
+
+    //Only run this in another Thread!
+    //Each frame the pacer runs the ticks owed for the wall time since the last one at the chosen speed,
+    //then the plant is drawn and the thread parks until the next frame is due.
+    private void gameLoop()
+    {
+        pacer.start();
+        boolean wasPaused = false;
+        while (running)
+        {
+            if (paused)
+            {
+                wasPaused = true;
+            }
+            else
+            {
+                if (wasPaused)
+                {
+                    //Time spent paused is not owed to the simulator.
+                    pacer.start();
+                    wasPaused = false;
+                }
+                pacer.runFrame();
+                drawGame();
+                if (pacer.takeReport())
+                {
+                    String report = pacer.getReport() + ", " + frameCount.getAndSet(0) + " paints";
+                    SwingUtilities.invokeLater(() -> setTitle("Machine Simulation - " + report));
+                }
+            }
+            pacer.waitForNextFrame();
+        }
+    }
+
+    private void drawGame()
+    {
+        gamePanel.publishSnapshot();
+        gamePanel.repaintChanges();
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    //The simulator is only touched on the game loop thread. It hands the EDT a new snapshot each frame through an atomic reference,
+    //so painting never sees a half updated plant and the game loop never waits on painting.
+    //Only the areas of machines that changed since the last snapshot are repainted.
+    private class GamePanel extends JPanel
+    {
+        Simulator simulator;
+        AtomicReference<PlantSnapshot> snapshot = new AtomicReference<>();
+        PlantRenderer renderer;
+        MachineSnapshot[] publishedMachines;
+        Rectangle[] publishedBounds;
+        List<Rectangle> dirtyRegions = new ArrayList<>();
+
+        public GamePanel()
+        {
+            simulator = new Simulator();
+            renderer = new PlantRenderer(Game.WIDTH, Game.HEIGHT, Game.MACHINE_SCALE, getBackground());
+            publishSnapshot();
+        }
+
+        public void publishSnapshot()
+        {
+            PlantSnapshot plant = new PlantSnapshot(simulator);
+            MachineSnapshot[] machines = plant.getMachineSnapshots();
+            Rectangle[] bounds = PlantRenderer.getBounds(machines, Game.MACHINE_SCALE);
+            snapshot.set(plant);
+
+            dirtyRegions.clear();
+            if(publishedMachines != null)
+            {
+                PlantRenderer.findDirtyRegions(machines, bounds, publishedMachines, publishedBounds, dirtyRegions);
+            }
+            publishedMachines = machines;
+            publishedBounds = bounds;
+        }
+
+        public void repaintChanges()
+        {
+            for(Rectangle region : dirtyRegions)
+            {
+                repaint(region);
+            }
+        }
+
+        public void paintComponent(Graphics g)
+        {
+            //The back buffer is always brought fully up to date, and Swing clips the copy to the areas asked for.
+            renderer.render(snapshot.get());
+            g.drawImage(renderer.getBackBuffer(), 0, 0, null);
+
+            frameCount.incrementAndGet();
+        }
+    }
+
+}
\ No newline at end of file
@@ -1,7 +1,25 @@
 import java.awt.Graphics;
 import java.awt.Color;
 
+//Colours are looked up in palettes built once, so drawing a frame does not allocate any.
 public class GraphicsHelper {
+    public static final Color BLACK = new Color(0,0,0);
+    public static final Color LIQUID_COLOR = new Color(0,255,0);
+    public static final Color EMPTY_CONTENT_COLOR = new Color(200,200,200);
+    public static final Color EMPTY_COOLANT_COLOR = new Color(255,255,255);
+    //Index i runs from white at 0 to blue or red at 255.
+    private static final Color[] BLUE_RAMP = new Color[256];
+    private static final Color[] RED_RAMP = new Color[256];
+    private static final Color[] COLD_RAMP = new Color[256];
+
+    static {
+        for(int i=0;i<256;i++){
+            BLUE_RAMP[i] = new Color(255 - i,255 - i, 255);
+            RED_RAMP[i] = new Color(255,255 - i, 255 - i);
+            COLD_RAMP[i] = new Color(i,i,255);
+        }
+    }
+
     public static void drawCircle(Graphics g,int xPos, int yPos, int radius){
         g.drawOval(xPos - radius, yPos - radius, radius * 2, radius * 2);
     }
@@ -9,7 +27,7 @@ public class GraphicsHelper {
     public static void fillCircle(Graphics g, int xPos, int yPos, int radius, Color color){
         g.setColor(color);
         g.fillOval(xPos - radius, yPos - radius, radius * 2, radius * 2);
-        g.setColor(new Color(0,0,0));
+        g.setColor(BLACK);
     }
 
     public static void fillCoil(Graphics g, int xPos, int yPos, Color gasColor, Color coolantColor, double pipeWidth, double pipeLength, double scale){
@@ -37,17 +55,29 @@ public class GraphicsHelper {
             g.fillArc(xPos + (int)scaledPipeWidth + (int)(scaledPipeWidth/2) + (int)( i * (scaledPipeWidth * 2)),yPos + (int)scaledCoilHeight + (int)(scaledPipeWidth / 1.4),(int)(scaledPipeWidth/2),(int)(scaledPipeWidth/2),180,180);
         }
 
-        g.setColor(new Color(0,0,0));
+        g.setColor(BLACK);
     }
 
     public static Color getTemperatureGradient(double minTemp, double maxTemp, double temp){
         double halfTemp = (maxTemp + minTemp)/2;
         if(temp <= halfTemp){
-            int tempCol = (int)Math.min((temp - minTemp) * (255/halfTemp), 255);
-            return new Color(tempCol,tempCol,255);
+            return COLD_RAMP[getRampIndex((temp - minTemp) * (255/halfTemp))];
         }else{
-            int tempCol = (int)Math.min((temp - halfTemp) * (255/halfTemp), 255);
-            return new Color(255,255 - tempCol, 255 - tempCol);
+            return RED_RAMP[getRampIndex((temp - halfTemp) * (255/halfTemp))];
         }
     }
+
+    //Blue shading used for pressure, darker the higher the value.
+    public static Color getBlueShade(double value){
+        return BLUE_RAMP[getRampIndex(value)];
+    }
+
+    //Red shading used for heat, darker the higher the value.
+    public static Color getRedShade(double value){
+        return RED_RAMP[getRampIndex(value)];
+    }
+
+    public static int getRampIndex(double value){
+        return Math.max(0, (int)Math.min(value, 255));
+    }
 }
\ No newline at end of file
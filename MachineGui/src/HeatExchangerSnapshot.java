@@ -0,0 +1,87 @@
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+
+//Draws a heat exchanger. The values shown are copied from the heat exchanger at one instant so they can be drawn on another thread.
+public class HeatExchangerSnapshot implements MachineSnapshot {
+    private static final double PIPE_WIDTH = 0.02;
+    private static final double PIPE_LENGTH = 3;
+
+    private final boolean hasContents;
+    private final boolean hasCoolant;
+    private final double contentTemperature;
+    private final double coolantTemperature;
+    private final double contentVolume;
+    private final double coolantVolume;
+    private final double pressure;
+    private final double pipeTemperature;
+    private final double pipeMaxPressure;
+
+    public HeatExchangerSnapshot(HeatExchanger heatExchanger) {
+        hasContents = heatExchanger.getContents() != null;
+        hasCoolant = heatExchanger.getCoolant() != null;
+        contentTemperature = heatExchanger.getContentTemperature();
+        coolantTemperature = heatExchanger.getCoolantTemperature();
+        contentVolume = MaterialHelper.materialVolume(heatExchanger.getContents());
+        coolantVolume = MaterialHelper.materialVolume(heatExchanger.getCoolant());
+        pressure = heatExchanger.getPressure();
+        pipeTemperature = heatExchanger.getPipe().getMaterial().getTemperature();
+        pipeMaxPressure = heatExchanger.getPipe().getMaxPressure();
+    }
+
+    //The coil is filled with the content and coolant colours, so all of it is redrawn when they change.
+    @Override
+    public void drawStatic(Graphics g, int xPos, int yPos, int scale){
+    }
+
+    @Override
+    public void drawDynamic(Graphics g, int xPos, int yPos, int scale){
+        Color contentColor = GraphicsHelper.EMPTY_CONTENT_COLOR;
+        Color coolantColor = GraphicsHelper.EMPTY_COOLANT_COLOR;
+
+        if(hasContents) contentColor = GraphicsHelper.getTemperatureGradient(HeatExchanger.MIN_TEMPERATURE, HeatExchanger.MAX_TEMPERATURE, contentTemperature);
+        if(hasCoolant) coolantColor = GraphicsHelper.getTemperatureGradient(HeatExchanger.MIN_TEMPERATURE, HeatExchanger.MAX_TEMPERATURE, coolantTemperature);
+
+        GraphicsHelper.fillCoil(g, xPos, yPos, contentColor,coolantColor, PIPE_WIDTH,PIPE_LENGTH,scale);
+        g.drawString("Pipe Temperature " + (float)(pipeTemperature - 273) + " C",xPos,yPos - 15);
+        g.drawString("Pipe Max Pressure " + (float)pipeMaxPressure + " Atm", xPos, yPos - 30);
+        if(hasContents){
+            g.drawString("Content Volume" + (float)contentVolume + " m3",xPos, yPos - 75);
+            g.drawString("Content Pressure " + (float)pressure + " Atm",xPos,yPos - 60);
+            g.drawString("Content Temperature " + (float)(contentTemperature - 273) + " C",xPos,yPos - 45);
+        }
+        if(hasCoolant){
+            g.drawString("Coolant Temperature " + (float)(coolantTemperature - 273) + " C", xPos, yPos - 105);
+            g.drawString("Coolant Volume " + (float)coolantVolume + " m3",xPos,yPos - 90);
+        }
+    }
+
+    @Override
+    public Rectangle getBounds(int xPos, int yPos, int scale){
+        int scaledPipeWidth = (int)(PIPE_WIDTH * scale);
+        int scaledCoilHeight = (int)(PIPE_WIDTH * Math.floor(Math.sqrt(PIPE_LENGTH/(2*PIPE_WIDTH))) * scale);
+        return MachineSnapshot.getLabelledBounds(xPos - scaledPipeWidth, yPos, scaledCoilHeight + scaledPipeWidth * 3, scaledCoilHeight + scaledPipeWidth * 3, xPos, yPos - 15, 7);
+    }
+
+    @Override
+    public boolean looksSame(MachineSnapshot other){
+        if(!(other instanceof HeatExchangerSnapshot)) return false;
+        HeatExchangerSnapshot heatExchanger = (HeatExchangerSnapshot)other;
+        return hasContents == heatExchanger.hasContents && hasCoolant == heatExchanger.hasCoolant
+                && contentTemperature == heatExchanger.contentTemperature && coolantTemperature == heatExchanger.coolantTemperature
+                && contentVolume == heatExchanger.contentVolume && coolantVolume == heatExchanger.coolantVolume
+                && pressure == heatExchanger.pressure && pipeTemperature == heatExchanger.pipeTemperature && pipeMaxPressure == heatExchanger.pipeMaxPressure;
+    }
+
+    public double getContentTemperature() {
+        return contentTemperature;
+    }
+
+    public double getCoolantTemperature() {
+        return coolantTemperature;
+    }
+
+    public double getPipeTemperature() {
+        return pipeTemperature;
+    }
+}
@@ -0,0 +1,35 @@
+import java.awt.Graphics;
+import java.awt.Rectangle;
+
+//A machine's values copied at one instant, and how to draw them.
+//The outline drawn by drawStatic never changes, so a renderer can draw it once into a cached layer and only redraw the rest.
+public interface MachineSnapshot {
+    int LABEL_LINE_HEIGHT = 15;
+    int LABEL_WIDTH = 320;
+    int LABEL_ASCENT = 12;
+    int LABEL_DESCENT = 4;
+    int MARGIN = 2;
+
+    void drawStatic(Graphics g, int xPos, int yPos, int scale);
+
+    void drawDynamic(Graphics g, int xPos, int yPos, int scale);
+
+    //Area drawStatic and drawDynamic can draw into, labels included.
+    Rectangle getBounds(int xPos, int yPos, int scale);
+
+    //True when drawing this snapshot would give the same pixels as drawing the other.
+    boolean looksSame(MachineSnapshot other);
+
+    default void draw(Graphics g, int xPos, int yPos, int scale){
+        drawStatic(g, xPos, yPos, scale);
+        drawDynamic(g, xPos, yPos, scale);
+    }
+
+    //Bounds of a shape plus lines of labels starting at labelX, the lowest with its baseline at labelBaseline and the rest above it.
+    static Rectangle getLabelledBounds(int x, int y, int width, int height, int labelX, int labelBaseline, int labelLines){
+        Rectangle bounds = new Rectangle(x - MARGIN, y - MARGIN, width + MARGIN * 2 + 1, height + MARGIN * 2 + 1);
+        int labelTop = labelBaseline - (labelLines - 1) * LABEL_LINE_HEIGHT - LABEL_ASCENT;
+        bounds.add(new Rectangle(labelX - MARGIN, labelTop - MARGIN, LABEL_WIDTH, labelBaseline + LABEL_DESCENT - labelTop + MARGIN * 2));
+        return bounds;
+    }
+}
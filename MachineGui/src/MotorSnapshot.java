@@ -0,0 +1,77 @@
+import java.awt.Graphics;
+import java.awt.Rectangle;
+
+//Draws a motor. The values shown are copied from the motor at one instant so they can be drawn on another thread.
+public class MotorSnapshot implements MachineSnapshot {
+    private final double coilArea;
+    private final double wireTemperature;
+    private final double wireTemperatureRating;
+    private final double radAngle;
+    private final double rpm;
+    private final double torque;
+    private final double backEmf;
+
+    public MotorSnapshot(Motor motor) {
+        coilArea = motor.getCoilArea();
+        wireTemperature = motor.getWireTemperature();
+        wireTemperatureRating = motor.getWireTemperatureRating();
+        radAngle = motor.getRadAngle();
+        rpm = motor.getRpm();
+        torque = motor.getTorque();
+        backEmf = motor.getBackEmf();
+    }
+
+    @Override
+    public void drawStatic(Graphics g, int xPos, int yPos, int scale){
+        GraphicsHelper.drawCircle(g, xPos, yPos, (int)getScaledRadius(scale));
+    }
+
+    @Override
+    public void drawDynamic(Graphics g, int xPos, int yPos, int scale){
+        double scaledMotorRadius = getScaledRadius(scale);
+        GraphicsHelper.fillCircle(g, xPos, yPos, (int)scaledMotorRadius - 1, GraphicsHelper.getRedShade((wireTemperature - Simulator.AMBIENT_TEMP) * (255/(wireTemperatureRating - Simulator.AMBIENT_TEMP))));
+        g.drawLine(xPos,yPos,(int)(Math.cos(radAngle) * scaledMotorRadius) + xPos, (int)(Math.sin(radAngle) * scaledMotorRadius) + yPos);
+        g.drawString((float)rpm + " RPM", xPos - (int)scaledMotorRadius, (yPos - (int)scaledMotorRadius) - 60);
+        g.drawString("Temperature " + (float)(wireTemperature - 273.13) + " C", xPos - (int)scaledMotorRadius, (yPos - (int)scaledMotorRadius) - 45);
+        g.drawString("Torque " + (float)torque + " Nm", xPos - (int)scaledMotorRadius, (yPos - (int)scaledMotorRadius) - 30);
+        g.drawString("Back Emf " + (float)backEmf + " V", xPos - (int)scaledMotorRadius, (yPos - (int)scaledMotorRadius) - 15);
+    }
+
+    @Override
+    public Rectangle getBounds(int xPos, int yPos, int scale){
+        int radius = (int)getScaledRadius(scale);
+        return MachineSnapshot.getLabelledBounds(xPos - radius, yPos - radius, radius * 2, radius * 2, xPos - radius, yPos - radius - 15, 4);
+    }
+
+    @Override
+    public boolean looksSame(MachineSnapshot other){
+        if(!(other instanceof MotorSnapshot)) return false;
+        MotorSnapshot motor = (MotorSnapshot)other;
+        return coilArea == motor.coilArea && wireTemperature == motor.wireTemperature && radAngle == motor.radAngle
+                && rpm == motor.rpm && torque == motor.torque && backEmf == motor.backEmf;
+    }
+
+    public double getScaledRadius(int scale){
+        return Math.sqrt(coilArea) * scale;
+    }
+
+    public double getWireTemperature() {
+        return wireTemperature;
+    }
+
+    public double getRadAngle() {
+        return radAngle;
+    }
+
+    public double getRpm() {
+        return rpm;
+    }
+
+    public double getTorque() {
+        return torque;
+    }
+
+    public double getBackEmf() {
+        return backEmf;
+    }
+}
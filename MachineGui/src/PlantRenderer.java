@@ -0,0 +1,105 @@
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+//Draws plant snapshots into a back buffer, redrawing only the machines whose values changed since the last frame.
+//Machine outlines are drawn once into a cached static layer. A changed machine's area is restored from that layer,
+//then every machine overlapping the area draws its moving parts clipped to it, so overlapping labels come out as a full redraw would.
+public class PlantRenderer {
+    //Position of each machine in PlantSnapshot.getMachineSnapshots order.
+    public static final int[][] LAYOUT = {
+            {50, 100}, {70, 600}, {350, 50}, {400, 350}, {700, 400}, {650, 50},
+            {1100, 300}, {650, 600}, {1300, 300}, {1300, 100}, {1300, 500}, {900, 300}
+    };
+
+    private int width;
+    private int height;
+    private int scale;
+    private Color background;
+    private BufferedImage staticLayer;
+    private BufferedImage backBuffer;
+    private MachineSnapshot[] lastMachines;
+    private Rectangle[] lastBounds;
+    private List<Rectangle> dirtyRegions = new ArrayList<>();
+
+    public PlantRenderer(int width, int height, int scale, Color background) {
+        this.width = width;
+        this.height = height;
+        this.scale = scale;
+        this.background = background;
+        backBuffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    //Brings the back buffer up to date with the snapshot, and returns the areas that changed.
+    public List<Rectangle> render(PlantSnapshot plant){
+        MachineSnapshot[] machines = plant.getMachineSnapshots();
+        Rectangle[] bounds = getBounds(machines, scale);
+
+        dirtyRegions.clear();
+        if(staticLayer == null){
+            drawStaticLayer(machines);
+            dirtyRegions.add(new Rectangle(0, 0, width, height));
+        }else{
+            findDirtyRegions(machines, bounds, lastMachines, lastBounds, dirtyRegions);
+        }
+
+        Graphics2D g = backBuffer.createGraphics();
+        for(Rectangle region : dirtyRegions){
+            g.setClip(region);
+            g.drawImage(staticLayer, 0, 0, null);
+            g.setColor(GraphicsHelper.BLACK);
+            for(int i=0;i<machines.length;i++){
+                if(bounds[i].intersects(region)){
+                    machines[i].drawDynamic(g, LAYOUT[i][0], LAYOUT[i][1], scale);
+                }
+            }
+        }
+        g.dispose();
+
+        lastMachines = machines;
+        lastBounds = bounds;
+        return dirtyRegions;
+    }
+
+    //Compares two snapshots without drawing anything, so the simulation thread can ask for a repaint of just the changed areas.
+    public static void findDirtyRegions(MachineSnapshot[] machines, Rectangle[] bounds, MachineSnapshot[] lastMachines, Rectangle[] lastBounds, List<Rectangle> dirtyRegions){
+        for(int i=0;i<machines.length;i++){
+            if(!machines[i].looksSame(lastMachines[i])){
+                dirtyRegions.add(bounds[i].union(lastBounds[i]));
+            }
+        }
+    }
+
+    public static Rectangle[] getBounds(MachineSnapshot[] machines, int scale){
+        Rectangle[] bounds = new Rectangle[machines.length];
+        for(int i=0;i<machines.length;i++){
+            bounds[i] = machines[i].getBounds(LAYOUT[i][0], LAYOUT[i][1], scale);
+        }
+        return bounds;
+    }
+
+    public void drawStaticLayer(MachineSnapshot[] machines){
+        staticLayer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics g = staticLayer.getGraphics();
+        g.setColor(background);
+        g.fillRect(0, 0, width, height);
+        g.setColor(GraphicsHelper.BLACK);
+        for(int i=0;i<machines.length;i++){
+            machines[i].drawStatic(g, LAYOUT[i][0], LAYOUT[i][1], scale);
+        }
+        g.dispose();
+    }
+
+    //Redraws everything on the next render, for when the static layer or background changes.
+    public void invalidate(){
+        staticLayer = null;
+    }
+
+    public BufferedImage getBackBuffer() {
+        return backBuffer;
+    }
+}
@@ -0,0 +1,97 @@
+//Everything the game window draws, copied from the simulator in one go on the simulation thread.
+//A snapshot is never changed after it is built, so the render thread can draw it while the simulation carries on.
+public class PlantSnapshot {
+    private final double simulatedTime;
+    private final long tickCount;
+    private final MotorSnapshot motor;
+    private final CompressorSnapshot compressor;
+    private final HeatExchangerSnapshot heatExchanger;
+    private final ExpanderSnapshot expander;
+    private final ChamberSnapshot chamber;
+    private final ChamberSnapshot outputChamber;
+    private final ChamberSnapshot heatExchangerGateChamber;
+    private final ChamberSnapshot inputCoolantChamber;
+    private final ChamberSnapshot outputCoolantChamber;
+    private final ChamberSnapshot outputContentChamber;
+    private final ChamberSnapshot expanderOutputGasChamber;
+    private final ChamberSnapshot expanderOutputLiquidChamber;
+
+    public PlantSnapshot(Simulator simulator) {
+        simulatedTime = simulator.getSimulatedTime();
+        tickCount = simulator.getTickCount();
+        motor = new MotorSnapshot(simulator.getMotor());
+        compressor = new CompressorSnapshot(simulator.getCompressor());
+        heatExchanger = new HeatExchangerSnapshot(simulator.getHeatExchanger());
+        expander = new ExpanderSnapshot(simulator.getExpander());
+        chamber = new ChamberSnapshot(simulator.getChamber());
+        outputChamber = new ChamberSnapshot(simulator.getOutputChamber());
+        heatExchangerGateChamber = new ChamberSnapshot(simulator.getHeatExchangerGateChamber());
+        inputCoolantChamber = new ChamberSnapshot(simulator.getInputCoolantChamber());
+        outputCoolantChamber = new ChamberSnapshot(simulator.getOutputCoolantChamber());
+        outputContentChamber = new ChamberSnapshot(simulator.getOutputContentChamber());
+        expanderOutputGasChamber = new ChamberSnapshot(simulator.getExpanderOutputGasChamber());
+        expanderOutputLiquidChamber = new ChamberSnapshot(simulator.getExpanderOutputLiquidChamber());
+    }
+
+    //The machines in the order the game window draws them, matching PlantRenderer.LAYOUT.
+    public MachineSnapshot[] getMachineSnapshots(){
+        return new MachineSnapshot[]{compressor, motor, chamber, outputChamber, heatExchanger, inputCoolantChamber, outputContentChamber,
+                outputCoolantChamber, expander, expanderOutputGasChamber, expanderOutputLiquidChamber, heatExchangerGateChamber};
+    }
+
+    public double getSimulatedTime() {
+        return simulatedTime;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public MotorSnapshot getMotor() {
+        return motor;
+    }
+
+    public CompressorSnapshot getCompressor() {
+        return compressor;
+    }
+
+    public HeatExchangerSnapshot getHeatExchanger() {
+        return heatExchanger;
+    }
+
+    public ExpanderSnapshot getExpander() {
+        return expander;
+    }
+
+    public ChamberSnapshot getChamber() {
+        return chamber;
+    }
+
+    public ChamberSnapshot getOutputChamber() {
+        return outputChamber;
+    }
+
+    public ChamberSnapshot getHeatExchangerGateChamber() {
+        return heatExchangerGateChamber;
+    }
+
+    public ChamberSnapshot getInputCoolantChamber() {
+        return inputCoolantChamber;
+    }
+
+    public ChamberSnapshot getOutputCoolantChamber() {
+        return outputCoolantChamber;
+    }
+
+    public ChamberSnapshot getOutputContentChamber() {
+        return outputContentChamber;
+    }
+
+    public ChamberSnapshot getExpanderOutputGasChamber() {
+        return expanderOutputGasChamber;
+    }
+
+    public ChamberSnapshot getExpanderOutputLiquidChamber() {
+        return expanderOutputLiquidChamber;
+    }
+}